@@ -16,6 +16,12 @@ dependencies {
     compileOnly("net.kyori:adventure-text-serializer-legacy:4.9.3")
     compileOnly("org.apache.logging.log4j:log4j-core:2.15.0")
     compileOnly("org.slf4j:slf4j-api:1.7.32")
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.8.1")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 blossom {
@@ -18,22 +18,30 @@ package me.xneox.epicguard.core;
 import java.io.File;
 import java.sql.SQLException;
 import java.util.concurrent.TimeUnit;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.config.MessagesConfiguration;
 import me.xneox.epicguard.core.config.PluginConfiguration;
 import me.xneox.epicguard.core.proxy.ProxyService;
 import me.xneox.epicguard.core.proxy.ProxyServiceSerializer;
 import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.NicknameRules;
+import me.xneox.epicguard.core.util.TimerWheel;
 import me.xneox.epicguard.core.util.VersionUtils;
 import me.xneox.epicguard.core.util.logging.LogFilter;
 import me.xneox.epicguard.core.manager.AttackManager;
 import me.xneox.epicguard.core.manager.GeoManager;
+import me.xneox.epicguard.core.manager.PrewarmManager;
 import me.xneox.epicguard.core.manager.UserManager;
+import me.xneox.epicguard.core.proxy.AddressListManager;
 import me.xneox.epicguard.core.proxy.ProxyManager;
 import me.xneox.epicguard.core.storage.StorageManager;
+import me.xneox.epicguard.core.task.AddressListUpdateTask;
 import me.xneox.epicguard.core.task.AttackResetTask;
 import me.xneox.epicguard.core.task.DataSaveTask;
+import me.xneox.epicguard.core.task.DatabaseUpdateTask;
 import me.xneox.epicguard.core.task.MonitorTask;
 import me.xneox.epicguard.core.task.UpdateCheckerTask;
+import me.xneox.epicguard.core.timeline.AttackTimeline;
 import me.xneox.epicguard.core.util.ConfigurationLoader;
 import me.xneox.epicguard.core.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
@@ -53,9 +61,12 @@ public class EpicGuard {
   private UserManager userManager;
   private AttackManager attackManager;
   private ProxyManager proxyManager;
+  private AddressListManager addressListManager;
+  private PrewarmManager prewarmManager;
+  private TimerWheel timerWheel;
+  private AttackTimeline timeline;
 
-  private PluginConfiguration config;
-  private MessagesConfiguration messages;
+  private volatile CompiledConfig compiledConfig;
 
   public EpicGuard(Platform platform) {
     this.platform = platform;
@@ -71,9 +82,14 @@ public class EpicGuard {
 
     logger().info("Initializing managers...");
     this.geoManager = new GeoManager(this);
+    this.addressListManager = new AddressListManager(this);
+    this.addressListManager.initialize();
     this.proxyManager = new ProxyManager(this);
     this.attackManager = new AttackManager();
     this.userManager = new UserManager();
+    this.prewarmManager = new PrewarmManager(this);
+    this.timerWheel = new TimerWheel("EpicGuard Timer", 100L, TimeUnit.MILLISECONDS, 512);
+    this.timeline = new AttackTimeline((int) TimeUnit.DAYS.toSeconds(1L));
 
     this.storageManager = new StorageManager(this);
     this.storageManager.setupDatabase();
@@ -84,12 +100,18 @@ public class EpicGuard {
     logger().info("Scheduling tasks...");
     this.platform.scheduleRepeatingTask(new MonitorTask(this), 1L);
     this.platform.scheduleRepeatingTask(new UpdateCheckerTask(this), 1800L);
-    this.platform.scheduleRepeatingTask(new AttackResetTask(this), this.config.misc().attackResetInterval());
-    this.platform.scheduleRepeatingTask(new DataSaveTask(this), TimeUnit.MINUTES.toSeconds(this.config.misc().autoSaveInterval()));
+    this.platform.scheduleRepeatingTask(new AttackResetTask(this), this.config().misc().attackResetInterval());
+    this.platform.scheduleRepeatingTask(new DataSaveTask(this), TimeUnit.MINUTES.toSeconds(this.config().misc().autoSaveInterval()));
+    this.platform.scheduleRepeatingTask(new DatabaseUpdateTask(this), TimeUnit.HOURS.toSeconds(6L));
+    this.platform.scheduleRepeatingTask(new AddressListUpdateTask(this), 60L);
 
     logger().info("Startup completed successfully. Welcome to EpicGuard v" + VersionUtils.CURRENT_VERSION);
   }
 
+  /**
+   * Loads the configuration files, and publishes a new {@link CompiledConfig}.
+   * If they couldn't be loaded, the previous snapshot stays in use.
+   */
   public void loadConfigurations() {
     var configLoader = HoconConfigurationLoader.builder()
         .defaultOptions(opt -> opt.serializers(builder -> builder.register(ProxyService.class, ProxyServiceSerializer.INSTANCE)))
@@ -101,14 +123,33 @@ public class EpicGuard {
         .build();
 
     try {
-      this.config = new ConfigurationLoader<>(PluginConfiguration.class, configLoader).load();
-      this.messages = new ConfigurationLoader<>(MessagesConfiguration.class, messagesLoader).load();
+      var config = new ConfigurationLoader<>(PluginConfiguration.class, configLoader).load();
+      var messages = new ConfigurationLoader<>(MessagesConfiguration.class, messagesLoader).load();
+      this.compiledConfig = CompiledConfig.compile(config, messages, this.compiledConfig, this.logger());
     } catch (ConfigurateException exception) {
       LogUtils.catchException("Couldn't load the configuration file", exception);
     }
   }
 
+  /**
+   * Reloads the configuration files, and updates everything that depends on them.
+   * The check pipeline is rebuilt when the next connection is handled.
+   */
+  public void reload() {
+    var previous = this.compiledConfig;
+    this.loadConfigurations();
+    if (this.compiledConfig == previous) {
+      return; // couldn't be loaded, nothing has changed.
+    }
+
+    this.proxyManager.reload(previous.config().proxyCheck());
+    this.geoManager.compileCountryTable();
+    this.addressListManager.refreshAsync();
+  }
+
   public void shutdown() {
+    this.timerWheel.shutdown();
+
     try {
       this.storageManager.database().save();
       this.storageManager.database().shutdown();
@@ -127,14 +168,28 @@ public class EpicGuard {
     return this.platform;
   }
 
+  /**
+   * @return the current snapshot of the configuration. Code which reads the configuration
+   *     many times during a single operation should keep the snapshot, instead of calling this again.
+   */
+  @NotNull
+  public CompiledConfig compiledConfig() {
+    return this.compiledConfig;
+  }
+
   @NotNull
   public PluginConfiguration config() {
-    return this.config;
+    return this.compiledConfig.config();
   }
 
   @NotNull
   public MessagesConfiguration messages() {
-    return this.messages;
+    return this.compiledConfig.messages();
+  }
+
+  @NotNull
+  public NicknameRules nicknameRules() {
+    return this.compiledConfig.nicknameRules();
   }
 
   @NotNull
@@ -161,4 +216,30 @@ public class EpicGuard {
   public ProxyManager proxyManager() {
     return this.proxyManager;
   }
+
+  @NotNull
+  public AddressListManager addressListManager() {
+    return this.addressListManager;
+  }
+
+  @NotNull
+  public PrewarmManager prewarmManager() {
+    return this.prewarmManager;
+  }
+
+  /**
+   * @return the timer wheel running the delayed tasks of the online players.
+   */
+  @NotNull
+  public TimerWheel timerWheel() {
+    return this.timerWheel;
+  }
+
+  /**
+   * @return the per-second timeline of the last 24 hours.
+   */
+  @NotNull
+  public AttackTimeline timeline() {
+    return this.timeline;
+  }
 }
@@ -60,6 +60,7 @@ public interface Platform {
 
   /**
    * Schedules a task to be run asynchronously repeatedly with fixed delay (in seconds).
+   * The first run happens right after scheduling, not after the first delay.
    *
    * @param task The task to be scheduled.
    * @param seconds Delay in seconds between each runs of the task.
@@ -17,6 +17,8 @@ package me.xneox.epicguard.core.check;
 
 import java.util.List;
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.config.PluginConfiguration;
 import me.xneox.epicguard.core.user.ConnectingUser;
 import me.xneox.epicguard.core.util.TextUtils;
 import me.xneox.epicguard.core.util.ToggleState;
@@ -25,12 +27,21 @@ import org.jetbrains.annotations.NotNull;
 
 public abstract class AbstractCheck implements Comparable<AbstractCheck> {
   protected final EpicGuard epicGuard;
+  protected final CompiledConfig compiledConfig;
 
   private final int priority;
   private final TextComponent detectionMessage;
 
-  public AbstractCheck(@NotNull EpicGuard epicGuard, @NotNull List<String> detectionMessage, int priority) {
+  /**
+   * @param epicGuard the EpicGuard instance
+   * @param compiledConfig the configuration snapshot this check is created from, the checks are created
+   *     again whenever the configuration is reloaded
+   * @param detectionMessage the disconnect message of this check
+   * @param priority the priority of this check
+   */
+  public AbstractCheck(@NotNull EpicGuard epicGuard, @NotNull CompiledConfig compiledConfig, @NotNull List<String> detectionMessage, int priority) {
     this.epicGuard = epicGuard;
+    this.compiledConfig = compiledConfig;
     this.detectionMessage = TextUtils.multilineComponent(detectionMessage);
     this.priority = priority;
   }
@@ -39,26 +50,52 @@ public abstract class AbstractCheck implements Comparable<AbstractCheck> {
    * Method containing the check's logic, it's return value determines if
    * the user will be disconnected or if the pipeline will continue checking the user.
    *
+   * This is called only if the check is active according to its {@link #checkMode()},
+   * so disabled checks never perform any lookups or modify their state.
+   *
    * @param user the connecting user.
    * @return true if detected, false if not
    */
   public abstract boolean isDetected(@NotNull ConnectingUser user);
 
   /**
-   * This method asserts the following behavoiur based on the provided {@link ToggleState}:
-   *  - If the state is ALWAYS, it will return the value of the specified expression.
-   *  - If the state is ATTACK, it will return the value of the expression ONLY if there's an attack.
-   *  - If the state is NEVER, it will return false.
+   * Determines when this check should be performed:
+   *  - If the state is ALWAYS, the check is always performed.
+   *  - If the state is ATTACK, the check is performed ONLY if there's an attack.
+   *  - If the state is NEVER, the check is never performed.
+   *
+   * @return the configured {@link ToggleState} for this check, ALWAYS by default
+   */
+  @NotNull
+  public ToggleState checkMode() {
+    return ToggleState.ALWAYS;
+  }
+
+  /**
+   * @return the configuration this check has been created with.
+   */
+  @NotNull
+  protected PluginConfiguration config() {
+    return this.compiledConfig.config();
+  }
+
+  /**
+   * Name of this check, used in the logs and as the key of its weight in the scoring mode.
+   *
+   * @return simple name of the check's class
+   */
+  @NotNull
+  public String name() {
+    return this.getClass().getSimpleName();
+  }
+
+  /**
+   * Expensive checks may perform database or network lookups. In the scoring mode, they are
+   * performed after the other checks, so they can be skipped if the outcome is already known.
    *
-   * @param state the configured {@link ToggleState} for this check
-   * @param expression the base check's result
-   * @return The return value is based on the check's behaviour. True means positive detection,
-   *     false means negative.
+   * @return whenever this check is expensive
    */
-  public boolean evaluate(ToggleState state, boolean expression) {
-    if (state == ToggleState.ALWAYS || state == ToggleState.ATTACK && this.epicGuard.attackManager().isUnderAttack()) {
-      return expression;
-    }
+  public boolean isExpensive() {
     return false;
   }
 
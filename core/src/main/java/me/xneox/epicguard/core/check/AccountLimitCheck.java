@@ -16,21 +16,27 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * This check limits how many accounts can be created on one address.
  */
 public class AccountLimitCheck extends AbstractCheck {
-  public AccountLimitCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().accountLimit(), epicGuard.config().accountLimitCheck().priority());
+  public AccountLimitCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().accountLimit(), compiledConfig.config().accountLimitCheck().priority());
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
     var accounts = this.epicGuard.storageManager().addressMeta(user.address()).nicknames();
-    return this.evaluate(this.epicGuard.config().accountLimitCheck().checkMode(),
-        !accounts.contains(user.nickname()) && accounts.size() >= this.epicGuard.config().accountLimitCheck().accountLimit());
+    return !accounts.contains(user.nickname()) && accounts.size() >= this.config().accountLimitCheck().accountLimit();
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().accountLimitCheck().checkMode();
   }
 }
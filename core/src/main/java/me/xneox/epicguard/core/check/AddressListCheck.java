@@ -0,0 +1,43 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.check;
+
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This checks if the user's address is on one of the configured proxy, VPN or Tor exit lists.
+ * The lists are downloaded and compiled in the background, so the check itself never performs
+ * any network requests. See {@link me.xneox.epicguard.core.proxy.AddressListManager}
+ */
+public class AddressListCheck extends AbstractCheck {
+  public AddressListCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().addressList(), compiledConfig.config().addressListCheck().priority());
+  }
+
+  @Override
+  public boolean isDetected(@NotNull ConnectingUser user) {
+    return this.epicGuard.addressListManager().contains(user.address());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().addressListCheck().checkMode();
+  }
+}
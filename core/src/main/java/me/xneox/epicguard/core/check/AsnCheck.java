@@ -0,0 +1,47 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.check;
+
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This checks if the user is connecting from a denied network (ASN), such as a hosting provider.
+ * The lookup is performed locally, using the GeoLite2-ASN database.
+ */
+public class AsnCheck extends AbstractCheck {
+  public AsnCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().asn(), compiledConfig.config().asnCheck().priority());
+  }
+
+  @Override
+  public boolean isDetected(@NotNull ConnectingUser user) {
+    return this.epicGuard.geoManager().isDeniedAsn(user.address());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().asnCheck().checkMode();
+  }
+
+  @Override
+  public boolean isExpensive() {
+    return true;
+  }
+}
@@ -16,6 +16,7 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.check.AbstractCheck;
 import me.xneox.epicguard.core.user.ConnectingUser;
 import org.jetbrains.annotations.NotNull;
@@ -24,8 +25,8 @@ import org.jetbrains.annotations.NotNull;
  * This just checks if the user is blacklisted.
  */
 public class BlacklistCheck extends AbstractCheck {
-  public BlacklistCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().blacklisted(), 98); // will always be executed secondly.
+  public BlacklistCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().blacklisted(), 98); // will always be executed secondly.
   }
 
   @Override
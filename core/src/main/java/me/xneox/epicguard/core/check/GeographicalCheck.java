@@ -17,34 +17,58 @@ package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.check.AbstractCheck;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.geo.CountryTable;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * This checks if the user's geographical location is allowed based on the current configuration.
  */
 public class GeographicalCheck extends AbstractCheck {
-  public GeographicalCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().geographical(), epicGuard.config().geographical().priority());
+  public GeographicalCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().geographical(), compiledConfig.config().geographical().priority());
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.evaluate(this.epicGuard.config().geographical().checkMode(), this.isRestricted(user.address()));
+    return this.isRestricted(user.address());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().geographical().checkMode();
   }
 
   private boolean isRestricted(String address) {
-    String country = this.epicGuard.geoManager().countryCode(address);
-    String city = this.epicGuard.geoManager().city(address);
+    var config = this.config().geographical();
+
+    // Without any city rules, the precompiled table can decide alone.
+    // It is used only if it has been compiled from the same country rules as this check.
+    var table = this.epicGuard.geoManager().countryTable(this.compiledConfig);
+    if (table != null && config.cityBlacklist().isEmpty()) {
+      int decision = table.decision(address);
+      if (decision != CountryTable.UNKNOWN) {
+        return decision == CountryTable.RESTRICTED;
+      }
+    }
 
-    if (this.epicGuard.config().geographical().cityBlacklist().contains(city)) {
+    var result = this.epicGuard.geoManager().lookup(address);
+
+    if (result.hasCity() && this.compiledConfig.cityBlacklist().contains(result.city())) {
       return true;
     }
 
-    if (this.epicGuard.config().geographical().isBlacklist()) {
-      return this.epicGuard.config().geographical().countries().contains(country);
+    if (config.isBlacklist()) {
+      return this.compiledConfig.countries().contains(result.countryCode());
     } else {
-      return !this.epicGuard.config().geographical().countries().contains(country);
+      return !this.compiledConfig.countries().contains(result.countryCode());
     }
   }
+
+  @Override
+  public boolean isExpensive() {
+    return true;
+  }
 }
@@ -16,19 +16,26 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * This check denies any connection if the attack mode is active.
  */
 public class LockdownCheck extends AbstractCheck {
-  public LockdownCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().attackLockdown(), 99); // will always be executed first
+  public LockdownCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().attackLockdown(), 99); // will always be executed first
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.epicGuard.attackManager().isUnderAttack() && this.epicGuard.config().misc().lockdownOnAttack();
+    return true; // performed only during an attack.
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().misc().lockdownOnAttack() ? ToggleState.ATTACK : ToggleState.NEVER;
   }
 }
@@ -15,44 +15,51 @@
 
 package me.xneox.epicguard.core.check;
 
-import com.google.common.collect.EvictingQueue;
+import java.util.concurrent.TimeUnit;
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.user.ConnectingUser;
-import org.apache.commons.text.similarity.LevenshteinDistance;
+import me.xneox.epicguard.core.util.NameHistory;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.Queue;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This check caches nicknames of the recently connecting users,
- * and uses {@link LevenshteinDistance} to check similarity between them.
+ * and checks the Levenshtein distance between them. See {@link NameHistory}
  * Not tested, may be unstable.
  */
-@SuppressWarnings("UnstableApiUsage")
 public class NameSimilarityCheck extends AbstractCheck {
-  private final Queue<String> nameHistory = EvictingQueue.create(this.epicGuard.config().nameSimilarityCheck().historySize());
-  private final LevenshteinDistance distanceAlgorithm = LevenshteinDistance.getDefaultInstance();
+  private final NameHistory nameHistory;
+
+  /**
+   * @param previous the check created from the previous configuration, its history is kept
+   *     if the history settings haven't changed
+   */
+  public NameSimilarityCheck(EpicGuard epicGuard, CompiledConfig compiledConfig, @Nullable NameSimilarityCheck previous) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().nameSimilarity(), compiledConfig.config().nameSimilarityCheck().priority());
 
-  public NameSimilarityCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().nameSimilarity(), epicGuard.config().nameSimilarityCheck().priority());
+    var config = compiledConfig.config().nameSimilarityCheck();
+    if (previous != null
+        && previous.config().nameSimilarityCheck().historySize() == config.historySize()
+        && previous.config().nameSimilarityCheck().historyDuration() == config.historyDuration()) {
+      this.nameHistory = previous.nameHistory;
+    } else {
+      this.nameHistory = new NameHistory(config.historySize(), TimeUnit.SECONDS.toMillis(config.historyDuration()));
+    }
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    synchronized (this.nameHistory) {
-      for (String nick : this.nameHistory) {
-        if (nick.equals(user.nickname())) {
-          return false; // ignore identical nickname.
-        }
-
-        int distance = this.distanceAlgorithm.apply(nick, user.nickname());
-        if (distance <= this.epicGuard.config().nameSimilarityCheck().distance()) {
-          return this.evaluate(this.epicGuard.config().nameSimilarityCheck().checkMode(), true);
-        }
-      }
-
+    var match = this.nameHistory.find(user.nickname(), this.config().nameSimilarityCheck().distance());
+    if (match == NameHistory.Match.NONE) {
       this.nameHistory.add(user.nickname());
-      return false;
     }
+    return match == NameHistory.Match.SIMILAR; // identical nicknames are ignored.
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().nameSimilarityCheck().checkMode();
   }
 }
@@ -16,21 +16,28 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.check.AbstractCheck;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * This check tries to match the user's nickname with the configured regex pattern.
+ * This check tries to match the user's nickname with the configured rules.
+ * The rules are compiled when the configuration is loaded, see {@link me.xneox.epicguard.core.util.NicknameRules}
  */
 public class NicknameCheck extends AbstractCheck {
-  public NicknameCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().nickname(), epicGuard.config().nicknameCheck().priority());
+  public NicknameCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().nickname(), compiledConfig.config().nicknameCheck().priority());
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.evaluate(this.epicGuard.config().nicknameCheck().checkMode(),
-        user.nickname().matches(this.epicGuard.config().nicknameCheck().expression()));
+    return this.compiledConfig.nicknameRules().matches(user.nickname());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().nicknameCheck().checkMode();
   }
 }
@@ -16,8 +16,10 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.check.AbstractCheck;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -25,13 +27,26 @@ import org.jetbrains.annotations.NotNull;
  * The detection logic is located in {@link me.xneox.epicguard.core.proxy.ProxyManager}
  */
 public class ProxyCheck extends AbstractCheck {
-  public ProxyCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().proxy(), epicGuard.config().proxyCheck().priority());
+  public ProxyCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().proxy(), compiledConfig.config().proxyCheck().priority());
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.evaluate(this.epicGuard.config().proxyCheck().checkMode(),
-        this.epicGuard.proxyManager().isProxy(user.address()));
+    // The result is known already if the connection is handled without blocking, see PreLoginHandler#onPreLoginAsync
+    if (user.proxy() != null) {
+      return user.proxy();
+    }
+    return this.epicGuard.proxyManager().isProxy(user.address());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().proxyCheck().checkMode();
+  }
+
+  @Override
+  public boolean isExpensive() {
+    return true;
   }
 }
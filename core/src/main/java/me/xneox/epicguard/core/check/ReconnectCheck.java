@@ -15,33 +15,46 @@
 
 package me.xneox.epicguard.core.check;
 
-import java.util.Collection;
-import java.util.HashSet;
 import me.xneox.epicguard.core.EpicGuard;
-import me.xneox.epicguard.core.check.AbstractCheck;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.ExpiringHashSet;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This check forces player to reconnect if they are connecting for the first time.
+ * Only a hash of the address and nickname is stored, and it expires if the player doesn't reconnect in time.
  */
 public class ReconnectCheck extends AbstractCheck {
-  private final Collection<ConnectingUser> connectingUserCache = new HashSet<>(); //todo: thread safety :/
+  private final ExpiringHashSet connectingUserCache;
 
-  public ReconnectCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().reconnect(), epicGuard.config().reconnectCheck().priority());
+  /**
+   * @param previous the check created from the previous configuration, its remembered connections
+   *     are kept if the maximum amount hasn't changed
+   */
+  public ReconnectCheck(EpicGuard epicGuard, CompiledConfig compiledConfig, @Nullable ReconnectCheck previous) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().reconnect(), compiledConfig.config().reconnectCheck().priority());
+
+    int maxEntries = compiledConfig.config().reconnectCheck().maxEntries();
+    this.connectingUserCache = previous != null && previous.config().reconnectCheck().maxEntries() == maxEntries
+        ? previous.connectingUserCache
+        : new ExpiringHashSet(maxEntries);
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.evaluate(this.epicGuard.config().reconnectCheck().checkMode(), this.needsReconnect(user));
+    return this.needsReconnect(user);
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().reconnectCheck().checkMode();
   }
 
   private boolean needsReconnect(ConnectingUser connectingUser) {
-    if (!this.connectingUserCache.contains(connectingUser)) {
-      this.connectingUserCache.add(connectingUser);
-      return true;
-    }
-    return false;
+    long hash = ExpiringHashSet.hash(connectingUser.address(), connectingUser.nickname());
+    return !this.connectingUserCache.testAndAdd(hash, this.config().reconnectCheck().reconnectWindow());
   }
 }
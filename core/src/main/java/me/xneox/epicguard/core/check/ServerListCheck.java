@@ -16,21 +16,33 @@
 package me.xneox.epicguard.core.check;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
 import me.xneox.epicguard.core.check.AbstractCheck;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.AddressKey;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * This check forces the user has to ping the server before joining.
  */
 public class ServerListCheck extends AbstractCheck {
-  public ServerListCheck(EpicGuard epicGuard) {
-    super(epicGuard, epicGuard.messages().disconnect().serverListPing(), epicGuard.config().serverListCheck().priority());
+  public ServerListCheck(EpicGuard epicGuard, CompiledConfig compiledConfig) {
+    super(epicGuard, compiledConfig, compiledConfig.messages().disconnect().serverListPing(), compiledConfig.config().serverListCheck().priority());
   }
 
   @Override
   public boolean isDetected(@NotNull ConnectingUser user) {
-    return this.evaluate(this.epicGuard.config().serverListCheck().checkMode(),
-        !this.epicGuard.storageManager().pingCache().contains(user.address()));
+    return !this.hasPinged(user.address());
+  }
+
+  @Override
+  public @NotNull ToggleState checkMode() {
+    return this.config().serverListCheck().checkMode();
+  }
+
+  private boolean hasPinged(String address) {
+    var key = AddressKey.parse(address);
+    return key != null && this.epicGuard.storageManager().pingCache().mightContain(key);
   }
 }
@@ -26,6 +26,7 @@ import me.xneox.epicguard.core.command.sub.HelpCommand;
 import me.xneox.epicguard.core.command.sub.ReloadCommand;
 import me.xneox.epicguard.core.command.sub.SaveCommand;
 import me.xneox.epicguard.core.command.sub.StatusCommand;
+import me.xneox.epicguard.core.command.sub.TimelineCommand;
 import me.xneox.epicguard.core.command.sub.WhitelistCommand;
 import me.xneox.epicguard.core.util.TextUtils;
 import me.xneox.epicguard.core.util.VersionUtils;
@@ -50,6 +51,7 @@ public class CommandHandler {
     this.commandMap.put("status", new StatusCommand());
     this.commandMap.put("whitelist", new WhitelistCommand());
     this.commandMap.put("save", new SaveCommand());
+    this.commandMap.put("timeline", new TimelineCommand());
   }
 
   public void handleCommand(@NotNull String[] args, @NotNull Audience audience) {
@@ -15,19 +15,16 @@
 
 package me.xneox.epicguard.core.command.sub;
 
-import com.google.common.net.InetAddresses;
 import java.util.Collection;
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.command.SubCommand;
 import me.xneox.epicguard.core.config.MessagesConfiguration;
-import me.xneox.epicguard.core.storage.AddressMeta;
 import me.xneox.epicguard.core.util.TextUtils;
 import net.kyori.adventure.audience.Audience;
 import org.jetbrains.annotations.NotNull;
 
 public class AnalyzeCommand implements SubCommand {
 
-  @SuppressWarnings("UnstableApiUsage")
   @Override
   public void execute(@NotNull Audience audience, @NotNull String[] args, @NotNull EpicGuard epicGuard) {
     var config = epicGuard.messages().command();
@@ -38,30 +35,20 @@ public class AnalyzeCommand implements SubCommand {
       return;
     }
 
-    var meta = epicGuard.storageManager().resolveAddressMeta(args[1]);
-    if (meta == null) {
+    // If executor provided nickname as the argument, we have to find their IP address.
+    var address = epicGuard.storageManager().resolveAddress(args[1]);
+    if (address == null) {
       audience.sendMessage(TextUtils.component(config.prefix() + config.invalidArgument()));
       return;
     }
 
-    // Assume that executor provided an address as the argument.
-    String address = args[1];
-
-    // If executor provided nickname as the argument instead, we have to find their IP address.
-    if (!InetAddresses.isInetAddress(args[1])) {
-      for (var entry : epicGuard.storageManager().addresses().entrySet()) {
-        if (entry.getValue().equals(meta)) {
-          address = entry.getKey();
-          break;
-        }
-      }
-    }
-
+    var meta = epicGuard.storageManager().addressMeta(address);
+    var geoResult = epicGuard.geoManager().lookup(address, true);
     for (String line : config.analyzeCommand()) {
       audience.sendMessage(TextUtils.component(line
           .replace("{ADDRESS}", address)
-          .replace("{COUNTRY}", epicGuard.geoManager().countryCode(address))
-          .replace("{CITY}", epicGuard.geoManager().city(address))
+          .replace("{COUNTRY}", geoResult.countryCode())
+          .replace("{CITY}", geoResult.city() != null ? geoResult.city() : "unknown")
           .replace("{WHITELISTED}", meta.whitelisted() ? "&a✔" : "&c✖")
           .replace("{BLACKLISTED}", meta.blacklisted() ? "&a✔" : "&c✖")
           .replace("{ACCOUNT-AMOUNT}", String.valueOf(meta.nicknames().size()))
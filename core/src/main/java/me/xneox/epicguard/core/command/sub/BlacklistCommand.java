@@ -37,19 +37,21 @@ public class BlacklistCommand implements SubCommand {
       return;
     }
 
-    var meta = epicGuard.storageManager().resolveAddressMeta(args[2]);
-    if (meta == null) {
+    var address = epicGuard.storageManager().resolveAddress(args[2]);
+    if (address == null) {
       audience.sendMessage(TextUtils.component(config.prefix() + config.invalidArgument()));
       return;
     }
 
+    var meta = epicGuard.storageManager().addressMeta(address);
+
     if (args[1].equalsIgnoreCase("add")) {
       if (meta.blacklisted()) {
         audience.sendMessage(TextUtils.component(config.prefix() + config.alreadyBlacklisted().replace("{USER}", args[2])));
         return;
       }
 
-      meta.blacklisted(true);
+      epicGuard.storageManager().update(address, value -> value.withBlacklisted(true));
       audience.sendMessage(TextUtils.component(config.prefix() + config.blacklistAdd().replace("{USER}", args[2])));
     } else if (args[1].equalsIgnoreCase("remove")) {
       if (!meta.blacklisted()) {
@@ -57,7 +59,7 @@ public class BlacklistCommand implements SubCommand {
         return;
       }
 
-      meta.blacklisted(false);
+      epicGuard.storageManager().update(address, value -> value.withBlacklisted(false));
       audience.sendMessage(TextUtils.component(config.prefix() + config.blacklistRemove().replace("{USER}", args[2])));
     }
   }
@@ -27,7 +27,7 @@ public class ReloadCommand implements SubCommand {
   public void execute(@NotNull Audience audience, @NotNull String[] args, @NotNull EpicGuard epicGuard) {
     var config = epicGuard.messages().command();
 
-    epicGuard.loadConfigurations();
+    epicGuard.reload();
     audience.sendMessage(TextUtils.component(config.prefix() + config.reloaded()));
   }
 }
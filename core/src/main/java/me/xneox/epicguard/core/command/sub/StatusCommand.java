@@ -15,11 +15,14 @@
 
 package me.xneox.epicguard.core.command.sub;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.command.SubCommand;
-import me.xneox.epicguard.core.user.OnlineUser;
+import me.xneox.epicguard.core.geo.GeoDatabase;
+import me.xneox.epicguard.core.proxy.CircuitBreaker;
+import me.xneox.epicguard.core.proxy.ProxyService;
 import me.xneox.epicguard.core.util.TextUtils;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.identity.Identity;
@@ -32,6 +35,47 @@ public class StatusCommand implements SubCommand {
   public void execute(@NotNull Audience audience, @NotNull String[] args, @NotNull EpicGuard epicGuard) {
     var config = epicGuard.messages().command();
 
+    // Effectiveness of the proxy cache, and current state of the configured proxy services.
+    var stats = epicGuard.proxyManager().cacheStats();
+    audience.sendMessage(TextUtils.component(config.prefix() + config.proxyCacheStatus()
+        .replace("{SIZE}", String.valueOf(epicGuard.proxyManager().cacheSize()))
+        .replace("{HIT-RATE}", String.format("%.1f", stats.hitRate() * 100.0D))
+        .replace("{HITS}", String.valueOf(stats.hitCount()))
+        .replace("{MISSES}", String.valueOf(stats.missCount()))
+        .replace("{EVICTIONS}", String.valueOf(stats.evictionCount()))));
+
+    for (ProxyService service : epicGuard.config().proxyCheck().services()) {
+      var health = epicGuard.proxyManager().health(service);
+      var breaker = health.breaker();
+      audience.sendMessage(TextUtils.component(config.prefix() + config.proxyServiceStatus()
+          .replace("{SERVICE}", health.name())
+          .replace("{STATE}", stateColor(breaker.state()) + breaker.state().name())
+          .replace("{FAILURES}", String.valueOf(breaker.failures()))
+          .replace("{CALLS}", String.valueOf(breaker.calls()))));
+    }
+
+    // Effectiveness of the node caches of the GeoIP databases, only the opened databases are shown.
+    var geoManager = epicGuard.geoManager();
+    for (GeoDatabase database : List.of(geoManager.countryDatabase(), geoManager.cityDatabase(), geoManager.asnDatabase())) {
+      var cache = database.cache();
+      if (cache != null) {
+        var cacheStats = cache.stats();
+        audience.sendMessage(TextUtils.component(config.prefix() + config.geoCacheStatus()
+            .replace("{DATABASE}", database.name())
+            .replace("{SIZE}", String.valueOf(cache.size()))
+            .replace("{HIT-RATE}", String.format("%.1f", cacheStats.hitRate() * 100.0D))
+            .replace("{HITS}", String.valueOf(cacheStats.hitCount()))
+            .replace("{MISSES}", String.valueOf(cacheStats.missCount()))
+            .replace("{EVICTIONS}", String.valueOf(cacheStats.evictionCount()))));
+      }
+    }
+
+    // Detections of the nickname rules since the startup, rules which are still configured keep their counts on reload.
+    epicGuard.nicknameRules().hits().forEach((rule, hits) ->
+        audience.sendMessage(TextUtils.component(config.prefix() + config.nicknameRuleStatus()
+            .replace("{RULE}", rule)
+            .replace("{HITS}", String.valueOf(hits)))));
+
     // for some reason not working in Velocity
     if (!audience.pointers().supports(Identity.UUID)) {
       audience.sendMessage(Component
@@ -42,10 +86,17 @@ public class StatusCommand implements SubCommand {
 
     Optional<UUID> uuidOptional = audience.pointers().get(Identity.UUID);
     uuidOptional.ifPresent(uuid -> {
-      // UUID is present, enable notifications.
-      OnlineUser onlineUser = epicGuard.userManager().getOrCreate(uuid);
-      onlineUser.notifications(!onlineUser.notifications());
+      // UUID is present, toggle notifications.
+      epicGuard.userManager().toggleNotifications(uuid, audience);
       audience.sendMessage(TextUtils.component(config.prefix() + config.toggleStatus()));
     });
   }
+
+  private static String stateColor(CircuitBreaker.State state) {
+    return switch (state) {
+      case CLOSED -> "&a";
+      case HALF_OPEN -> "&e";
+      case OPEN -> "&c";
+    };
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.command.sub;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.command.SubCommand;
+import me.xneox.epicguard.core.timeline.TimelineExporter;
+import me.xneox.epicguard.core.util.FileUtils;
+import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.TextUtils;
+import net.kyori.adventure.audience.Audience;
+import org.jetbrains.annotations.NotNull;
+
+public class TimelineCommand implements SubCommand {
+  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+  private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+  private static final long DEFAULT_MINUTES = 60L;
+  private static final long MAX_MINUTES = TimeUnit.DAYS.toMinutes(1L);
+
+  @Override
+  public void execute(@NotNull Audience audience, @NotNull String[] args, @NotNull EpicGuard epicGuard) {
+    var config = epicGuard.messages().command();
+
+    if (args.length == 3 && args[1].equalsIgnoreCase("export")) {
+      var format = Arrays.stream(TimelineExporter.Format.values())
+          .filter(value -> value.name().equalsIgnoreCase(args[2]))
+          .findFirst()
+          .orElse(null);
+
+      if (format != null) {
+        this.export(audience, epicGuard, format);
+        return;
+      }
+    }
+
+    long minutes = args.length == 2 ? parseMinutes(args[1]) : DEFAULT_MINUTES;
+    if (args.length > 2 || minutes <= 0L) {
+      audience.sendMessage(TextUtils.component(config.prefix() +
+          config.usage().replace("{USAGE}", "/guard timeline [minutes/export <csv/binary>]")));
+      return;
+    }
+
+    var summary = epicGuard.timeline().summarize(TimeUnit.MINUTES.toSeconds(minutes));
+    var peakTime = summary.peakCps() > 0
+        ? TIME_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(summary.peakTime()), ZoneId.systemDefault()))
+        : "-";
+
+    for (String line : config.timelineCommand()) {
+      audience.sendMessage(TextUtils.component(line
+          .replace("{MINUTES}", String.valueOf(minutes))
+          .replace("{SECONDS}", String.valueOf(summary.rows()))
+          .replace("{ATTACK-SECONDS}", String.valueOf(summary.attackSeconds()))
+          .replace("{CONNECTIONS}", String.valueOf(summary.connections()))
+          .replace("{PEAK-CPS}", String.valueOf(summary.peakCps()))
+          .replace("{PEAK-TIME}", peakTime)
+          .replace("{PASSES}", String.valueOf(summary.passes()))
+          .replace("{BLOCKS}", String.valueOf(summary.totalBlocks()))));
+    }
+
+    // Only the checks which have blocked someone in this period.
+    summary.blocks().forEach((check, blocks) -> {
+      if (blocks > 0L) {
+        audience.sendMessage(TextUtils.component(config.timelineCheck()
+            .replace("{CHECK}", check)
+            .replace("{BLOCKS}", String.valueOf(blocks))));
+      }
+    });
+  }
+
+  // Copying and writing a full timeline takes a while, so it is done in the background.
+  // Not on the platform's scheduler, which runs the delayed tasks on the main thread on Paper.
+  private void export(Audience audience, EpicGuard epicGuard, TimelineExporter.Format format) {
+    var config = epicGuard.messages().command();
+    var file = new File(FileUtils.EPICGUARD_DIR, "timeline-" + FILE_FORMAT.format(LocalDateTime.now()) + "." + format.extension());
+
+    audience.sendMessage(TextUtils.component(config.prefix() + config.timelineExport()
+        .replace("{ROWS}", String.valueOf(epicGuard.timeline().size()))));
+
+    CompletableFuture.runAsync(() -> {
+      try {
+        TimelineExporter.export(epicGuard.timeline().snapshot(), file, format);
+        audience.sendMessage(TextUtils.component(config.prefix() + config.timelineExported().replace("{FILE}", file.getPath())));
+      } catch (IOException ex) {
+        LogUtils.catchException("Couldn't export the timeline to " + file.getPath(), ex);
+        audience.sendMessage(TextUtils.component(config.prefix() + config.timelineExportFailed()));
+      }
+    });
+  }
+
+  private static long parseMinutes(String argument) {
+    try {
+      long minutes = Long.parseLong(argument);
+      return minutes <= MAX_MINUTES ? minutes : -1L;
+    } catch (NumberFormatException ex) {
+      return -1L;
+    }
+  }
+
+  @Override
+  public @NotNull Collection<String> suggest(@NotNull String[] args, @NotNull EpicGuard epicGuard) {
+    if (args.length == 3 && args[1].equalsIgnoreCase("export")) {
+      return List.of("csv", "binary");
+    }
+    return List.of("export", "60", "1440");
+  }
+}
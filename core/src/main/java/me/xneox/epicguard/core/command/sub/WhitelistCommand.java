@@ -37,19 +37,21 @@ public class WhitelistCommand implements SubCommand {
       return;
     }
 
-    var meta = epicGuard.storageManager().resolveAddressMeta(args[2]);
-    if (meta == null) {
+    var address = epicGuard.storageManager().resolveAddress(args[2]);
+    if (address == null) {
       audience.sendMessage(TextUtils.component(config.prefix() + config.invalidArgument()));
       return;
     }
 
+    var meta = epicGuard.storageManager().addressMeta(address);
+
     if (args[1].equalsIgnoreCase("add")) {
       if (meta.whitelisted()) {
         audience.sendMessage(TextUtils.component(config.prefix() + config.alreadyWhitelisted().replace("{USER}", args[2])));
         return;
       }
 
-      meta.whitelisted(true);
+      epicGuard.storageManager().update(address, value -> value.withWhitelisted(true));
       audience.sendMessage(TextUtils.component(config.prefix() + config.whitelistAdd().replace("{USER}", args[2])));
     } else if (args[1].equalsIgnoreCase("remove")) {
       if (!meta.whitelisted()) {
@@ -57,7 +59,7 @@ public class WhitelistCommand implements SubCommand {
         return;
       }
 
-      meta.whitelisted(false);
+      epicGuard.storageManager().update(address, value -> value.withWhitelisted(false));
       audience.sendMessage(TextUtils.component(config.prefix() + config.whitelistRemove().replace("{USER}", args[2])));
     }
   }
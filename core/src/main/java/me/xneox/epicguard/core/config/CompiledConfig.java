@@ -0,0 +1,71 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.config;
+
+import java.util.Set;
+import me.xneox.epicguard.core.util.NicknameRules;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * An immutable snapshot of the loaded configuration, together with everything compiled from it.
+ * A new snapshot is built whenever the configuration is (re)loaded, and published as a single reference,
+ * so a connection which is being checked never sees a half-applied reload.
+ *
+ * @param config the plugin configuration
+ * @param messages the messages configuration
+ * @param nicknameRules compiled rules of the nickname check
+ * @param countries configured countries of the geographical check
+ * @param cityBlacklist configured cities of the geographical check
+ * @param deniedAsns sorted, distinct numbers of the denied ASNs
+ */
+public record CompiledConfig(
+    @NotNull PluginConfiguration config,
+    @NotNull MessagesConfiguration messages,
+    @NotNull NicknameRules nicknameRules,
+    @NotNull Set<String> countries,
+    @NotNull Set<String> cityBlacklist,
+    int[] deniedAsns) {
+
+  /**
+   * Compiles a new snapshot of the provided configuration.
+   *
+   * @param config the plugin configuration
+   * @param messages the messages configuration
+   * @param previous the previous snapshot, or null when the configuration is loaded for the first time
+   * @param logger the logger used for the warnings about invalid rules
+   * @return the compiled snapshot
+   */
+  @NotNull
+  public static CompiledConfig compile(@NotNull PluginConfiguration config, @NotNull MessagesConfiguration messages,
+                                       @Nullable CompiledConfig previous, @NotNull Logger logger) {
+    var nickname = config.nicknameCheck();
+    var geographical = config.geographical();
+
+    // Copied into a primitive array, so the lookups don't box anything.
+    var deniedAsns = config.asnCheck().deniedAsns().stream()
+        .mapToInt(Integer::intValue)
+        .sorted()
+        .distinct()
+        .toArray();
+
+    return new CompiledConfig(config, messages,
+        NicknameRules.compile(nickname.rules(), nickname.expression(), previous != null ? previous.nicknameRules() : null, logger),
+        Set.copyOf(geographical.countries()),
+        Set.copyOf(geographical.cityBlacklist()),
+        deniedAsns);
+  }
+}
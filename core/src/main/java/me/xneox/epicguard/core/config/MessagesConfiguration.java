@@ -71,7 +71,15 @@ public class MessagesConfiguration {
     private String notBlacklisted = "&cThe user &6{USER} &cis not in the blacklist!";
     private String reloaded = "&7Succesfully reloaded config and messages!";
     private String toggleStatus = "&7You have toggled your attack status!";
+    private String proxyCacheStatus = "&7Proxy cache: &f{SIZE} &7responses, &f{HIT-RATE}% &7hit rate &8({HITS} hits, {MISSES} misses, {EVICTIONS} evictions)";
+    private String proxyServiceStatus = "&7Proxy service &f{SERVICE}&7: {STATE} &8({FAILURES}/{CALLS} recent requests failed)";
+    private String geoCacheStatus = "&7GeoIP cache &f{DATABASE}&7: &f{SIZE} &7nodes, &f{HIT-RATE}% &7hit rate &8({HITS} hits, {MISSES} misses, {EVICTIONS} evictions)";
+    private String nicknameRuleStatus = "&7Nickname rule &f{RULE}&7: &f{HITS} &7detections";
     private String invalidArgument = "&cCould not resolve address for this nickname, or provided address is invalid.";
+    private String timelineCheck = "  &8▸ &7{CHECK}: &c{BLOCKS} &7blocked";
+    private String timelineExport = "&7Exporting &f{ROWS} &7seconds of the timeline...";
+    private String timelineExported = "&7The timeline has been exported to &f{FILE}&7.";
+    private String timelineExportFailed = "&cCouldn't export the timeline, check the console for details.";
 
     private List<String> mainCommand =
         Arrays.asList(
@@ -89,6 +97,7 @@ public class MessagesConfiguration {
             " &8/&fguard analyze <nick/address> &8- &7Perform detailed analysis on specified user.",
             " &8/&fguard whitelist <add/remove> <nick/address> &8- &7Whitelist/unwhitelist an address or nickname.",
             " &8/&fguard blacklist <add/remove> <nick/address> &8- &7Blacklist/unblacklist an address or nickname.",
+            " &8/&fguard timeline [minutes/export <csv/binary>] &8- &7Summarize or export the per-second timeline.",
             "");
 
     private List<String> analyzeCommand =
@@ -108,6 +117,16 @@ public class MessagesConfiguration {
             "  &8▸ &7Blacklisted: {BLACKLISTED}",
             "");
 
+    private List<String> timelineCommand =
+        Arrays.asList(
+            "",
+            " &6EpicGuard Timeline &8- &7Last &f{MINUTES} &7minutes &8({SECONDS} seconds recorded)",
+            "",
+            " &8▸ &7Under attack: &c{ATTACK-SECONDS}s",
+            " &8▸ &7Connections: &e{CONNECTIONS} &8(peak: &e{PEAK-CPS}/s &8at &7{PEAK-TIME}&8)",
+            " &8▸ &7Passed: &a{PASSES}",
+            " &8▸ &7Blocked: &c{BLOCKS}");
+
     public String prefix() {
       return this.prefix;
     }
@@ -160,10 +179,42 @@ public class MessagesConfiguration {
       return this.toggleStatus;
     }
 
+    public String proxyCacheStatus() {
+      return this.proxyCacheStatus;
+    }
+
+    public String proxyServiceStatus() {
+      return this.proxyServiceStatus;
+    }
+
+    public String geoCacheStatus() {
+      return this.geoCacheStatus;
+    }
+
+    public String nicknameRuleStatus() {
+      return this.nicknameRuleStatus;
+    }
+
     public String invalidArgument() {
       return this.invalidArgument;
     }
 
+    public String timelineCheck() {
+      return this.timelineCheck;
+    }
+
+    public String timelineExport() {
+      return this.timelineExport;
+    }
+
+    public String timelineExported() {
+      return this.timelineExported;
+    }
+
+    public String timelineExportFailed() {
+      return this.timelineExportFailed;
+    }
+
     public List<String> mainCommand() {
       return this.mainCommand;
     }
@@ -171,6 +222,10 @@ public class MessagesConfiguration {
     public List<String> analyzeCommand() {
       return this.analyzeCommand;
     }
+
+    public List<String> timelineCommand() {
+      return this.timelineCommand;
+    }
   }
 
   @ConfigSerializable
@@ -191,6 +246,14 @@ public class MessagesConfiguration {
         "&8» &7You have been kicked by &bAntiBot Protection&7:",
         "&8» &cYou are using VPN or Proxy.");
 
+    private List<String> addressList = Arrays.asList(
+        "&8» &7You have been kicked by &bAntiBot Protection&7:",
+        "&8» &cYour address is listed as a proxy, VPN or Tor exit node.");
+
+    private List<String> asn = Arrays.asList(
+        "&8» &7You have been kicked by &bAntiBot Protection&7:",
+        "&8» &cConnections from your network are not allowed on this server.");
+
     private List<String> reconnect = Arrays.asList(
         "&8» &7You have been kicked by &bAntiBot Protection&7:",
         "&8» &cJoin the server again.");
@@ -231,6 +294,14 @@ public class MessagesConfiguration {
       return this.proxy;
     }
 
+    public List<String> addressList() {
+      return this.addressList;
+    }
+
+    public List<String> asn() {
+      return this.asn;
+    }
+
     public List<String> reconnect() {
       return this.reconnect;
     }
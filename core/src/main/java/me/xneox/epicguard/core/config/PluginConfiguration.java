@@ -15,8 +15,11 @@
 
 package me.xneox.epicguard.core.config;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import me.xneox.epicguard.core.util.ToggleState;
 import me.xneox.epicguard.core.proxy.ProxyService;
@@ -33,6 +36,18 @@ public class PluginConfiguration {
   @Comment("Detect users who are connecting using proxies or VPNs.")
   private ProxyCheck proxyCheck = new ProxyCheck();
 
+  @Comment("Address-list check will block users whose address is on one of the configured\n"
+      + "proxy, VPN or Tor exit lists. The lists are stored locally and refreshed periodically.")
+  private AddressListCheck addressListCheck = new AddressListCheck();
+
+  @Comment("Pre-warming starts the geographical and proxy lookups when an unknown address pings the server,\n"
+      + "so the results are usually cached before the user tries to join.")
+  private Prewarm prewarm = new Prewarm();
+
+  @Comment("ASN-check will block users connecting from the configured networks (ASNs),\n"
+      + "such as hosting providers. It uses a local database, and is much faster than the proxy-check.")
+  private AsnCheck asnCheck = new AsnCheck();
+
   @Comment("This check will limit how many accounts can be registered from single IP address")
   private AccountLimitCheck accountLimitCheck = new AccountLimitCheck();
 
@@ -59,6 +74,12 @@ public class PluginConfiguration {
       + "He will be added to the whitelist, and be exempt from every future detections")
   private AutoWhitelist autoWhitelist = new AutoWhitelist();
 
+  @Comment("""
+      Scoring mode combines the results of the checks, instead of blocking the user on the first detection.
+      Every detection adds the check's weight to the user's score, and the user is blocked when
+      the score reaches the threshold. The remaining checks are skipped as soon as the outcome is known.""")
+  private Scoring scoring = new Scoring();
+
   private ConsoleFilter consoleFilter = new ConsoleFilter();
   private Misc misc = new Misc();
   private Storage storage = new Storage();
@@ -73,7 +94,6 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 7;
 
@@ -89,6 +109,18 @@ public class PluginConfiguration {
     @Comment("If a player tries to connect from city listed here, he will be blocked.")
     private List<String> cityBlacklist = Arrays.asList("ExampleCity", "AnotherCity");
 
+    @Comment("""
+        Should the country rules be compiled into a lookup table whenever the configuration is loaded?
+        This makes the check much faster during attacks, but uses a few megabytes of memory.
+        City rules are not affected by this option.""")
+    private boolean compileCountryTable = true;
+
+    @Comment("""
+        How many decoded database records should be cached in memory (per database)?
+        Higher values speed up lookups during big attacks, but use more memory.
+        (!) Requires a restart.""")
+    private long databaseCacheSize = 4096L;
+
     public ToggleState checkMode() {
       return this.checkMode;
     }
@@ -108,6 +140,14 @@ public class PluginConfiguration {
     public List<String> cityBlacklist() {
       return this.cityBlacklist;
     }
+
+    public boolean compileCountryTable() {
+      return this.compileCountryTable;
+    }
+
+    public long databaseCacheSize() {
+      return this.databaseCacheSize;
+    }
   }
 
   @ConfigSerializable
@@ -120,23 +160,110 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 1;
 
     @Comment("""
             You can set as many proxy checking services as you want here.
             If you're not familiar with regex, see https://regexr.com/ or https://regex101.com/
-            For example, (yes|VPN) will check if the response contains either 'yes' or 'VPN'""")
+            For example, (yes|VPN) will check if the response contains either 'yes' or 'VPN'
+            Optionally, you can add a 'field' to match only a single field of a JSON response,
+            for example field="{IP}.proxy" with matcher="yes" for the proxycheck.io service.
+            Services checking many addresses in a single request can also have a 'batch-url',
+            where {IPS} is replaced with the comma-separated addresses, and an optional 'batch-body'
+            sent as a POST form. The 'field' must contain the {IP} key then, for example:
+            batch-url="https://proxycheck.io/v2/?key=PROXYCHECK_KEY&risk=1&vpn=1", batch-body="ips={IPS}\"""")
     private List<ProxyService> registeredServices = Arrays.asList(
         new ProxyService("https://proxycheck.io/v2/{IP}?key=PROXYCHECK_KEY&risk=1&vpn=1", Pattern.compile("(yes|VPN)")));
 
     @Comment("""
             How long in SECONDS responses from proxy check should be cached?
             Higher value increases performance, but keep in mind that if user
-            disables their VPN but the cache hasn't expired yet, he will still be detected.""")
+            disables their VPN but the cache hasn't expired yet, he will still be detected.
+            Lookups without any successful response are not cached at all.""")
     private int cacheDuration = 300;
 
+    @Comment("""
+            How long in SECONDS positive responses (proxy detected) should be cached?
+            Set to 0 to use the 'cache-duration' above. Proxies rarely stop being proxies,
+            so this can be much longer than the duration of the negative responses, for example 3600.""")
+    private int positiveCacheDuration = 0;
+
+    @Comment("""
+            How long in SECONDS negative responses (no proxy detected) should be cached?
+            Set to 0 to use the 'cache-duration' above.""")
+    private int negativeCacheDuration = 0;
+
+    @Comment("""
+            Maximum amount of cached responses kept in memory.
+            When the limit is reached, the least recently used responses are removed first.""")
+    private long maxCacheSize = 100000L;
+
+    @Comment("""
+            If an address is detected as a proxy, the whole network (with this prefix length)
+            will be detected too, until the response expires. For example, 24 means 1.2.3.0 - 1.2.3.255
+            Set to 0 to disable, the detection will apply to the exact address only.""")
+    private int sharedPrefixIPv4 = 0;
+
+    @Comment("The same as above, but for the IPv6 addresses. The recommended value is 64.")
+    private int sharedPrefixIPv6 = 0;
+
+    @Comment("""
+            Should the cached responses be saved in the database, so they survive restarts?
+            This avoids sending a lot of requests to the services after every restart.""")
+    private boolean persistentCache = true;
+
+    @Comment("""
+            How many requests can be sent to a single service at the same time?
+            Further requests will wait until one of the previous requests is completed.""")
+    private int maxConcurrentRequests = 8;
+
+    @Comment("""
+            Maximum size of the response (in bytes) that will be read from the service.
+            Responses are matched while they are received, and reading stops at the first match.
+            Anything after this limit is not downloaded and will not be matched.
+            The 'matcher' of a service without a 'field' is matched against the whole response,
+            so anchors like ^ and $ refer to the start and end of the response (or of the part read until this limit).""")
+    private int maxResponseSize = 16384;
+
+    @Comment("""
+            How long in MILLISECONDS a single lookup can take?
+            If no service has detected a proxy until then, the remaining requests are cancelled.
+            Successful responses slower than this are also counted as failures by the circuit breaker.""")
+    private int lookupTimeout = 3000;
+
+    @Comment("""
+            For how long in MILLISECONDS the lookups should be collected before sending a batch request?
+            Applies only to the services with a 'batch-url'. Keep it much lower than the lookup timeout.""")
+    private int batchWindow = 10;
+
+    @Comment("""
+            Maximum amount of addresses in a single batch request.
+            A full batch is sent immediately, without waiting for the window to pass.""")
+    private int batchSize = 100;
+
+    @Comment("""
+            How many requests per second can be sent to a single service?
+            Services over this budget are skipped until it is refilled.""")
+    private int rateLimit = 10;
+
+    @Comment("""
+            If this percentage of the recent requests to a service has failed (or was too slow),
+            the service will be skipped for 'breaker-open-duration' seconds.
+            You can see the current state of the services in /guard status.""")
+    private int breakerThreshold = 50;
+
+    @Comment("""
+            For how long in SECONDS a failing service should be skipped?
+            After that, a single request will decide if the service is working again.""")
+    private int breakerOpenDuration = 30;
+
+    @Comment("""
+            What should happen if no service could be queried (all of them failed, or were skipped)?
+            false - the user is allowed to join (fail-open)
+            true - the user is detected as a proxy (fail-closed)""")
+    private boolean failClosed = false;
+
     public ToggleState checkMode() {
       return this.checkMode;
     }
@@ -152,6 +279,191 @@ public class PluginConfiguration {
     public int cacheDuration() {
       return this.cacheDuration;
     }
+
+    /**
+     * @return the cache duration of the positive responses, or the general cache duration if not set.
+     */
+    public int positiveCacheDuration() {
+      return this.positiveCacheDuration > 0 ? this.positiveCacheDuration : this.cacheDuration;
+    }
+
+    /**
+     * @return the cache duration of the negative responses, or the general cache duration if not set.
+     */
+    public int negativeCacheDuration() {
+      return this.negativeCacheDuration > 0 ? this.negativeCacheDuration : this.cacheDuration;
+    }
+
+    public long maxCacheSize() {
+      return this.maxCacheSize;
+    }
+
+    public int sharedPrefixIPv4() {
+      return this.sharedPrefixIPv4;
+    }
+
+    public int sharedPrefixIPv6() {
+      return this.sharedPrefixIPv6;
+    }
+
+    public boolean persistentCache() {
+      return this.persistentCache;
+    }
+
+    public int maxConcurrentRequests() {
+      return this.maxConcurrentRequests;
+    }
+
+    public int maxResponseSize() {
+      return this.maxResponseSize;
+    }
+
+    public int lookupTimeout() {
+      return this.lookupTimeout;
+    }
+
+    public int batchWindow() {
+      return this.batchWindow;
+    }
+
+    public int batchSize() {
+      return this.batchSize;
+    }
+
+    public int rateLimit() {
+      return this.rateLimit;
+    }
+
+    public int breakerThreshold() {
+      return this.breakerThreshold;
+    }
+
+    public int breakerOpenDuration() {
+      return this.breakerOpenDuration;
+    }
+
+    public boolean failClosed() {
+      return this.failClosed;
+    }
+  }
+
+  @ConfigSerializable
+  public static class Prewarm {
+    @Comment("""
+            Should the lookups be started on server list ping (and on handshake, on Velocity and Waterfall)?
+            Pre-warming is paused during bot-attacks. Keep in mind that pre-warmed lookups
+            use the request budget of your proxy services, even if the user never joins.""")
+    private boolean enabled = false;
+
+    @Comment("""
+            Maximum amount of pre-warmed lookups in progress at the same time.
+            Pings above this limit are ignored.
+            (!) Requires a restart.""")
+    private int maxConcurrentLookups = 8;
+
+    @Comment("""
+            How many addresses per second can be pre-warmed?
+            This should be lower than the 'rate-limit' of the proxy check.
+            (!) Requires a restart.""")
+    private int maxLookupsPerSecond = 5;
+
+    @Comment("""
+            For how long in SECONDS the same address can't be pre-warmed again?
+            (!) Requires a restart.""")
+    private int cooldown = 300;
+
+    public boolean enabled() {
+      return this.enabled;
+    }
+
+    public int maxConcurrentLookups() {
+      return this.maxConcurrentLookups;
+    }
+
+    public int maxLookupsPerSecond() {
+      return this.maxLookupsPerSecond;
+    }
+
+    public int cooldown() {
+      return this.cooldown;
+    }
+  }
+
+  @ConfigSerializable
+  public static class AddressListCheck {
+    @Comment("""
+            NEVER - check is disabled.
+            ATTACK - check will be performed only during bot-attack.
+            ALWAYS - check will be always performed.
+            The lists are downloaded only if the check is enabled.""")
+    private ToggleState checkMode = ToggleState.NEVER;
+
+    @Comment("""
+        Checks with bigger priority will be executed before the checks with lower priority.
+        """)
+    private int priority = 9;
+
+    @Comment("""
+            List of the address lists, either URLs or paths to local files (relative to the plugin's directory).
+            Every line should contain a single address, a network (1.2.3.0/24) or an address with a port (1.2.3.4:8080).
+            Empty lines and lines starting with # or ; are ignored.
+            The default value is an example, the list of Tor exit nodes.""")
+    private List<String> sources = Arrays.asList("https://check.torproject.org/torbulkexitlist");
+
+    @Comment("""
+            How often in MINUTES the lists should be refreshed?
+            The last downloaded copy of every list is saved, and used when the list is unavailable.""")
+    private long refreshInterval = 60L;
+
+    public ToggleState checkMode() {
+      return this.checkMode;
+    }
+
+    public int priority() {
+      return this.priority;
+    }
+
+    public List<String> sources() {
+      return this.sources;
+    }
+
+    public long refreshInterval() {
+      return this.refreshInterval;
+    }
+  }
+
+  @ConfigSerializable
+  public static class AsnCheck {
+    @Comment("""
+            NEVER - check is disabled.
+            ATTACK - check will be performed only during bot-attack.
+            ALWAYS - check will be always performed.
+            The GeoLite2-ASN database is downloaded only if the check is enabled.""")
+    private ToggleState checkMode = ToggleState.NEVER;
+
+    @Comment("""
+        Checks with bigger priority will be executed before the checks with lower priority.
+        """)
+    private int priority = 6;
+
+    @Comment("""
+            List of blocked autonomous system numbers (without the 'AS' prefix).
+            You can look up the ASN of an address at https://bgp.he.net/
+            Default values are an example of common hosting providers (OVH, Hetzner, DigitalOcean, Vultr, Linode, Contabo),
+            review them before enabling the check, some players may connect through these networks.""")
+    private List<Integer> deniedAsns = Arrays.asList(16276, 24940, 14061, 20473, 63949, 51167);
+
+    public ToggleState checkMode() {
+      return this.checkMode;
+    }
+
+    public int priority() {
+      return this.priority;
+    }
+
+    public List<Integer> deniedAsns() {
+      return this.deniedAsns;
+    }
   }
 
   @ConfigSerializable
@@ -164,7 +476,6 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 3;
 
@@ -213,13 +524,26 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 8;
 
-    @Comment(
-        "Default value will check if the nickname contains 'bot' or 'mcdown'.\n"
-            + "You can use https://regex101.com/ for making and testing your own expression.")
+    @Comment("""
+            List of the rules, the nickname is detected if any of them matches:
+            vanilla - the nickname is not a valid vanilla nickname (3-16 characters, only a-z, A-Z, 0-9 and _)
+            contains:text - the nickname contains the text (case-insensitive)
+            prefix:text - the nickname starts with the text (case-insensitive)
+            regex:expression - the expression is found in the nickname, see https://regex101.com/
+            Example: ["vanilla", "contains:bot", "prefix:mcdown"]
+            The rules are checked together with the 'expression' below. The literal rules are much faster
+            than a regex, so you can move the expression to the rules and leave the expression empty.
+            You can see how many users every rule has detected in /guard status.
+            (!) Changes are applied after /guard reload.""")
+    private List<String> rules = new ArrayList<>();
+
+    @Comment("""
+            Single expression, matched against the whole nickname. Leave empty to use only the rules above.
+            Default value will check if the nickname contains 'bot' or 'mcdown'.
+            You can use https://regex101.com/ for making and testing your own expression.""")
     private String expression = "(?i).*(bot|mcdown).*";
 
     public ToggleState checkMode() {
@@ -230,6 +554,10 @@ public class PluginConfiguration {
       return this.priority;
     }
 
+    public List<String> rules() {
+      return this.rules;
+    }
+
     public String expression() {
       return this.expression;
     }
@@ -245,7 +573,6 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 2;
 
@@ -253,9 +580,17 @@ public class PluginConfiguration {
             How many nicknames should be keep in the history?
             When an user is connecting to the server, his nickname will be added to the history.
             Then the nickname will be compared with other nicknames stored in the history.
-            (!) Requires restart to apply.""")
+            The history is indexed, so it can be increased (even to thousands of nicknames) without slowing down the logins,
+            but a bigger history also makes the check detect more users with similar, but unrelated nicknames.
+            Changing this on reload clears the history.""")
     private int historySize = 5;
 
+    @Comment("""
+            For how long in SECONDS the nicknames should be kept in the history?
+            Older nicknames are removed even if the history is not full.
+            Changing this on reload clears the history.""")
+    private int historyDuration = 300;
+
     @Comment("""
             The lower the distance, the similar the names.
             If the distance detected is lower or same as configured here,
@@ -275,6 +610,10 @@ public class PluginConfiguration {
       return this.historySize;
     }
 
+    public int historyDuration() {
+      return this.historyDuration;
+    }
+
     public int distance() {
       return this.distance;
     }
@@ -290,10 +629,20 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 4;
 
+    @Comment("""
+            How long in SECONDS the user has to reconnect?
+            If the user doesn't reconnect in time, he will have to reconnect again.""")
+    private int reconnectWindow = 120;
+
+    @Comment("""
+            Maximum amount of the remembered connections. When the limit is reached,
+            the connections which expire first are forgotten. Every connection uses 8 bytes of memory.
+            Changing this on reload clears the remembered connections.""")
+    private int maxEntries = 65536;
+
     public ToggleState checkMode() {
       return this.checkMode;
     }
@@ -301,6 +650,14 @@ public class PluginConfiguration {
     public int priority() {
       return this.priority;
     }
+
+    public int reconnectWindow() {
+      return this.reconnectWindow;
+    }
+
+    public int maxEntries() {
+      return this.maxEntries;
+    }
   }
 
   @ConfigSerializable
@@ -313,10 +670,28 @@ public class PluginConfiguration {
 
     @Comment("""
         Checks with bigger priority will be executed before the checks with lower priority.
-        (!) Requires a restart.
         """)
     private int priority = 5;
 
+    @Comment("""
+            For how long in SECONDS a ping should be remembered?
+            Pings are remembered for at least this time, and at most for twice this time.
+            (!) Requires a restart.""")
+    private int pingWindow = 600;
+
+    @Comment("""
+            How many different addresses are expected to ping the server during the window?
+            The pings are remembered in constant memory (about 1.2 MB for 1 million addresses at 1%).
+            If more addresses ping the server, the oldest pings are forgotten sooner.
+            (!) Requires a restart.""")
+    private long expectedPings = 100000L;
+
+    @Comment("""
+            Probability that an address which hasn't pinged the server is considered as pinged.
+            Lower values use more memory, for example 0.01 means 1%.
+            (!) Requires a restart.""")
+    private double falsePositiveRate = 0.01D;
+
     public ToggleState checkMode() {
       return this.checkMode;
     }
@@ -324,6 +699,18 @@ public class PluginConfiguration {
     public int priority() {
       return this.priority;
     }
+
+    public int pingWindow() {
+      return this.pingWindow;
+    }
+
+    public long expectedPings() {
+      return this.expectedPings;
+    }
+
+    public double falsePositiveRate() {
+      return this.falsePositiveRate;
+    }
   }
 
   @ConfigSerializable
@@ -373,6 +760,49 @@ public class PluginConfiguration {
     }
   }
 
+  @ConfigSerializable
+  public static class Scoring {
+    @Comment("Should the scoring mode be used instead of blocking the user on the first detection?")
+    private boolean enabled = false;
+
+    @Comment("The user is blocked when the total weight of the detections reaches this value.")
+    private double threshold = 1.0D;
+
+    @Comment("""
+        Weights of the checks. Checks not listed here (such as LockdownCheck and BlacklistCheck)
+        block the user immediately, like in the normal mode. A weight of 0 disables the check in this mode.
+        The checks still have to be enabled in their own sections (check-mode).
+        Cheap checks are performed first, the geographical, ASN and proxy checks are performed last,
+        so they are usually skipped if the outcome is already known.""")
+    private Map<String, Double> weights = defaultWeights();
+
+    public boolean enabled() {
+      return this.enabled;
+    }
+
+    public double threshold() {
+      return this.threshold;
+    }
+
+    public Map<String, Double> weights() {
+      return this.weights;
+    }
+
+    private static Map<String, Double> defaultWeights() {
+      var weights = new LinkedHashMap<String, Double>();
+      weights.put("AddressListCheck", 1.0D);
+      weights.put("NicknameCheck", 0.6D);
+      weights.put("AccountLimitCheck", 0.5D);
+      weights.put("ServerListCheck", 0.4D);
+      weights.put("ReconnectCheck", 0.4D);
+      weights.put("NameSimilarityCheck", 0.4D);
+      weights.put("GeographicalCheck", 0.5D);
+      weights.put("AsnCheck", 0.5D);
+      weights.put("ProxyCheck", 1.0D);
+      return weights;
+    }
+  }
+
   @ConfigSerializable
   public static class Misc {
     @Comment("""
@@ -479,6 +909,18 @@ public class PluginConfiguration {
     return this.proxyCheck;
   }
 
+  public Prewarm prewarm() {
+    return this.prewarm;
+  }
+
+  public AddressListCheck addressListCheck() {
+    return this.addressListCheck;
+  }
+
+  public AsnCheck asnCheck() {
+    return this.asnCheck;
+  }
+
   public AccountLimitCheck accountLimitCheck() {
     return this.accountLimitCheck;
   }
@@ -511,6 +953,10 @@ public class PluginConfiguration {
     return this.autoWhitelist;
   }
 
+  public Scoring scoring() {
+    return this.scoring;
+  }
+
   public Misc misc() {
     return this.misc;
   }
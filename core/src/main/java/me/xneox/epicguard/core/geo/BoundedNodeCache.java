@@ -0,0 +1,63 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.geo;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.maxmind.db.CacheKey;
+import com.maxmind.db.DecodedValue;
+import com.maxmind.db.NodeCache;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A size-bounded replacement for the {@link com.maxmind.db.CHMCache}, which records
+ * hit, miss and eviction statistics of the decoded MMDB nodes.
+ */
+@SuppressWarnings("rawtypes") // CacheKey is generic, but the NodeCache interface uses a raw type.
+public class BoundedNodeCache implements NodeCache {
+  private final Cache<CacheKey, DecodedValue> cache;
+
+  public BoundedNodeCache(long maximumSize) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public DecodedValue get(CacheKey key, Loader loader) throws IOException {
+    var value = this.cache.getIfPresent(key);
+    if (value == null) {
+      value = loader.load(key);
+      this.cache.put(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * @return a snapshot of this cache's statistics.
+   */
+  @NotNull
+  public CacheStats stats() {
+    return this.cache.stats();
+  }
+
+  public long size() {
+    return this.cache.size();
+  }
+}
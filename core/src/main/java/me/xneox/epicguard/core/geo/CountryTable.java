@@ -0,0 +1,253 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.geo;
+
+import com.maxmind.db.CHMCache;
+import com.maxmind.db.MaxMindDbConstructor;
+import com.maxmind.db.MaxMindDbParameter;
+import com.maxmind.db.Reader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import me.xneox.epicguard.core.util.AddressKey;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A precompiled decision table of the geographical check. The Country database is walked
+ * once, and every network is reduced to a single "restricted" bit for the configured countries.
+ * Neighbouring networks with the same decision are merged into a single range.
+ *
+ * Looking up an IPv4 address is a single binary search over a primitive array, without any allocations.
+ */
+public final class CountryTable {
+  public static final int ALLOWED = 0;
+  public static final int RESTRICTED = 1;
+  public static final int UNKNOWN = -1;
+
+  // Sorted unsigned start addresses of the IPv4 ranges, and their decisions.
+  private final int[] ipv4Starts;
+  private final BitSet ipv4Restricted;
+
+  // Sorted start addresses of the IPv6 ranges, split into the upper and lower 64 bits.
+  private final long[] ipv6High;
+  private final long[] ipv6Low;
+  private final BitSet ipv6Restricted;
+
+  private CountryTable(int[] ipv4Starts, BitSet ipv4Restricted, long[] ipv6High, long[] ipv6Low, BitSet ipv6Restricted) {
+    this.ipv4Starts = ipv4Starts;
+    this.ipv4Restricted = ipv4Restricted;
+    this.ipv6High = ipv6High;
+    this.ipv6Low = ipv6Low;
+    this.ipv6Restricted = ipv6Restricted;
+  }
+
+  /**
+   * Checks the decision for the provided address.
+   *
+   * @param address the textual IP address
+   * @return {@link #RESTRICTED}, {@link #ALLOWED}, or {@link #UNKNOWN} if the table
+   *     can't decide and a regular lookup should be performed.
+   */
+  public int decision(@NotNull String address) {
+    long ipv4 = AddressKey.parseIPv4(address);
+    if (ipv4 != -1L) {
+      return this.ipv4Restricted.get(searchIPv4((int) ipv4)) ? RESTRICTED : ALLOWED;
+    }
+
+    var key = AddressKey.parse(address);
+    if (key == null) {
+      return UNKNOWN;
+    }
+
+    // IPv4-mapped addresses are parsed as IPv4 keys, but are checked before the aliases in case they are not.
+    if (!key.ipv6() || key.high() == 0L && key.low() >>> 32 == 0xFFFFL) {
+      return this.ipv4Restricted.get(searchIPv4((int) key.low())) ? RESTRICTED : ALLOWED;
+    }
+
+    if (isAliased(key.high(), key.low())) {
+      return UNKNOWN;
+    }
+
+    if (this.ipv6High.length == 0) {
+      return UNKNOWN; // IPv4-only database.
+    }
+    return this.ipv6Restricted.get(searchIPv6(key.high(), key.low())) ? RESTRICTED : ALLOWED;
+  }
+
+  /**
+   * @return total amount of ranges in this table.
+   */
+  public int size() {
+    return this.ipv4Starts.length + this.ipv6High.length;
+  }
+
+  private int searchIPv4(int address) {
+    int low = 0;
+    int high = this.ipv4Starts.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (Integer.compareUnsigned(this.ipv4Starts[mid], address) <= 0) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private int searchIPv6(long addressHigh, long addressLow) {
+    int low = 0;
+    int high = this.ipv6High.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      int compare = Long.compareUnsigned(this.ipv6High[mid], addressHigh);
+      if (compare < 0 || compare == 0 && Long.compareUnsigned(this.ipv6Low[mid], addressLow) <= 0) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Walks the whole Country database and compiles the decision table.
+   * This may take a while, and should never be called on the main thread.
+   *
+   * @param database the Country database file
+   * @param countries the configured country codes
+   * @param blacklist whenever the configured countries are blocked (true) or allowed (false)
+   * @return the compiled table
+   */
+  @NotNull
+  public static CountryTable compile(@NotNull File database, @NotNull Set<String> countries, boolean blacklist) throws IOException {
+    try (var reader = new Reader(database, Reader.FileMode.MEMORY_MAPPED, new CHMCache())) {
+      var ipv4 = new RangeBuilder();
+      long address = 0L;
+      while (address <= 0xFFFFFFFFL) {
+        var key = new AddressKey(0L, address, 32, false);
+        var record = reader.getRecord(key.toInetAddress(), CountryRecord.class);
+
+        ipv4.add(0L, address, isRestricted(record.getData(), countries, blacklist));
+        address += 1L << (32 - record.getNetwork().getPrefixLength());
+      }
+
+      var ipv6 = new RangeBuilder();
+      if (reader.getMetadata().getIpVersion() == 6) {
+        long high = 0L;
+        long low = 0L;
+        do {
+          int prefix;
+          if (isAliased(high, low)) {
+            // IPv4 is aliased in these networks, skip them. These addresses will be checked normally.
+            prefix = high >>> 48 == 0x2002L ? 16 : 96;
+            ipv6.add(high, low, false);
+          } else {
+            var key = new AddressKey(high, low, 128, true);
+            var record = reader.getRecord(key.toInetAddress(), CountryRecord.class);
+
+            prefix = record.getNetwork().getPrefixLength();
+            ipv6.add(high, low, isRestricted(record.getData(), countries, blacklist));
+          }
+
+          // Advance to the next network, (high, low) is a 128-bit unsigned number.
+          if (prefix <= 64) {
+            low = 0L;
+            high = prefix == 0 ? 0L : high + (1L << (64 - prefix));
+            if (high == 0L) {
+              break; // overflow, the whole address space has been walked.
+            }
+          } else {
+            long next = low + (1L << (128 - prefix));
+            if (Long.compareUnsigned(next, low) < 0) {
+              high++;
+              if (high == 0L) {
+                break;
+              }
+            }
+            low = next;
+          }
+        } while (true);
+      }
+
+      var ipv4Starts = new int[ipv4.size];
+      for (int i = 0; i < ipv4.size; i++) {
+        ipv4Starts[i] = (int) ipv4.low[i];
+      }
+      return new CountryTable(ipv4Starts, ipv4.restricted,
+          Arrays.copyOf(ipv6.high, ipv6.size), Arrays.copyOf(ipv6.low, ipv6.size), ipv6.restricted);
+    }
+  }
+
+  private static boolean isRestricted(CountryRecord record, Set<String> countries, boolean blacklist) {
+    var code = record != null && record.country != null && record.country.isoCode != null ? record.country.isoCode : GeoResult.UNKNOWN;
+    return blacklist == countries.contains(code);
+  }
+
+  // ::/96 (IPv4-compatible), ::ffff:0:0/96 (IPv4-mapped) and 2002::/16 (6to4) point to the IPv4 subtree.
+  private static boolean isAliased(long high, long low) {
+    return high == 0L && (low >>> 32 == 0L || low >>> 32 == 0xFFFFL) || high >>> 48 == 0x2002L;
+  }
+
+  /**
+   * Collects ranges, merging neighbouring ranges with the same decision.
+   */
+  private static final class RangeBuilder {
+    private long[] high = new long[1024];
+    private long[] low = new long[1024];
+    private final BitSet restricted = new BitSet();
+    private int size;
+
+    private void add(long startHigh, long startLow, boolean isRestricted) {
+      if (this.size > 0 && this.restricted.get(this.size - 1) == isRestricted) {
+        return;
+      }
+
+      if (this.size == this.high.length) {
+        this.high = Arrays.copyOf(this.high, this.size * 2);
+        this.low = Arrays.copyOf(this.low, this.size * 2);
+      }
+
+      this.high[this.size] = startHigh;
+      this.low[this.size] = startLow;
+      this.restricted.set(this.size, isRestricted);
+      this.size++;
+    }
+  }
+
+  /**
+   * Minimal model of the database record, only the country's ISO code is deserialized.
+   */
+  public static final class CountryRecord {
+    private final IsoCode country;
+
+    @MaxMindDbConstructor
+    public CountryRecord(@MaxMindDbParameter(name = "country") IsoCode country) {
+      this.country = country;
+    }
+  }
+
+  public static final class IsoCode {
+    private final String isoCode;
+
+    @MaxMindDbConstructor
+    public IsoCode(@MaxMindDbParameter(name = "iso_code") String isoCode) {
+      this.isoCode = isoCode;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.geo;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import me.xneox.epicguard.core.util.AddressKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A size-bounded cache of {@link GeoResult}s, keyed by the network prefix of the MMDB record
+ * the result was read from. Thanks to this, neighbouring addresses from the same network
+ * share a single cache entry.
+ */
+public class GeoCache {
+  private final Cache<AddressKey, GeoResult> cache;
+
+  // Prefix lengths that are currently present in the cache, sorted from the most specific.
+  private volatile int[] ipv4Prefixes = new int[0];
+  private volatile int[] ipv6Prefixes = new int[0];
+
+  public GeoCache(long maximumSize) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  /**
+   * Searches for a cached result of any network containing the provided address.
+   *
+   * @param address the full-length address key
+   * @return the cached result, or null if absent
+   */
+  @Nullable
+  public GeoResult get(@NotNull AddressKey address) {
+    for (int prefix : address.ipv6() ? this.ipv6Prefixes : this.ipv4Prefixes) {
+      var result = this.cache.getIfPresent(address.mask(prefix));
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Caches the result for the whole network containing the address.
+   *
+   * @param address the full-length address key
+   * @param prefix the network prefix length reported by the database
+   * @param result the lookup result
+   */
+  public void put(@NotNull AddressKey address, int prefix, @NotNull GeoResult result) {
+    int length = Math.max(0, Math.min(prefix, address.bits()));
+    this.registerPrefix(length, address.ipv6());
+    this.cache.put(address.mask(length), result);
+  }
+
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  private void registerPrefix(int prefix, boolean ipv6) {
+    int[] current = ipv6 ? this.ipv6Prefixes : this.ipv4Prefixes;
+    for (int known : current) {
+      if (known == prefix) {
+        return;
+      }
+    }
+
+    synchronized (this) {
+      current = ipv6 ? this.ipv6Prefixes : this.ipv4Prefixes;
+      if (Arrays.stream(current).anyMatch(known -> known == prefix)) {
+        return;
+      }
+
+      // Copy-on-write, the array is sorted descending so the most specific network is matched first.
+      int[] updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = prefix;
+      updated = Arrays.stream(updated).boxed().sorted((a, b) -> Integer.compare(b, a)).mapToInt(Integer::intValue).toArray();
+
+      if (ipv6) {
+        this.ipv6Prefixes = updated;
+      } else {
+        this.ipv4Prefixes = updated;
+      }
+    }
+  }
+}
@@ -0,0 +1,359 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.geo;
+
+import com.maxmind.db.Reader;
+import com.maxmind.geoip2.DatabaseReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.URLUtils;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single GeoLite2 database file. Opens the memory-mapped {@link DatabaseReader} only when
+ * it is accessed for the first time. Missing and outdated databases are downloaded in the background,
+ * and the new reader is swapped atomically while the lookups continue on the old one (or without it).
+ *
+ * <p>A mapped file can't be replaced on every system (Windows), so every download is saved
+ * as a new version of the file (for example GeoLite2-Country-1639000000000.mmdb).
+ * The previous versions are deleted once their readers are closed.</p>
+ */
+public class GeoDatabase {
+  private static final String DOWNLOAD_URL = "https://download.maxmind.com/app/geoip_download?edition_id={EDITION}&license_key=LARAgQo3Fw7W9ZMS&suffix=tar.gz";
+  private static final long MAX_AGE = TimeUnit.DAYS.toMillis(7L);
+  private static final long CLOSE_DELAY = 30L; // seconds
+
+  private final EpicGuard epicGuard;
+  private final File parent;
+  private final String edition;
+  private final Pattern fileName;
+  private final File temporary;
+  private final String url;
+  private final long cacheSize;
+  private final Runnable replaceListener;
+  private final AtomicBoolean downloading = new AtomicBoolean();
+
+  // The newest version of the file, it doesn't exist if the database hasn't been downloaded yet.
+  private volatile File database;
+  private volatile Handle handle;
+  private volatile boolean failed;
+  private volatile boolean requested;
+
+  /**
+   * @param replaceListener called after a new version of the database has been opened,
+   *     everything derived from the previous version should be cleared there
+   */
+  public GeoDatabase(@NotNull EpicGuard epicGuard, @NotNull File parent, @NotNull String edition, long cacheSize,
+                     @NotNull Runnable replaceListener) {
+    this.epicGuard = epicGuard;
+    this.parent = parent;
+    this.edition = edition;
+    this.fileName = Pattern.compile(Pattern.quote(edition) + "(?:-(\\d+))?\\.mmdb");
+    this.temporary = new File(parent, edition + ".mmdb.tmp");
+    this.url = DOWNLOAD_URL.replace("{EDITION}", edition);
+    this.cacheSize = cacheSize;
+    this.replaceListener = replaceListener;
+
+    this.database = this.latest();
+    this.deleteOutdated(); // nothing is mapped yet, the versions that couldn't be deleted before are removed now.
+  }
+
+  /**
+   * Returns the reader of this database, opening it if necessary. This never downloads the database
+   * on the calling thread, a missing database is downloaded in the background and null is returned
+   * until it is available. An outdated file is used until {@link #refresh()} replaces it.
+   *
+   * @return the reader, or null if the database isn't available (yet)
+   */
+  @Nullable
+  public DatabaseReader reader() {
+    this.requested = true;
+    var current = this.handle;
+    if (current != null || this.failed) {
+      return current != null ? current.reader() : null;
+    }
+
+    synchronized (this) {
+      if (this.handle == null && !this.failed) {
+        if (!this.database.exists()) {
+          this.downloadAsync();
+          return null;
+        }
+
+        try {
+          this.handle = this.open(this.database);
+        } catch (IOException ex) {
+          this.failed = true; // don't retry on every lookup, the refresh task will download it again (see #refresh()).
+          LogUtils.catchException("Couldn't open the GeoIP database " + this.database.getName() + ", it will be downloaded again.", ex);
+        }
+      }
+      return this.handle != null ? this.handle.reader() : null;
+    }
+  }
+
+  /**
+   * Downloads a new version of this database if the current one is outdated, or it couldn't be
+   * downloaded or opened before, and swaps the reader. This is blocking, and should never be called
+   * on the main thread.
+   *
+   * @return true if the database has been replaced
+   */
+  public boolean refresh() {
+    if (!this.failed && !this.isOutdated()) {
+      return false;
+    }
+
+    if (!this.downloading.compareAndSet(false, true)) {
+      return false; // already being downloaded.
+    }
+
+    try {
+      var file = this.download();
+
+      Handle previous;
+      synchronized (this) {
+        previous = this.handle;
+        this.handle = this.open(file);
+        this.database = file;
+        this.failed = false;
+      }
+
+      // Lookups in progress may still use the previous reader, so it is closed a bit later (off the main thread).
+      CompletableFuture.delayedExecutor(CLOSE_DELAY, TimeUnit.SECONDS).execute(() -> {
+        if (previous != null) {
+          previous.close();
+        }
+        this.deleteOutdated();
+      });
+
+      this.replaceListener.run();
+      return true;
+    } catch (IOException ex) {
+      if (this.handle != null) {
+        LogUtils.catchException("Couldn't refresh the GeoIP database " + this.edition + ", the current one will be used.", ex);
+      } else {
+        this.failed = true; // don't retry on every lookup, the refresh task will try again.
+        LogUtils.catchException("Couldn't download the GeoIP database " + this.edition + ", please check your internet connection.", ex);
+      }
+      return false;
+    } finally {
+      this.downloading.set(false);
+    }
+  }
+
+  // Downloads the missing database without blocking the lookup which has requested it.
+  private void downloadAsync() {
+    if (!this.downloading.get()) {
+      CompletableFuture.runAsync(this::refresh);
+    }
+  }
+
+  /**
+   * @return whenever the database doesn't exist or is older than 7 days.
+   */
+  public boolean isOutdated() {
+    return !this.database.exists() || System.currentTimeMillis() - this.database.lastModified() > MAX_AGE;
+  }
+
+  /**
+   * @return whenever the reader has been requested already, even if it couldn't be opened.
+   */
+  public boolean isRequested() {
+    return this.requested;
+  }
+
+  public void close() {
+    synchronized (this) {
+      if (this.handle != null) {
+        this.handle.close();
+        this.handle = null;
+      }
+    }
+  }
+
+  /**
+   * @return the node cache of the current reader, or null if it isn't open.
+   */
+  @Nullable
+  public BoundedNodeCache cache() {
+    var current = this.handle;
+    return current != null ? current.cache() : null;
+  }
+
+  /**
+   * @return the current version of the database file.
+   */
+  @NotNull
+  public File file() {
+    return this.database;
+  }
+
+  @NotNull
+  public String name() {
+    return this.edition;
+  }
+
+  @NotNull
+  private Handle open(@NotNull File file) throws IOException {
+    // Node offsets differ between the database versions, so every reader gets its own cache.
+    var cache = new BoundedNodeCache(this.cacheSize);
+    var reader = new DatabaseReader.Builder(file)
+        .fileMode(Reader.FileMode.MEMORY_MAPPED)
+        .withCache(cache)
+        .build();
+    return new Handle(reader, cache);
+  }
+
+  /**
+   * Finds the newest version of the database file. Files from the previous versions
+   * of the plugin (without the version suffix) are the oldest.
+   */
+  @NotNull
+  private File latest() {
+    File latest = new File(this.parent, this.edition + ".mmdb");
+    long latestVersion = -1L;
+
+    var files = this.parent.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        long version = this.version(file);
+        if (version > latestVersion) {
+          latest = file;
+          latestVersion = version;
+        }
+      }
+    }
+    return latest;
+  }
+
+  // Version of the database file, 0 if it has no version suffix, or -1 if it isn't a file of this database.
+  private long version(@NotNull File file) {
+    var matcher = this.fileName.matcher(file.getName());
+    if (!matcher.matches()) {
+      return -1L;
+    }
+
+    var version = matcher.group(1);
+    try {
+      return version != null ? Long.parseLong(version) : 0L;
+    } catch (NumberFormatException ex) {
+      return -1L;
+    }
+  }
+
+  /**
+   * Deletes every version of the database file except the current one.
+   * A file which is still mapped may fail to be deleted, it will be deleted on the next startup.
+   */
+  private void deleteOutdated() {
+    var files = this.parent.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (this.version(file) >= 0L && !file.equals(this.database)) {
+        try {
+          Files.deleteIfExists(file.toPath());
+        } catch (IOException ex) {
+          LogUtils.debug("Couldn't delete the outdated GeoIP database " + file.getName() + ", it will be deleted later: " + ex.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Streams the tar.gz archive directly into a temporary file, without saving the archive.
+   * The extracted database is validated, and saved as a new version of the file.
+   *
+   * @return the new version of the database file
+   */
+  @NotNull
+  private File download() throws IOException {
+    this.epicGuard.logger().info("Downloading the GeoIP database: " + this.edition);
+
+    var entryName = this.edition + ".mmdb";
+    var target = new File(this.parent, this.edition + "-" + System.currentTimeMillis() + ".mmdb");
+
+    var found = false;
+    var connection = URLUtils.openConnection(this.url);
+    try (var tarInput = new TarArchiveInputStream(new GZIPInputStream(connection.getInputStream()))) {
+      var entry = tarInput.getNextTarEntry();
+      while (entry != null) {
+        // Extracting the database (.mmdb) database we are looking for.
+        if (entry.getName().endsWith(entryName)) {
+          try (var output = new FileOutputStream(this.temporary)) {
+            IOUtils.copy(tarInput, output);
+          }
+          found = true;
+          break;
+        }
+
+        entry = tarInput.getNextTarEntry();
+      }
+    }
+
+    try {
+      if (!found) {
+        throw new IOException("The downloaded archive doesn't contain " + entryName);
+      }
+
+      this.validate();
+      // A new file is never mapped yet, so it can be moved on every system.
+      Files.move(this.temporary.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(this.temporary.toPath());
+    }
+    this.epicGuard.logger().info("Database (" + target.getName() + ") has been extracted succesfuly.");
+    return target;
+  }
+
+  // Makes sure that the extracted file is a readable database of the expected edition.
+  private void validate() throws IOException {
+    try (var reader = new Reader(this.temporary)) {
+      var type = reader.getMetadata().getDatabaseType();
+      if (!this.edition.equals(type)) {
+        throw new IOException("Unexpected type of the downloaded database: " + type);
+      }
+    }
+  }
+
+  /**
+   * An opened reader together with its node cache, swapped as a single reference.
+   */
+  private record Handle(DatabaseReader reader, BoundedNodeCache cache) {
+    private void close() {
+      try {
+        this.reader.close();
+      } catch (IOException ex) {
+        LogUtils.catchException("Couldn't close the GeoIP database", ex);
+      }
+    }
+  }
+}
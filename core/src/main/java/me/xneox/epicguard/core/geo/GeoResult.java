@@ -0,0 +1,37 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.geo;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable result of a single geographical lookup.
+ *
+ * @param countryCode ISO code of the country, or "unknown"
+ * @param city name of the city, "unknown" if not found, or null if the city was not queried
+ */
+public record GeoResult(@NotNull String countryCode, @Nullable String city) {
+  public static final String UNKNOWN = "unknown";
+  public static final GeoResult EMPTY = new GeoResult(UNKNOWN, UNKNOWN);
+
+  /**
+   * @return whenever this result contains the city, or it has to be queried again.
+   */
+  public boolean hasCity() {
+    return this.city != null;
+  }
+}
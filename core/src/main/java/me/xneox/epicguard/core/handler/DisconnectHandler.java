@@ -22,7 +22,7 @@ import org.jetbrains.annotations.NotNull;
 
 /**
  * Handler for the PlayerQuit/Disconnect listeners.
- * Used for removing the {@link OnlineUser} instance from cache.
+ * Used for removing the {@link OnlineUser} instance from cache, and cancelling his delayed tasks.
  */
 public abstract class DisconnectHandler {
   private final EpicGuard epicGuard;
@@ -37,6 +37,9 @@ public abstract class DisconnectHandler {
    * @param uuid UUID of the (offline) player.
    */
   public void onDisconnect(@NotNull UUID uuid) {
-    this.epicGuard.userManager().removeUser(uuid);
+    var user = this.epicGuard.userManager().removeUser(uuid);
+    if (user != null) {
+      user.cancelTimeouts();
+    }
   }
 }
@@ -0,0 +1,39 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.handler;
+
+import me.xneox.epicguard.core.EpicGuard;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Handler for the Handshake listeners, on the platforms which expose the handshake.
+ * Used for starting the lookups of the connecting address early.
+ */
+public abstract class HandshakeHandler {
+  private final EpicGuard epicGuard;
+
+  public HandshakeHandler(EpicGuard epicGuard) {
+    this.epicGuard = epicGuard;
+  }
+
+  /**
+   * Handling the user who just performed a handshake (before pinging or joining).
+   *
+   * @param address Address of the user.
+   */
+  public void onHandshake(@NotNull String address) {
+    this.epicGuard.prewarmManager().prewarm(address);
+  }
+}
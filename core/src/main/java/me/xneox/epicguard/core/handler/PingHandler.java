@@ -16,11 +16,12 @@
 package me.xneox.epicguard.core.handler;
 
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.util.AddressKey;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Handler for the ServerListPing listeners. Used by ServerListCheck to verify if the user has
- * pinged the server (added it to their list).
+ * pinged the server (added it to their list), and for starting the lookups of the address early.
  */
 public abstract class PingHandler {
   private final EpicGuard epicGuard;
@@ -35,6 +36,10 @@ public abstract class PingHandler {
    * @param address Address of the pinger.
    */
   public void onPing(@NotNull String address) {
-    this.epicGuard.storageManager().pingCache().add(address);
+    var key = AddressKey.parse(address);
+    if (key != null) {
+      this.epicGuard.storageManager().pingCache().put(key);
+    }
+    this.epicGuard.prewarmManager().prewarm(address);
   }
 }
@@ -16,8 +16,8 @@
 package me.xneox.epicguard.core.handler;
 
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import me.xneox.epicguard.core.EpicGuard;
-import me.xneox.epicguard.core.storage.AddressMeta;
 import me.xneox.epicguard.core.user.OnlineUser;
 import me.xneox.epicguard.core.util.TextUtils;
 import org.jetbrains.annotations.NotNull;
@@ -41,26 +41,44 @@ public abstract class PostLoginHandler {
    */
   public void onPostLogin(@NotNull UUID uuid, @NotNull String address) {
     // Schedule a delayed task to whitelist the player.
-    if (this.epicGuard.config().autoWhitelist().enabled()) {
-      this.epicGuard.platform().runTaskLater(() -> {
+    var autoWhitelist = this.epicGuard.config().autoWhitelist();
+    if (autoWhitelist.enabled()) {
+      this.schedule(uuid, () -> {
         var user = this.epicGuard.userManager().get(uuid);
 
         // check if player has logged out
         if (user != null) {
-          var meta = this.epicGuard.storageManager().addressMeta(address);
-          meta.whitelisted(true);
+          this.epicGuard.storageManager().update(address, meta -> meta.withWhitelisted(true));
         }
-      }, this.epicGuard.config().autoWhitelist().timeOnline());
+      }, autoWhitelist.timeOnline());
     }
 
     // Schedule a delayed task to check if the player has sent the Settings packet.
-    if (this.epicGuard.config().settingsCheck().enabled()) {
-      this.epicGuard.platform().runTaskLater(() -> {
+    var settingsCheck = this.epicGuard.config().settingsCheck();
+    if (settingsCheck.enabled()) {
+      this.schedule(uuid, () -> {
         var user = this.epicGuard.userManager().get(uuid);
         if (user != null && !user.settingsChanged()) {
-          this.epicGuard.platform().disconnectUser(uuid, TextUtils.multilineComponent(this.epicGuard.messages().disconnect().settingsPacket()));
+          this.epicGuard.timeline().recordBlock("SettingsCheck");
+
+          // Only the disconnect itself is passed to the platform's scheduler.
+          var message = TextUtils.multilineComponent(this.epicGuard.messages().disconnect().settingsPacket());
+          this.epicGuard.platform().runTaskLater(() -> this.epicGuard.platform().disconnectUser(uuid, message), 0L);
         }
-      }, this.epicGuard.config().settingsCheck().delay());
+      }, settingsCheck.delay());
+    }
+  }
+
+  /**
+   * Schedules a delayed task on the timer wheel. The {@link OnlineUser} is not created here,
+   * but if it already exists, the task is cancelled when the player disconnects.
+   * Otherwise, the task itself checks if the player is still online.
+   */
+  private void schedule(UUID uuid, Runnable task, long seconds) {
+    var timeout = this.epicGuard.timerWheel().schedule(task, seconds, TimeUnit.SECONDS);
+    var user = this.epicGuard.userManager().get(uuid);
+    if (user != null) {
+      user.addTimeout(timeout);
     }
   }
 }
@@ -15,12 +15,15 @@
 
 package me.xneox.epicguard.core.handler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.check.AbstractCheck;
 import me.xneox.epicguard.core.check.AccountLimitCheck;
+import me.xneox.epicguard.core.check.AddressListCheck;
+import me.xneox.epicguard.core.check.AsnCheck;
 import me.xneox.epicguard.core.check.BlacklistCheck;
 import me.xneox.epicguard.core.check.GeographicalCheck;
 import me.xneox.epicguard.core.check.LockdownCheck;
@@ -29,34 +32,26 @@ import me.xneox.epicguard.core.check.NicknameCheck;
 import me.xneox.epicguard.core.check.ProxyCheck;
 import me.xneox.epicguard.core.check.ReconnectCheck;
 import me.xneox.epicguard.core.check.ServerListCheck;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.config.PluginConfiguration;
 import me.xneox.epicguard.core.user.ConnectingUser;
 import me.xneox.epicguard.core.util.LogUtils;
 import net.kyori.adventure.text.TextComponent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Handler for PreLogin listeners. It performs every antibot check (except SettingsCheck).
  */
 public abstract class PreLoginHandler {
-  private final Set<AbstractCheck> pipeline = new TreeSet<>();
   private final EpicGuard epicGuard;
 
+  // Built from the current configuration snapshot, and built again when the configuration is reloaded.
+  private volatile CompiledPipelines pipelines;
+
   public PreLoginHandler(EpicGuard epicGuard) {
     this.epicGuard = epicGuard;
-
-    // This will be automatically sorted based on the configured priority.
-    pipeline.add(new LockdownCheck(epicGuard));
-    pipeline.add(new BlacklistCheck(epicGuard));
-    pipeline.add(new NicknameCheck(epicGuard));
-    pipeline.add(new GeographicalCheck(epicGuard));
-    pipeline.add(new ServerListCheck(epicGuard));
-    pipeline.add(new ReconnectCheck(epicGuard));
-    pipeline.add(new AccountLimitCheck(epicGuard));
-    pipeline.add(new NameSimilarityCheck(epicGuard));
-    pipeline.add(new ProxyCheck(epicGuard));
-
-    epicGuard.logger().info("Order of the detection pipeline: " +
-        String.join(", ", this.pipeline.stream().map(check -> check.getClass().getSimpleName()).toList()));
+    this.pipelines = this.compile(epicGuard.compiledConfig(), null);
   }
 
   /**
@@ -69,29 +64,261 @@ public abstract class PreLoginHandler {
   @NotNull
   public Optional<TextComponent> onPreLogin(@NotNull String address, @NotNull String nickname) {
     LogUtils.debug("Handling incoming connection: " + address + "/" + nickname);
+    this.countConnection();
+    return this.check(address, nickname, null);
+  }
 
-    // Increment the connections per second and check if it's bigger than max-cps in config.
+  /**
+   * Non-blocking variant of {@link #onPreLogin(String, String)}. If the proxy check is going to be performed,
+   * the proxy lookup is started first, and the checks are performed only after its result is known,
+   * so no thread is held while waiting for the proxy services.
+   *
+   * @param address Address of the connecting user.
+   * @param nickname Nickname of the connecting user.
+   * @return A future of the disconnect message, or an empty Optional if undetected.
+   */
+  @NotNull
+  public CompletableFuture<Optional<TextComponent>> onPreLoginAsync(@NotNull String address, @NotNull String nickname) {
+    LogUtils.debug("Handling incoming connection: " + address + "/" + nickname);
+    this.countConnection();
+
+    var pipelines = this.pipelines();
+    var pipeline = this.epicGuard.attackManager().isUnderAttack() ? pipelines.attack() : pipelines.normal();
+    if (!pipeline.performsProxyCheck() || this.epicGuard.storageManager().addressMeta(address).whitelisted()) {
+      return CompletableFuture.supplyAsync(() -> this.check(address, nickname, null));
+    }
+
+    return this.epicGuard.proxyManager().isProxyAsync(address)
+        .thenApplyAsync(proxy -> this.check(address, nickname, proxy));
+  }
+
+  // Increment the connections per second and check if it's bigger than max-cps in config.
+  private void countConnection() {
     if (this.epicGuard.attackManager().incrementConnectionCounter() >= this.epicGuard.config().misc().attackConnectionThreshold()) {
       this.epicGuard.logger().warn("Enabling attack-mode (" + this.epicGuard.attackManager().connectionCounter() + " connections/s)");
       this.epicGuard.attackManager().attack(true);
     }
+  }
 
+  /**
+   * Performs the checks of the current pipeline.
+   *
+   * @param proxy result of the proxy lookup if it has been performed already, or null
+   */
+  @NotNull
+  private Optional<TextComponent> check(@NotNull String address, @NotNull String nickname, @Nullable Boolean proxy) {
     // Check if the user is whitelisted, if yes, return empty result (undetected).
     if (this.epicGuard.storageManager().addressMeta(address).whitelisted()) {
       LogUtils.debug("Skipping whitelisted user: " + address + "/" + nickname);
+      this.epicGuard.timeline().recordPass();
       return Optional.empty();
     }
 
-    var user = new ConnectingUser(address, nickname);
-    for (AbstractCheck check : this.pipeline) {
-      if (check.isDetected(user)) {
-        LogUtils.debug(nickname + "/" + address + " detected by " + check.getClass().getSimpleName());
-        return Optional.of(check.detectionMessage());
-      }
+    // The attack state is read once, so the whole connection is checked by a single pipeline.
+    var pipelines = this.pipelines();
+    var pipeline = this.epicGuard.attackManager().isUnderAttack() ? pipelines.attack() : pipelines.normal();
+
+    var user = new ConnectingUser(address, nickname, proxy);
+    var check = pipeline.detect(user);
+    if (check != null) {
+      this.epicGuard.timeline().recordBlock(check.name());
+      return Optional.of(check.detectionMessage());
     }
 
     LogUtils.debug(nickname + "/" + address + " has passed all checks and is allowed to connect.");
     this.epicGuard.storageManager().updateAccounts(user);
+    this.epicGuard.timeline().recordPass();
     return Optional.empty();
   }
+
+  @NotNull
+  private CompiledPipelines pipelines() {
+    var compiledConfig = this.epicGuard.compiledConfig();
+    var current = this.pipelines;
+    if (current.compiledConfig() != compiledConfig) {
+      synchronized (this) {
+        current = this.pipelines;
+        if (current.compiledConfig() != compiledConfig) {
+          current = this.compile(compiledConfig, current.checks());
+          this.pipelines = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Creates the checks from the provided configuration snapshot, and compiles the pipelines.
+   * Connections in progress finish on the previous pipelines, the state of the previous checks
+   * (such as the remembered nicknames and connections) is kept if it is still compatible.
+   *
+   * @param compiledConfig the configuration snapshot
+   * @param previous the checks created from the previous snapshot, or null
+   */
+  @NotNull
+  private CompiledPipelines compile(@NotNull CompiledConfig compiledConfig, @Nullable List<AbstractCheck> previous) {
+    var checks = new ArrayList<AbstractCheck>();
+    checks.add(new LockdownCheck(this.epicGuard, compiledConfig));
+    checks.add(new BlacklistCheck(this.epicGuard, compiledConfig));
+    checks.add(new NicknameCheck(this.epicGuard, compiledConfig));
+    checks.add(new GeographicalCheck(this.epicGuard, compiledConfig));
+    checks.add(new AsnCheck(this.epicGuard, compiledConfig));
+    checks.add(new ServerListCheck(this.epicGuard, compiledConfig));
+    checks.add(new ReconnectCheck(this.epicGuard, compiledConfig, find(previous, ReconnectCheck.class)));
+    checks.add(new AccountLimitCheck(this.epicGuard, compiledConfig));
+    checks.add(new NameSimilarityCheck(this.epicGuard, compiledConfig, find(previous, NameSimilarityCheck.class)));
+    checks.add(new AddressListCheck(this.epicGuard, compiledConfig));
+    checks.add(new ProxyCheck(this.epicGuard, compiledConfig));
+
+    // Sorted based on the configured priority. The sort is stable, so checks with the same priority keep the order above.
+    checks.sort(null);
+
+    LogUtils.debug("Order of the detection pipeline: " + String.join(", ", checks.stream().map(AbstractCheck::name).toList()));
+
+    var config = compiledConfig.config();
+    return new CompiledPipelines(compiledConfig, List.copyOf(checks), Pipeline.compile(checks, config, false), Pipeline.compile(checks, config, true));
+  }
+
+  @Nullable
+  private static <T extends AbstractCheck> T find(@Nullable List<AbstractCheck> checks, @NotNull Class<T> type) {
+    if (checks != null) {
+      for (AbstractCheck check : checks) {
+        if (type.isInstance(check)) {
+          return type.cast(check);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * All checks created from a single configuration snapshot, and their pipelines for the normal mode and for the attack mode.
+   */
+  private record CompiledPipelines(CompiledConfig compiledConfig, List<AbstractCheck> checks, Pipeline normal, Pipeline attack) {}
+
+  /**
+   * An immutable array of the checks active in a single mode, with the scoring plan of these checks
+   * if the scoring mode is enabled. Disabled checks are not included at all.
+   */
+  private record Pipeline(AbstractCheck[] checks, @Nullable ScoringPlan scoring) {
+    private static Pipeline compile(List<AbstractCheck> checks, PluginConfiguration config, boolean attack) {
+      var active = checks.stream()
+          .filter(check -> check.checkMode().isActive(attack))
+          .toList();
+      var scoring = config.scoring().enabled() ? ScoringPlan.compile(active, config.scoring()) : null;
+      return new Pipeline(active.toArray(new AbstractCheck[0]), scoring);
+    }
+
+    /**
+     * @return whenever the proxy check is active in this pipeline.
+     */
+    private boolean performsProxyCheck() {
+      for (AbstractCheck check : this.checks) {
+        if (check instanceof ProxyCheck) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * @return the check which has blocked the user, or null if the user is allowed to connect
+     */
+    @Nullable
+    private AbstractCheck detect(@NotNull ConnectingUser user) {
+      if (this.scoring != null) {
+        return this.scoring.detect(user);
+      }
+
+      for (AbstractCheck check : this.checks) {
+        if (check.isDetected(user)) {
+          LogUtils.debug(user.nickname() + "/" + user.address() + " detected by " + check.name());
+          return check;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Order and weights of the checks in the scoring mode. Checks without a weight are performed first,
+   * and block the user immediately. Weighted cheap checks are performed next, and the expensive ones last.
+   * Within these groups, the configured priority is kept.
+   */
+  static final class ScoringPlan {
+    private final AbstractCheck[] checks;
+    private final double[] weights; // NaN for the checks without a weight.
+    private final double[] remaining; // maximum score the checks from this index onwards can add.
+    private final double threshold;
+
+    private ScoringPlan(PluginConfiguration.Scoring config, AbstractCheck[] checks, double[] weights) {
+      this.checks = checks;
+      this.weights = weights;
+      this.threshold = config.threshold();
+
+      this.remaining = new double[checks.length + 1];
+      for (int i = checks.length - 1; i >= 0; i--) {
+        this.remaining[i] = this.remaining[i + 1] + (Double.isNaN(weights[i]) ? 0.0D : weights[i]);
+      }
+    }
+
+    static ScoringPlan compile(List<AbstractCheck> pipeline, PluginConfiguration.Scoring config) {
+      var hard = new ArrayList<AbstractCheck>();
+      var cheap = new ArrayList<AbstractCheck>();
+      var expensive = new ArrayList<AbstractCheck>();
+      for (AbstractCheck check : pipeline) {
+        var weight = config.weights().get(check.name());
+        if (weight == null) {
+          hard.add(check);
+        } else if (weight > 0.0D) { // checks with no weight can't change the outcome.
+          (check.isExpensive() ? expensive : cheap).add(check);
+        }
+      }
+
+      var checks = new ArrayList<AbstractCheck>(hard);
+      checks.addAll(cheap);
+      checks.addAll(expensive);
+
+      var weights = new double[checks.size()];
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = i < hard.size() ? Double.NaN : config.weights().get(checks.get(i).name());
+      }
+      return new ScoringPlan(config, checks.toArray(new AbstractCheck[0]), weights);
+    }
+
+    /**
+     * Performs the checks until the outcome is known.
+     *
+     * @return the check which has blocked the user, or null if the user is allowed to connect
+     */
+    @Nullable
+    AbstractCheck detect(@NotNull ConnectingUser user) {
+      double score = 0.0D;
+      for (int i = 0; i < this.checks.length; i++) {
+        var check = this.checks[i];
+        double weight = this.weights[i];
+        if (Double.isNaN(weight)) {
+          if (check.isDetected(user)) {
+            LogUtils.debug(user.nickname() + "/" + user.address() + " detected by " + check.name());
+            return check;
+          }
+          continue;
+        }
+
+        if (score + this.remaining[i] < this.threshold) {
+          LogUtils.debug(user.nickname() + "/" + user.address() + " can't reach the threshold anymore (score " + score + ")");
+          return null; // the remaining checks can't block the user anymore.
+        }
+
+        if (check.isDetected(user)) {
+          score += weight;
+          if (score >= this.threshold) {
+            LogUtils.debug(user.nickname() + "/" + user.address() + " detected by " + check.name() + " (score " + score + ")");
+            return check;
+          }
+        }
+      }
+      return null;
+    }
+  }
 }
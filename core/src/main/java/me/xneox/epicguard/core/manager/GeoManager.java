@@ -15,22 +15,24 @@
 
 package me.xneox.epicguard.core.manager;
 
-import com.maxmind.db.CHMCache;
-import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPInputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.CompiledConfig;
+import me.xneox.epicguard.core.geo.CountryTable;
+import me.xneox.epicguard.core.geo.GeoCache;
+import me.xneox.epicguard.core.geo.GeoDatabase;
+import me.xneox.epicguard.core.geo.GeoResult;
+import me.xneox.epicguard.core.util.AddressKey;
 import me.xneox.epicguard.core.util.FileUtils;
 import me.xneox.epicguard.core.util.LogUtils;
-import me.xneox.epicguard.core.util.TextUtils;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.utils.IOUtils;
+import me.xneox.epicguard.core.util.ToggleState;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This class manages the GeoLite2's databases, downloads and updates them if needed. It also
@@ -39,8 +41,13 @@ import org.jetbrains.annotations.NotNull;
 public class GeoManager {
   private final EpicGuard epicGuard;
 
-  private DatabaseReader countryReader;
-  private DatabaseReader cityReader;
+  private final GeoCache cache = new GeoCache(16384L);
+  private final GeoDatabase countryDatabase;
+  private final GeoDatabase cityDatabase;
+  private final GeoDatabase asnDatabase;
+
+  private final AtomicInteger tableVersion = new AtomicInteger();
+  private volatile CompiledTable countryTable;
 
   public GeoManager(EpicGuard epicGuard) {
     this.epicGuard = epicGuard;
@@ -50,79 +57,248 @@ public class GeoManager {
     //noinspection ResultOfMethodCallIgnored
     parent.mkdirs();
 
-    var countryDatabase = new File(parent, "GeoLite2-Country.mmdb");
-    var cityDatabase = new File(parent, "GeoLite2-City.mmdb");
+    long cacheSize = epicGuard.config().geographical().databaseCacheSize();
+    this.countryDatabase = new GeoDatabase(epicGuard, parent, "GeoLite2-Country", cacheSize, () -> {
+      this.cache.invalidateAll();
+      this.compileCountryTable();
+    });
+    this.cityDatabase = new GeoDatabase(epicGuard, parent, "GeoLite2-City", cacheSize, this.cache::invalidateAll);
+    this.asnDatabase = new GeoDatabase(epicGuard, parent, "GeoLite2-ASN", cacheSize, () -> {}); // ASN lookups are not cached.
+
+    // The City database is quite big, so it is opened only if there are any city rules.
+    // Otherwise, it will be opened when the /guard analyze command needs it.
+    // Missing databases are downloaded in the background, lookups work without them until then.
+    this.countryDatabase.reader();
+    if (!epicGuard.config().geographical().cityBlacklist().isEmpty()) {
+      this.cityDatabase.reader();
+    }
+    if (epicGuard.config().asnCheck().checkMode() != ToggleState.NEVER) {
+      this.asnDatabase.reader();
+    }
+    this.compileCountryTable();
+  }
+
+  /**
+   * Compiles the {@link CountryTable} for the current configuration in the background.
+   * Until the compilation is finished, the previous table (if any) stays in use.
+   * Should be called whenever the configuration or the Country database changes.
+   */
+  public void compileCountryTable() {
+    var compiledConfig = this.epicGuard.compiledConfig();
+    var config = compiledConfig.config().geographical();
+    int version = this.tableVersion.incrementAndGet();
+    if (!config.compileCountryTable()) {
+      synchronized (this.tableVersion) {
+        this.countryTable = null;
+      }
+      return;
+    }
+
+    var countries = compiledConfig.countries();
+    boolean blacklist = config.isBlacklist();
+    CompletableFuture.runAsync(() -> {
+      if (this.countryDatabase.reader() == null) {
+        return; // database is not available, regular lookups will be used.
+      }
+
+      try {
+        long start = System.currentTimeMillis();
+        var table = CountryTable.compile(this.countryDatabase.file(), countries, blacklist);
 
-    var countryArchive = new File(parent, "GeoLite2-Country.tar.gz");
-    var cityArchive = new File(parent, "GeoLite2-City.tar.gz");
+        // Don't replace the table if a newer compilation has been started in the meantime.
+        synchronized (this.tableVersion) {
+          if (this.tableVersion.get() == version) {
+            this.countryTable = new CompiledTable(compiledConfig, table);
+          }
+        }
+        LogUtils.debug("Compiled the country table (" + table.size() + " ranges) in " + (System.currentTimeMillis() - start) + "ms");
+      } catch (IOException ex) {
+        LogUtils.catchException("Couldn't compile the country table, regular lookups will be used instead.", ex);
+      }
+    });
+  }
+
+  /**
+   * Refreshes the outdated databases, and clears everything that has been derived from them.
+   * The City and ASN databases are refreshed only if they have been requested already,
+   * which includes the databases that couldn't be downloaded before.
+   * This is blocking, and should never be called on the main thread.
+   */
+  public void refreshDatabases() {
+    // Derived data is cleared by the listeners of the databases, see the constructor.
+    this.countryDatabase.refresh();
+    if (this.cityDatabase.isRequested()) {
+      this.cityDatabase.refresh();
+    }
+    if (this.asnDatabase.isRequested()) {
+      this.asnDatabase.refresh();
+    }
+  }
+
+  /**
+   * Checks if the provided address belongs to one of the denied ASNs.
+   *
+   * @param address the looked up address
+   * @return true if the address belongs to a denied ASN
+   */
+  public boolean isDeniedAsn(@NotNull String address) {
+    var denied = this.epicGuard.compiledConfig().deniedAsns();
+    if (denied.length == 0) {
+      return false; // no need to open the database at all.
+    }
+
+    int asn = this.asn(address);
+    return asn != -1 && Arrays.binarySearch(denied, asn) >= 0;
+  }
+
+  /**
+   * Returns the autonomous system number of the provided address.
+   *
+   * @param address the looked up address
+   * @return the ASN, or -1 if it is unknown
+   */
+  public int asn(@NotNull String address) {
+    var reader = this.asnDatabase.reader();
+    var key = AddressKey.parse(address);
+    if (reader == null || key == null) {
+      return -1;
+    }
 
     try {
-      this.downloadDatabase(
-          countryDatabase,
-          countryArchive,
-          "https://download.maxmind.com/app/geoip_download?edition_id=GeoLite2-Country&license_key=LARAgQo3Fw7W9ZMS&suffix=tar.gz");
-      this.downloadDatabase(
-          cityDatabase,
-          cityArchive,
-          "https://download.maxmind.com/app/geoip_download?edition_id=GeoLite2-City&license_key=LARAgQo3Fw7W9ZMS&suffix=tar.gz");
-
-      this.countryReader = new DatabaseReader.Builder(countryDatabase).withCache(new CHMCache()).build();
-      this.cityReader = new DatabaseReader.Builder(cityDatabase).withCache(new CHMCache()).build();
-    } catch (IOException ex) {
-      LogUtils.catchException("Couldn't download the GeoIP databases, please check your internet connection.", ex);
+      var response = reader.tryAsn(key.toInetAddress());
+      if (response.isPresent() && response.get().getAutonomousSystemNumber() != null) {
+        return response.get().getAutonomousSystemNumber();
+      }
+    } catch (IOException | GeoIp2Exception ex) {
+      this.epicGuard.logger().warn("Couldn't find the ASN for the address " + address + ": " + ex.getMessage());
     }
+    return -1;
   }
 
-  @SuppressWarnings("ResultOfMethodCallIgnored")
-  private void downloadDatabase(@NotNull File database, @NotNull File archive, @NotNull String url) throws IOException {
-    if (!database.exists() || System.currentTimeMillis() - database.lastModified() > TimeUnit.DAYS.toMillis(7L)) {
-      // Database does not exist or is outdated, and need to be downloaded.
-      this.epicGuard.logger().info("Downloading the GeoIP database file: " + database.getName());
-      FileUtils.downloadFile(url, archive);
-
-      this.epicGuard.logger().info("Extracting the database from the tar archive...");
-      var tarInput = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(archive)));
-
-      var entry = tarInput.getNextTarEntry();
-      while (entry != null) {
-        // Extracting the database (.mmdb) database we are looking for.
-        if (entry.getName().endsWith(database.getName())) {
-          IOUtils.copy(tarInput, new FileOutputStream(database));
-        }
+  /**
+   * Returns the precompiled {@link CountryTable} for the provided configuration snapshot.
+   * After a reload, the previous table is not used until it is compiled again,
+   * unless the country rules haven't changed.
+   *
+   * @param compiledConfig the configuration snapshot the caller decides with
+   * @return the table, or null if it is disabled, not compiled yet, or compiled from different rules
+   */
+  @Nullable
+  public CountryTable countryTable(@NotNull CompiledConfig compiledConfig) {
+    var current = this.countryTable;
+    return current != null && current.matches(compiledConfig) ? current.table() : null;
+  }
+
+  /**
+   * Performs a single geographical lookup for the provided address.
+   * The City database is only queried if there are any city rules configured.
+   *
+   * @param address the looked up address
+   * @return the lookup result, never null
+   */
+  @NotNull
+  public GeoResult lookup(@NotNull String address) {
+    return this.lookup(address, !this.epicGuard.config().geographical().cityBlacklist().isEmpty());
+  }
 
-        entry = tarInput.getNextTarEntry();
+  /**
+   * Performs a single geographical lookup for the provided address.
+   * Results are cached per network, so neighbouring addresses will usually hit the cache.
+   *
+   * @param address the looked up address
+   * @param withCity whenever the city should be queried too
+   * @return the lookup result, never null
+   */
+  @NotNull
+  public GeoResult lookup(@NotNull String address, boolean withCity) {
+    var key = AddressKey.parse(address);
+    if (key == null) {
+      return GeoResult.EMPTY;
+    }
+
+    var cached = this.cache.get(key);
+    if (cached != null && (!withCity || cached.hasCity())) {
+      return cached;
+    }
+
+    var inetAddress = key.toInetAddress();
+    try {
+      // The City database contains the country too, so the Country database is queried only if the city isn't known.
+      var cityReader = withCity ? this.cityDatabase.reader() : null;
+      if (cityReader != null) {
+        var response = cityReader.tryCity(inetAddress);
+        if (response.isPresent()) {
+          var result = new GeoResult(orUnknown(response.get().getCountry().getIsoCode()), orUnknown(response.get().getCity().getName()));
+          this.cache.put(key, response.get().getTraits().getNetwork().getPrefixLength(), result);
+          return result;
+        }
       }
 
-      // Closing InputStream and removing archive file.
-      tarInput.close();
-      archive.delete();
-      this.epicGuard.logger().info("Database (" + database.getName() + ") has been extracted succesfuly.");
+      var countryReader = this.countryDatabase.reader();
+      if (countryReader != null) {
+        var response = countryReader.tryCountry(inetAddress);
+        if (response.isPresent()) {
+          if (cityReader != null) {
+            // The city is unknown only for this address, the country network may contain cities from the City database.
+            var result = new GeoResult(orUnknown(response.get().getCountry().getIsoCode()), GeoResult.UNKNOWN);
+            this.cache.put(key, key.bits(), result);
+            return result;
+          }
+
+          var result = new GeoResult(orUnknown(response.get().getCountry().getIsoCode()), null);
+          this.cache.put(key, response.get().getTraits().getNetwork().getPrefixLength(), result);
+          return result;
+        }
+      }
+    } catch (IOException | GeoIp2Exception ex) {
+      this.epicGuard.logger().warn("Couldn't find the location for the address " + address + ": " + ex.getMessage());
+      return GeoResult.EMPTY;
     }
+
+    // Address is not present in the database, cache only this single address.
+    this.cache.put(key, key.bits(), GeoResult.EMPTY);
+    return GeoResult.EMPTY;
   }
 
   @NotNull
   public String countryCode(@NotNull String address) {
-    var inetAddress = TextUtils.parseAddress(address);
-    if (inetAddress != null && this.countryReader != null) {
-      try {
-        return this.countryReader.country(inetAddress).getCountry().getIsoCode();
-      } catch (IOException | GeoIp2Exception ex) {
-        this.epicGuard.logger().warn("Couldn't find the country for the address " + address + ": " + ex.getMessage());
-      }
-    }
-    return "unknown";
+    return this.lookup(address, false).countryCode();
   }
 
   @NotNull
   public String city(@NotNull String address) {
-    var inetAddress = TextUtils.parseAddress(address);
-    if (inetAddress != null && this.cityReader != null) {
-      try {
-        return this.cityReader.city(inetAddress).getCity().getName();
-      } catch (IOException | GeoIp2Exception ex) {
-        this.epicGuard.logger().warn("Couldn't find the city for the address " + address + ": " + ex.getMessage());
-      }
+    var city = this.lookup(address, true).city();
+    return city != null ? city : GeoResult.UNKNOWN;
+  }
+
+  @NotNull
+  public GeoDatabase countryDatabase() {
+    return this.countryDatabase;
+  }
+
+  @NotNull
+  public GeoDatabase cityDatabase() {
+    return this.cityDatabase;
+  }
+
+  @NotNull
+  public GeoDatabase asnDatabase() {
+    return this.asnDatabase;
+  }
+
+  /**
+   * A compiled table, together with the configuration snapshot it has been compiled from.
+   */
+  private record CompiledTable(CompiledConfig source, CountryTable table) {
+    private boolean matches(CompiledConfig compiledConfig) {
+      return this.source == compiledConfig
+          || this.source.countries().equals(compiledConfig.countries())
+          && this.source.config().geographical().isBlacklist() == compiledConfig.config().geographical().isBlacklist();
     }
-    return "unknown";
+  }
+
+  @NotNull
+  private static String orUnknown(@Nullable String value) {
+    return value != null ? value : GeoResult.UNKNOWN;
   }
 }
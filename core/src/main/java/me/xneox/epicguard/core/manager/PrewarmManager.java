@@ -0,0 +1,104 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.manager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.geo.CountryTable;
+import me.xneox.epicguard.core.proxy.TokenBucket;
+import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.ToggleState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Starts the geographical and proxy lookups of the addresses which ping the server (or perform
+ * a handshake), so their results are usually cached before the user tries to join.
+ * The lookups are limited by a global rate, a concurrency cap and a per-address cooldown,
+ * so a ping flood can't be turned into a flood of requests to the proxy services.
+ */
+public class PrewarmManager {
+  private final EpicGuard epicGuard;
+  private final Cache<String, Boolean> recentAddresses;
+  private final TokenBucket budget;
+  private final Semaphore running;
+
+  public PrewarmManager(EpicGuard epicGuard) {
+    this.epicGuard = epicGuard;
+    var config = epicGuard.config().prewarm();
+    this.recentAddresses = CacheBuilder.newBuilder()
+        .expireAfterWrite(config.cooldown(), TimeUnit.SECONDS)
+        .maximumSize(65536L)
+        .build();
+    this.budget = new TokenBucket(config.maxLookupsPerSecond());
+    this.running = new Semaphore(Math.max(1, config.maxConcurrentLookups()));
+  }
+
+  /**
+   * Starts the lookups of the address in the background, unless they are not needed
+   * or the limits have been reached. Never blocks the calling thread.
+   *
+   * @param address the address of the pinging user
+   */
+  public void prewarm(@NotNull String address) {
+    if (!this.epicGuard.config().prewarm().enabled() || this.epicGuard.attackManager().isUnderAttack()) {
+      return; // during an attack, the budget of the services is saved for the real logins.
+    }
+
+    var meta = this.epicGuard.storageManager().addresses().get(address);
+    if (meta != null && (meta.whitelisted() || meta.blacklisted())) {
+      return; // these addresses are not checked at all.
+    }
+
+    if (this.recentAddresses.asMap().putIfAbsent(address, Boolean.TRUE) != null || !this.budget.tryAcquire()) {
+      return;
+    }
+
+    if (!this.running.tryAcquire()) {
+      this.recentAddresses.invalidate(address); // not started, can be tried again with the next ping.
+      return;
+    }
+
+    CompletableFuture.supplyAsync(() -> {
+      this.prewarmGeo(address);
+      if (this.epicGuard.config().proxyCheck().checkMode() == ToggleState.NEVER) {
+        return CompletableFuture.completedFuture(false);
+      }
+      return this.epicGuard.proxyManager().isProxyAsync(address);
+    }).thenCompose(lookup -> lookup).whenComplete((result, throwable) -> {
+      this.running.release();
+      if (throwable != null) {
+        LogUtils.debug("Couldn't pre-warm the lookups of " + address + " [" + throwable + "]");
+      }
+    });
+  }
+
+  // Looks up the address only if the precompiled table can't decide alone.
+  private void prewarmGeo(String address) {
+    var compiledConfig = this.epicGuard.compiledConfig();
+    var config = compiledConfig.config().geographical();
+    if (config.checkMode() == ToggleState.NEVER) {
+      return;
+    }
+
+    var table = this.epicGuard.geoManager().countryTable(compiledConfig);
+    if (table == null || !config.cityBlacklist().isEmpty() || table.decision(address) == CountryTable.UNKNOWN) {
+      this.epicGuard.geoManager().lookup(address);
+    }
+  }
+}
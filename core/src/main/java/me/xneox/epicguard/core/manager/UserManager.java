@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import me.xneox.epicguard.core.user.OnlineUser;
+import net.kyori.adventure.audience.Audience;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -28,6 +29,7 @@ import org.jetbrains.annotations.Nullable;
  */
 public class UserManager {
   private final Map<UUID, OnlineUser> userMap = new ConcurrentHashMap<>();
+  private final Map<UUID, Audience> subscribers = new ConcurrentHashMap<>();
 
   @NotNull
   public Collection<OnlineUser> users() {
@@ -52,7 +54,37 @@ public class UserManager {
     return this.userMap.get(uuid);
   }
 
-  public void removeUser(@NotNull UUID uuid) {
-    this.userMap.remove(uuid);
+  /**
+   * Removes the {@link OnlineUser} of the specified UUID.
+   *
+   * @return the removed user, or null if there was none
+   */
+  @Nullable
+  public OnlineUser removeUser(@NotNull UUID uuid) {
+    this.subscribers.remove(uuid);
+    return this.userMap.remove(uuid);
+  }
+
+  /**
+   * Enables or disables the status notifications of the specified user.
+   *
+   * @param uuid UUID of the user
+   * @param audience the user's audience, which will receive the notifications
+   * @return true if the notifications have been enabled, false if disabled
+   */
+  public boolean toggleNotifications(@NotNull UUID uuid, @NotNull Audience audience) {
+    if (this.subscribers.remove(uuid) != null) {
+      return false;
+    }
+    this.subscribers.put(uuid, audience);
+    return true;
+  }
+
+  /**
+   * @return the audiences of the users who have enabled the status notifications.
+   */
+  @NotNull
+  public Collection<Audience> subscribers() {
+    return this.subscribers.values();
   }
 }
@@ -0,0 +1,351 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import me.xneox.epicguard.core.util.AddressKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable, compiled list of addresses and networks. Single IPv4 addresses are stored
+ * in an open-addressing hash table of primitive ints, so they are checked in constant time.
+ * Networks are merged into sorted, non-overlapping ranges and checked with a binary search.
+ */
+public final class AddressList {
+  public static final AddressList EMPTY = builder().build();
+
+  // Single IPv4 addresses, 0 marks an empty slot (0.0.0.0 is stored separately).
+  private final int[] ipv4Table;
+  private final int ipv4Mask;
+  private final boolean containsZero;
+  private final int ipv4Count;
+
+  // Merged IPv4 ranges, inclusive, as unsigned values.
+  private final long[] ipv4Starts;
+  private final long[] ipv4Ends;
+
+  // Merged IPv6 ranges, inclusive, split into the upper and lower 64 bits.
+  private final long[] ipv6StartHigh;
+  private final long[] ipv6StartLow;
+  private final long[] ipv6EndHigh;
+  private final long[] ipv6EndLow;
+
+  private AddressList(Builder builder) {
+    int capacity = Integer.highestOneBit(Math.max(4, builder.ipv4Addresses.size() * 2 - 1)) << 1;
+    this.ipv4Table = new int[capacity];
+    this.ipv4Mask = capacity - 1;
+
+    boolean zero = false;
+    int count = 0;
+    for (int i = 0; i < builder.ipv4Addresses.size(); i++) {
+      int address = builder.ipv4Addresses.get(i);
+      if (address == 0) {
+        zero = true;
+        continue;
+      }
+
+      int slot = hash(address) & this.ipv4Mask;
+      while (this.ipv4Table[slot] != 0 && this.ipv4Table[slot] != address) {
+        slot = (slot + 1) & this.ipv4Mask;
+      }
+      if (this.ipv4Table[slot] == 0) {
+        this.ipv4Table[slot] = address;
+        count++;
+      }
+    }
+    this.containsZero = zero;
+    this.ipv4Count = count + (zero ? 1 : 0);
+
+    var ipv4Ranges = merge(builder.ipv4Ranges);
+    this.ipv4Starts = new long[ipv4Ranges.size()];
+    this.ipv4Ends = new long[ipv4Ranges.size()];
+    for (int i = 0; i < ipv4Ranges.size(); i++) {
+      this.ipv4Starts[i] = ipv4Ranges.get(i)[1];
+      this.ipv4Ends[i] = ipv4Ranges.get(i)[3];
+    }
+
+    var ipv6Ranges = merge(builder.ipv6Ranges);
+    this.ipv6StartHigh = new long[ipv6Ranges.size()];
+    this.ipv6StartLow = new long[ipv6Ranges.size()];
+    this.ipv6EndHigh = new long[ipv6Ranges.size()];
+    this.ipv6EndLow = new long[ipv6Ranges.size()];
+    for (int i = 0; i < ipv6Ranges.size(); i++) {
+      var range = ipv6Ranges.get(i);
+      this.ipv6StartHigh[i] = range[0];
+      this.ipv6StartLow[i] = range[1];
+      this.ipv6EndHigh[i] = range[2];
+      this.ipv6EndLow[i] = range[3];
+    }
+  }
+
+  /**
+   * Checks if the provided address is on this list.
+   *
+   * @param address the textual IP address
+   * @return true if the address or its network is listed
+   */
+  public boolean contains(@NotNull String address) {
+    long ipv4 = AddressKey.parseIPv4(address);
+    if (ipv4 != -1L) {
+      return this.containsIPv4(ipv4);
+    }
+
+    var key = AddressKey.parse(address);
+    if (key == null) {
+      return false;
+    }
+    return key.ipv6() ? this.containsIPv6(key.high(), key.low()) : this.containsIPv4(key.low());
+  }
+
+  /**
+   * @return amount of single IPv4 addresses and merged ranges on this list.
+   */
+  public int size() {
+    return this.ipv4Count + this.ipv4Starts.length + this.ipv6StartHigh.length;
+  }
+
+  private boolean containsIPv4(long address) {
+    int value = (int) address;
+    if (value == 0) {
+      if (this.containsZero) {
+        return true;
+      }
+    } else {
+      int slot = hash(value) & this.ipv4Mask;
+      int current;
+      while ((current = this.ipv4Table[slot]) != 0) {
+        if (current == value) {
+          return true;
+        }
+        slot = (slot + 1) & this.ipv4Mask;
+      }
+    }
+
+    int index = Arrays.binarySearch(this.ipv4Starts, address);
+    if (index < 0) {
+      index = -index - 2; // the last range starting before the address.
+    }
+    return index >= 0 && address <= this.ipv4Ends[index];
+  }
+
+  private boolean containsIPv6(long high, long low) {
+    int lowIndex = 0;
+    int highIndex = this.ipv6StartHigh.length - 1;
+    int found = -1;
+    while (lowIndex <= highIndex) {
+      int mid = (lowIndex + highIndex) >>> 1;
+      if (compare(this.ipv6StartHigh[mid], this.ipv6StartLow[mid], high, low) <= 0) {
+        found = mid;
+        lowIndex = mid + 1;
+      } else {
+        highIndex = mid - 1;
+      }
+    }
+    return found >= 0 && compare(high, low, this.ipv6EndHigh[found], this.ipv6EndLow[found]) <= 0;
+  }
+
+  private static int hash(int value) {
+    int hash = value * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  // Compares two unsigned 128-bit numbers.
+  private static int compare(long highA, long lowA, long highB, long lowB) {
+    int result = Long.compareUnsigned(highA, highB);
+    return result != 0 ? result : Long.compareUnsigned(lowA, lowB);
+  }
+
+  // Sorts the ranges, and merges the overlapping and adjacent ones.
+  private static List<long[]> merge(List<long[]> ranges) {
+    var sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.<long[]>comparingLong(range -> range[0] ^ Long.MIN_VALUE).thenComparingLong(range -> range[1] ^ Long.MIN_VALUE));
+
+    var merged = new ArrayList<long[]>();
+    for (long[] range : sorted) {
+      var last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && !isAfterEnd(range, last)) {
+        if (compare(range[2], range[3], last[2], last[3]) > 0) {
+          last[2] = range[2];
+          last[3] = range[3];
+        }
+      } else {
+        merged.add(range.clone());
+      }
+    }
+    return merged;
+  }
+
+  // Checks if the range starts after the end of the previous range plus one.
+  private static boolean isAfterEnd(long[] range, long[] previous) {
+    long nextLow = previous[3] + 1L;
+    long nextHigh = nextLow == 0L ? previous[2] + 1L : previous[2];
+    if (nextLow == 0L && nextHigh == 0L) {
+      return false; // the previous range ends at the last address.
+    }
+    return compare(range[0], range[1], nextHigh, nextLow) > 0;
+  }
+
+  @NotNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Collects the addresses and networks, then compiles them into an {@link AddressList}.
+   */
+  public static final class Builder {
+    private final IntList ipv4Addresses = new IntList();
+    private final List<long[]> ipv4Ranges = new ArrayList<>();
+    private final List<long[]> ipv6Ranges = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a single line of an address list. Supported formats are single addresses,
+     * CIDR networks (1.2.3.0/24) and addresses with a port (1.2.3.4:8080).
+     * Empty lines and comments (starting with # or ;) are ignored.
+     *
+     * @param line the line of the list
+     * @return false if the line contains an invalid entry
+     */
+    public boolean add(@NotNull String line) {
+      var entry = firstToken(line);
+      if (entry == null) {
+        return true; // nothing to add.
+      }
+
+      int prefix = -1;
+      int slash = entry.indexOf('/');
+      if (slash != -1) {
+        try {
+          prefix = Integer.parseInt(entry.substring(slash + 1));
+        } catch (NumberFormatException ex) {
+          return false;
+        }
+        if (prefix < 0) {
+          return false;
+        }
+        entry = entry.substring(0, slash);
+      } else if (entry.indexOf(':') == entry.lastIndexOf(':') && entry.indexOf('.') != -1) {
+        int colon = entry.indexOf(':');
+        entry = colon != -1 ? entry.substring(0, colon) : entry; // strip the port.
+      }
+
+      var key = AddressKey.parse(entry);
+      if (key == null || prefix > key.bits()) {
+        return false;
+      }
+
+      if (prefix == -1 || prefix == key.bits()) {
+        if (key.ipv6()) {
+          this.ipv6Ranges.add(new long[] {key.high(), key.low(), key.high(), key.low()});
+        } else {
+          this.ipv4Addresses.add((int) key.low());
+        }
+        return true;
+      }
+
+      var network = key.mask(prefix);
+      if (!key.ipv6()) {
+        long end = network.low() + (1L << (32 - network.prefix())) - 1L;
+        this.ipv4Ranges.add(new long[] {0L, network.low(), 0L, end});
+      } else {
+        int hostBits = 128 - network.prefix();
+        long endHigh = hostBits >= 64 ? network.high() | (hostBits == 128 ? -1L : (1L << (hostBits - 64)) - 1L) : network.high();
+        long endLow = hostBits >= 64 ? -1L : network.low() | ((1L << hostBits) - 1L);
+        this.ipv6Ranges.add(new long[] {network.high(), network.low(), endHigh, endLow});
+      }
+      return true;
+    }
+
+    /**
+     * Adds all entries of an already compiled list.
+     *
+     * @param list the compiled list
+     * @return this builder
+     */
+    @NotNull
+    public Builder addAll(@NotNull AddressList list) {
+      for (int address : list.ipv4Table) {
+        if (address != 0) {
+          this.ipv4Addresses.add(address);
+        }
+      }
+      if (list.containsZero) {
+        this.ipv4Addresses.add(0);
+      }
+
+      for (int i = 0; i < list.ipv4Starts.length; i++) {
+        this.ipv4Ranges.add(new long[] {0L, list.ipv4Starts[i], 0L, list.ipv4Ends[i]});
+      }
+      for (int i = 0; i < list.ipv6StartHigh.length; i++) {
+        this.ipv6Ranges.add(new long[] {list.ipv6StartHigh[i], list.ipv6StartLow[i], list.ipv6EndHigh[i], list.ipv6EndLow[i]});
+      }
+      return this;
+    }
+
+    @NotNull
+    public AddressList build() {
+      return new AddressList(this);
+    }
+
+    @Nullable
+    private static String firstToken(String line) {
+      int start = 0;
+      int length = line.length();
+      while (start < length && Character.isWhitespace(line.charAt(start))) {
+        start++;
+      }
+      if (start == length || line.charAt(start) == '#' || line.charAt(start) == ';') {
+        return null;
+      }
+
+      int end = start;
+      while (end < length && !Character.isWhitespace(line.charAt(end)) && line.charAt(end) != ',') {
+        end++;
+      }
+      return line.substring(start, end);
+    }
+  }
+
+  /**
+   * A growable list of primitive ints.
+   */
+  private static final class IntList {
+    private int[] values = new int[256];
+    private int size;
+
+    private void add(int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    private int get(int index) {
+      return this.values[index];
+    }
+
+    private int size() {
+      return this.size;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import com.google.common.hash.Hashing;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.util.FileUtils;
+import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.ToggleState;
+import me.xneox.epicguard.core.util.URLUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps local copies of the configured proxy, VPN and Tor exit lists, and compiles them into
+ * a single {@link AddressList}. The compiled list is replaced atomically after every refresh.
+ * The lists are refreshed at startup, on reload, and periodically by the AddressListUpdateTask.
+ *
+ * <p>The last successfully downloaded copy of every remote source is saved in the data directory.
+ * It is used at startup before the sources are downloaded again, and whenever a source is unavailable.</p>
+ */
+public class AddressListManager {
+  private final EpicGuard epicGuard;
+  private final File directory = new File(FileUtils.EPICGUARD_DIR, "/data/lists");
+
+  // Last successfully compiled list of every source, used when the source is temporarily unavailable.
+  private final Map<String, AddressList> sourceLists = new ConcurrentHashMap<>();
+  private volatile AddressList addressList = AddressList.EMPTY;
+  private volatile long lastRefresh;
+
+  public AddressListManager(EpicGuard epicGuard) {
+    this.epicGuard = epicGuard;
+  }
+
+  /**
+   * Checks if the provided address is on one of the configured lists.
+   */
+  public boolean contains(@NotNull String address) {
+    return this.addressList.contains(address);
+  }
+
+  /**
+   * Compiles the copies saved by the previous run, so the check works before the sources
+   * are downloaded again, and then refreshes the lists. Both steps run in the background.
+   */
+  public void initialize() {
+    this.lastRefresh = System.currentTimeMillis(); // don't let the update task start another refresh.
+    CompletableFuture.runAsync(() -> {
+      this.loadSaved();
+      this.refresh();
+    });
+  }
+
+  /**
+   * Refreshes the lists in the background, see {@link #refresh()}.
+   */
+  public void refreshAsync() {
+    CompletableFuture.runAsync(this::refresh);
+  }
+
+  /**
+   * Reads all configured sources, and replaces the compiled list. If the check is disabled,
+   * the list is cleared instead. This is blocking, and should never be called on the main thread.
+   */
+  public synchronized void refresh() {
+    this.lastRefresh = System.currentTimeMillis();
+    var config = this.epicGuard.config().addressListCheck();
+    if (config.checkMode() == ToggleState.NEVER) {
+      this.addressList = AddressList.EMPTY;
+      this.sourceLists.clear();
+      return;
+    }
+
+    long start = System.currentTimeMillis();
+    var merged = AddressList.builder();
+    int invalid = 0;
+    for (String source : config.sources()) {
+      var lines = this.read(source);
+      AddressList list;
+      if (lines != null) {
+        var builder = AddressList.builder();
+        for (String line : lines) {
+          if (!builder.add(line)) {
+            invalid++;
+          }
+        }
+        list = builder.build();
+        this.sourceLists.put(source, list);
+        this.save(source, lines);
+      } else {
+        list = this.sourceLists.computeIfAbsent(source, this::readSaved);
+      }
+      merged.addAll(list);
+    }
+
+    // Forget the sources which have been removed from the configuration.
+    this.sourceLists.keySet().retainAll(config.sources());
+    this.deleteUnused(config.sources());
+    this.addressList = merged.build();
+    LogUtils.debug("Compiled the address lists (" + this.addressList.size() + " entries, " + invalid + " invalid) in "
+        + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  /**
+   * Compiles the saved copies of the remote sources, unless the lists have already been refreshed.
+   */
+  public synchronized void loadSaved() {
+    var config = this.epicGuard.config().addressListCheck();
+    if (config.checkMode() == ToggleState.NEVER || !this.sourceLists.isEmpty()) {
+      return;
+    }
+
+    var merged = AddressList.builder();
+    for (String source : config.sources()) {
+      if (isRemote(source)) {
+        var list = this.readSaved(source);
+        this.sourceLists.put(source, list);
+        merged.addAll(list);
+      }
+    }
+    this.addressList = merged.build();
+  }
+
+  @NotNull
+  public AddressList addressList() {
+    return this.addressList;
+  }
+
+  /**
+   * @return the time of the last refresh, in milliseconds.
+   */
+  public long lastRefresh() {
+    return this.lastRefresh;
+  }
+
+  /**
+   * Reads the lines of a local file (relative to the plugin's directory) or a remote URL.
+   *
+   * @return the lines, or null if the source couldn't be read
+   */
+  @Nullable
+  private List<String> read(String source) {
+    try {
+      if (isRemote(source)) {
+        var connection = URLUtils.openConnection(source);
+        try (var reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+          return reader.lines().toList();
+        }
+      }
+
+      var file = new File(source);
+      if (!file.isAbsolute()) {
+        file = new File(FileUtils.EPICGUARD_DIR, source);
+      }
+      return Files.readAllLines(file.toPath());
+    } catch (IOException | RuntimeException ex) {
+      this.epicGuard.logger().warn("Couldn't read the address list " + source + " [" + ex + "]");
+      return null;
+    }
+  }
+
+  /**
+   * Saves the lines of a remote source, replacing the previous copy atomically.
+   */
+  private void save(String source, List<String> lines) {
+    if (!isRemote(source)) {
+      return; // local files are always available.
+    }
+
+    try {
+      Files.createDirectories(this.directory.toPath());
+      var temporary = new File(this.directory, fileName(source) + ".tmp").toPath();
+      Files.write(temporary, lines, StandardCharsets.UTF_8);
+      Files.move(temporary, new File(this.directory, fileName(source)).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      this.epicGuard.logger().warn("Couldn't save the address list " + source + " [" + ex + "]");
+    }
+  }
+
+  /**
+   * Compiles the saved copy of a remote source.
+   *
+   * @return the compiled list, or an empty list if there's no saved copy
+   */
+  @NotNull
+  private AddressList readSaved(String source) {
+    var file = new File(this.directory, fileName(source));
+    if (!isRemote(source) || !file.exists()) {
+      return AddressList.EMPTY;
+    }
+
+    try {
+      var builder = AddressList.builder();
+      Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).forEach(builder::add);
+      LogUtils.debug("Loaded the saved copy of the address list " + source);
+      return builder.build();
+    } catch (IOException ex) {
+      this.epicGuard.logger().warn("Couldn't read the saved copy of the address list " + source + " [" + ex + "]");
+      return AddressList.EMPTY;
+    }
+  }
+
+  /**
+   * Deletes the saved copies of the sources which have been removed from the configuration.
+   */
+  private void deleteUnused(List<String> sources) {
+    var names = sources.stream().map(AddressListManager::fileName).collect(Collectors.toSet());
+    var files = this.directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (!names.contains(file.getName()) && !file.delete()) {
+        LogUtils.debug("Couldn't delete the unused address list " + file.getName());
+      }
+    }
+  }
+
+  private static boolean isRemote(String source) {
+    return source.startsWith("http://") || source.startsWith("https://");
+  }
+
+  private static String fileName(String source) {
+    return Hashing.sha256().hashString(source, StandardCharsets.UTF_8) + ".txt";
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Matches the response of a batch request, which contains the results of many addresses.
+ * The field path contains an {IP} key, which is used to assign the values to the checked addresses.
+ * Reading stops as soon as every address has its result.
+ */
+public class BatchResponseMatcher extends JsonResponseMatcher {
+  private final Set<String> addresses;
+  private final int addressIndex;
+  private final Map<String, Boolean> results = new HashMap<>();
+
+  /**
+   * @param pattern the pattern matched against the value of the field
+   * @param path names of the nested fields leading to the value, e.g. ["{IP}", "proxy"]
+   * @param addresses the addresses checked by this request
+   * @param maxBytes maximum amount of bytes parsed
+   */
+  public BatchResponseMatcher(@NotNull Pattern pattern, @NotNull String[] path, @NotNull Collection<String> addresses, int maxBytes) {
+    super(pattern, path, maxBytes);
+    this.addresses = Set.copyOf(addresses);
+    this.addressIndex = Arrays.asList(path).indexOf("{IP}");
+  }
+
+  @Override
+  protected boolean value(@NotNull List<String> parents, @Nullable String field, @NotNull String text) {
+    int depth = parents.size() - 1;
+    if (field == null || depth != this.path.length - 1) {
+      return false;
+    }
+
+    String address = null;
+    for (int i = 0; i <= depth; i++) {
+      var name = i == depth ? field : parents.get(i + 1); // the first parent is the root object.
+      if (i == this.addressIndex) {
+        if (!this.addresses.contains(name)) {
+          return false;
+        }
+        address = name;
+      } else if (!this.path[i].equals(name)) {
+        return false;
+      }
+    }
+
+    this.results.merge(address, this.pattern.matcher(text).find(), Boolean::logicalOr);
+    return this.results.size() == this.addresses.size();
+  }
+
+  // Addresses missing in the response are failed by the ProxyBatcher, the rest of them have a verdict.
+  @Override
+  protected boolean isAnswered() {
+    return true;
+  }
+
+  /**
+   * Returns the results of the addresses found in the response.
+   * Should be called only after the response has been processed.
+   */
+  @NotNull
+  public Map<String, Boolean> results() {
+    return this.results;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A circuit breaker based on the outcomes of the recent requests. If too many of them failed
+ * (or were too slow), the breaker opens and requests are not sent for a while. After that,
+ * a single probe request is allowed, which decides if the breaker is closed or opened again.
+ */
+public class CircuitBreaker {
+  private static final int WINDOW_SIZE = 20;
+  private static final int MINIMUM_CALLS = 10;
+
+  private final int failureThreshold;
+  private final long openDuration;
+  private final long slowCallDuration;
+
+  // Ring buffer of the recent outcomes, true means a failure.
+  private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+  private int index;
+  private int calls;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean probing;
+
+  /**
+   * @param failureThreshold percentage of failed requests which opens the breaker
+   * @param openDuration time in milliseconds after which a probe request is allowed
+   * @param slowCallDuration time in milliseconds after which a successful request is considered failed
+   */
+  public CircuitBreaker(int failureThreshold, long openDuration, long slowCallDuration) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.slowCallDuration = slowCallDuration;
+  }
+
+  /**
+   * @return true if a request is allowed to be sent.
+   */
+  public synchronized boolean tryAcquire() {
+    if (this.state == State.OPEN) {
+      if (System.currentTimeMillis() - this.openedAt < this.openDuration) {
+        return false;
+      }
+      this.state = State.HALF_OPEN;
+      this.probing = false;
+    }
+
+    if (this.state == State.HALF_OPEN) {
+      if (this.probing) {
+        return false; // only one probe at a time.
+      }
+      this.probing = true;
+    }
+    return true;
+  }
+
+  /**
+   * Records the outcome of a request allowed by {@link #tryAcquire()}.
+   *
+   * @param success whenever the request has succeeded
+   * @param duration duration of the request in milliseconds
+   */
+  public synchronized void record(boolean success, long duration) {
+    boolean failure = !success || duration > this.slowCallDuration;
+
+    if (this.state == State.HALF_OPEN) {
+      this.probing = false;
+      if (failure) {
+        this.open();
+      } else {
+        this.close();
+      }
+      return;
+    }
+
+    if (this.calls == WINDOW_SIZE) {
+      if (this.outcomes[this.index]) {
+        this.failures--;
+      }
+    } else {
+      this.calls++;
+    }
+
+    this.outcomes[this.index] = failure;
+    if (failure) {
+      this.failures++;
+    }
+    this.index = (this.index + 1) % WINDOW_SIZE;
+
+    if (this.state == State.CLOSED && this.calls >= MINIMUM_CALLS && this.failures * 100 >= this.failureThreshold * this.calls) {
+      this.open();
+    }
+  }
+
+  /**
+   * Opens the breaker immediately, regardless of the recent outcomes. Used when the service
+   * itself asks to slow down, a request allowed by {@link #tryAcquire()} is completed by this.
+   */
+  public synchronized void trip() {
+    this.probing = false;
+    this.open();
+  }
+
+  /**
+   * Releases a request which was cancelled before completing, without recording any outcome.
+   */
+  public synchronized void release() {
+    if (this.state == State.HALF_OPEN) {
+      this.probing = false;
+    }
+  }
+
+  @NotNull
+  public synchronized State state() {
+    return this.state;
+  }
+
+  public synchronized int calls() {
+    return this.calls;
+  }
+
+  public synchronized int failures() {
+    return this.failures;
+  }
+
+  private void open() {
+    this.state = State.OPEN;
+    this.openedAt = System.currentTimeMillis();
+  }
+
+  private void close() {
+    this.state = State.CLOSED;
+    this.calls = 0;
+    this.failures = 0;
+    this.index = 0;
+  }
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+}
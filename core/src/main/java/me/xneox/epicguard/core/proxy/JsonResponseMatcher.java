@@ -0,0 +1,156 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Matches the service's pattern against a single field of a JSON response.
+ * The response is parsed as a stream of tokens, without building the whole document.
+ * A complete response without the field (such as an error message) fails the request,
+ * so it is never stored as a negative verdict.
+ */
+public class JsonResponseMatcher extends ResponseMatcher {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  protected final Pattern pattern;
+  protected final String[] path;
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+
+  // Names of the fields containing the currently parsed object or array.
+  private final List<String> parents = new ArrayList<>();
+  private String currentField;
+  private byte[] buffer = new byte[0];
+  private boolean found;
+
+  /**
+   * @param pattern the pattern matched against the value of the field
+   * @param path names of the nested fields leading to the value, e.g. ["1.2.3.4", "proxy"]
+   * @param maxBytes maximum amount of bytes parsed
+   */
+  public JsonResponseMatcher(@NotNull Pattern pattern, @NotNull String[] path, int maxBytes) {
+    super(maxBytes);
+    this.pattern = pattern;
+    this.path = path;
+    try {
+      this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex); // can't happen, nothing is read here.
+    }
+    this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+  }
+
+  @Override
+  protected boolean accept(ByteBuffer input) throws IOException {
+    // The buffer can be reused, the parser has consumed all of the previous input.
+    int length = input.remaining();
+    if (this.buffer.length < length) {
+      this.buffer = new byte[length];
+    }
+    input.get(this.buffer, 0, length);
+
+    this.feeder.feedInput(this.buffer, 0, length);
+    return this.parse();
+  }
+
+  @Override
+  protected boolean finish(boolean truncated) throws IOException {
+    if (truncated) {
+      // Every complete value has been matched already, ending the input in the middle of
+      // the document would fail the parser, and the request would be counted as a failure.
+      return false;
+    }
+
+    this.feeder.endOfInput();
+    if (this.parse()) {
+      return true;
+    }
+
+    if (!this.isAnswered()) {
+      throw new IOException("The response doesn't contain the field " + String.join(".", this.path));
+    }
+    return false;
+  }
+
+  /**
+   * @return whenever the response has contained the value this matcher is looking for.
+   */
+  protected boolean isAnswered() {
+    return this.found;
+  }
+
+  private boolean parse() throws IOException {
+    JsonToken token;
+    while ((token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      switch (token) {
+        case START_OBJECT, START_ARRAY -> {
+          this.parents.add(this.currentField);
+          this.currentField = null;
+        }
+        case END_OBJECT, END_ARRAY -> {
+          this.parents.remove(this.parents.size() - 1);
+          this.currentField = null;
+        }
+        case FIELD_NAME -> this.currentField = this.parser.getCurrentName();
+        default -> {
+          if (this.value(this.parents, this.currentField, this.parser.getText())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Called for every scalar value of the response.
+   *
+   * @param parents names of the fields containing the value, the first one is the root (null)
+   * @param field name of the value's field, or null if it is an array element
+   * @param text textual representation of the value
+   * @return true if the response has been matched
+   */
+  protected boolean value(@NotNull List<String> parents, @Nullable String field, @NotNull String text) {
+    if (!this.isOnPath()) {
+      return false;
+    }
+
+    this.found = true;
+    return this.pattern.matcher(text).find();
+  }
+
+  // The first parent is the root object, which has no name.
+  private boolean isOnPath() {
+    int depth = this.parents.size() - 1;
+    if (depth != this.path.length - 1 || !this.path[depth].equals(this.currentField)) {
+      return false;
+    }
+    return this.parents.subList(1, this.parents.size()).equals(Arrays.asList(this.path).subList(0, depth));
+  }
+}
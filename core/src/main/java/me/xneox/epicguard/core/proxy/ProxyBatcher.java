@@ -0,0 +1,159 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.PluginConfiguration;
+import me.xneox.epicguard.core.util.AsyncHttpClient;
+import me.xneox.epicguard.core.util.LogUtils;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+/**
+ * Collects the lookups of a {@link ProxyService} supporting batch requests. The addresses are
+ * gathered for a short window (or until the batch is full), then checked with a single request.
+ * The request budget and the circuit breaker are charged once per batch.
+ */
+public class ProxyBatcher {
+  private final Supplier<PluginConfiguration.ProxyCheck> config;
+  private final Logger logger;
+  private final ProxyService service;
+  private final ServiceHealth health;
+  private final AsyncHttpClient httpClient;
+
+  // Guarded by this, the generation changes every time the batch is taken.
+  private Map<String, CompletableFuture<Boolean>> batch = new LinkedHashMap<>();
+  private long generation;
+
+  public ProxyBatcher(@NotNull EpicGuard epicGuard, @NotNull ProxyService service, @NotNull ServiceHealth health, @NotNull AsyncHttpClient httpClient) {
+    this(() -> epicGuard.config().proxyCheck(), epicGuard.logger(), service, health, httpClient);
+  }
+
+  ProxyBatcher(@NotNull Supplier<PluginConfiguration.ProxyCheck> config, @NotNull Logger logger, @NotNull ProxyService service,
+      @NotNull ServiceHealth health, @NotNull AsyncHttpClient httpClient) {
+    this.config = config;
+    this.logger = logger;
+    this.service = service;
+    this.health = health;
+    this.httpClient = httpClient;
+  }
+
+  /**
+   * Adds the address to the current batch. Cancelling the returned future removes the address
+   * from the batch, if it hasn't been sent yet.
+   *
+   * @return a future of the result, completed exceptionally if the service couldn't check the address
+   */
+  @NotNull
+  public CompletableFuture<Boolean> submit(@NotNull String address) {
+    var config = this.config.get();
+
+    CompletableFuture<Boolean> future;
+    Map<String, CompletableFuture<Boolean>> full = null;
+    synchronized (this) {
+      future = this.batch.get(address);
+      if (future == null || future.isDone()) { // a cancelled lookup is replaced by the new one.
+        future = new CompletableFuture<>();
+        this.batch.put(address, future);
+      }
+
+      if (this.batch.size() >= config.batchSize()) {
+        full = this.take();
+      } else if (this.batch.size() == 1) {
+        long current = this.generation;
+        CompletableFuture.delayedExecutor(config.batchWindow(), TimeUnit.MILLISECONDS).execute(() -> this.flush(current));
+      }
+    }
+
+    if (full != null) {
+      this.send(full);
+    }
+    return future;
+  }
+
+  // Sends the batch after the window has passed, unless it has been sent already because it was full.
+  private void flush(long expectedGeneration) {
+    Map<String, CompletableFuture<Boolean>> taken;
+    synchronized (this) {
+      if (this.generation != expectedGeneration || this.batch.isEmpty()) {
+        return;
+      }
+      taken = this.take();
+    }
+    this.send(taken);
+  }
+
+  private Map<String, CompletableFuture<Boolean>> take() {
+    var taken = this.batch;
+    this.batch = new LinkedHashMap<>();
+    this.generation++;
+    return taken;
+  }
+
+  // Sends the request and completes the futures of the batch, overridden in the tests.
+  void send(Map<String, CompletableFuture<Boolean>> entries) {
+    entries.values().removeIf(CompletableFuture::isDone); // cancelled while waiting.
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    if (!this.health.tryAcquire()) {
+      LogUtils.debug("Skipping the batch of " + entries.size() + " addresses for " + this.health.name() + " (" + this.health.breaker().state() + ")");
+      entries.values().forEach(future -> future.completeExceptionally(new IOException("The service is unavailable")));
+      return;
+    }
+
+    var addresses = String.join(",", entries.keySet());
+    var url = this.service.batchUrl().replace("{IPS}", addresses);
+    var body = this.service.batchBody() != null ? this.service.batchBody().replace("{IPS}", addresses) : null;
+
+    // The field is validated to contain {IP} when the service is loaded.
+    int maxBytes = (int) Math.min(Integer.MAX_VALUE, (long) this.config.get().maxResponseSize() * entries.size());
+    var matcher = new BatchResponseMatcher(this.service.matcher(), this.service.field().split("\\."), entries.keySet(), maxBytes);
+    LogUtils.debug("Sending batch request of " + entries.size() + " addresses to: " + url);
+
+    // Measured from the moment the request leaves the queue of the HTTP client.
+    var start = new AtomicLong();
+    this.httpClient.request(url, body, () -> matcher, () -> start.set(System.currentTimeMillis())).whenComplete((done, throwable) -> {
+      if (throwable != null) {
+        var cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        this.health.recordFailure(cause, System.currentTimeMillis() - start.get());
+        this.logger.warn("Couldn't read the content of the batch request to " + this.health.name() + " [" + cause + "]");
+        entries.values().forEach(future -> future.completeExceptionally(cause));
+        return;
+      }
+
+      this.health.recordSuccess(System.currentTimeMillis() - start.get());
+      var results = matcher.results();
+      LogUtils.debug("Received batch response from " + this.health.name() + ", results: " + results.size() + "/" + entries.size());
+      entries.forEach((address, future) -> {
+        var matched = results.get(address);
+        if (matched != null) {
+          future.complete(matched);
+        } else {
+          future.completeExceptionally(new IOException("The response doesn't contain " + address));
+        }
+      });
+    });
+  }
+}
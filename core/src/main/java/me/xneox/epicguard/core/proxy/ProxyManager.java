@@ -17,47 +17,372 @@ package me.xneox.epicguard.core.proxy;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.config.PluginConfiguration;
+import me.xneox.epicguard.core.util.AddressKey;
+import me.xneox.epicguard.core.util.AsyncHttpClient;
 import me.xneox.epicguard.core.util.LogUtils;
-import me.xneox.epicguard.core.util.URLUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Performs requests to the registered ProxyServices and caches the results.
  */
 public class ProxyManager {
   private final EpicGuard epicGuard;
-  private final Cache<String, Boolean> resultCache;
+  private volatile Cache<AddressKey, ProxyVerdict> resultCache;
+  private volatile AsyncHttpClient httpClient;
+  private final Map<String, CompletableFuture<Boolean>> pendingLookups = new ConcurrentHashMap<>();
+  private final Map<String, ProxyVerdict> unsavedVerdicts = new ConcurrentHashMap<>();
+  private final Map<String, ServiceHealth> serviceHealth = new ConcurrentHashMap<>();
+  private final Map<String, ProxyBatcher> batchers = new ConcurrentHashMap<>();
 
   public ProxyManager(EpicGuard epicGuard) {
     this.epicGuard = epicGuard;
-    this.resultCache = CacheBuilder.newBuilder()
-        .expireAfterWrite(epicGuard.config().proxyCheck().cacheDuration(), TimeUnit.SECONDS)
+    var config = epicGuard.config().proxyCheck();
+    this.resultCache = createCache(config);
+    this.httpClient = createHttpClient(config);
+  }
+
+  /**
+   * Applies the reloaded configuration. The cache and the HTTP client are replaced only if their
+   * settings have changed, the cached verdicts are moved to the new cache. Requests in progress
+   * finish on the previous client.
+   *
+   * @param previous the proxy-check section of the previous configuration
+   */
+  public void reload(@NotNull PluginConfiguration.ProxyCheck previous) {
+    var config = this.epicGuard.config().proxyCheck();
+    if (config.maxCacheSize() != previous.maxCacheSize()
+        || config.positiveCacheDuration() != previous.positiveCacheDuration()
+        || config.negativeCacheDuration() != previous.negativeCacheDuration()) {
+      var cache = createCache(config);
+      cache.putAll(this.resultCache.asMap());
+      this.resultCache = cache;
+    }
+
+    if (config.maxConcurrentRequests() != previous.maxConcurrentRequests() || config.maxResponseSize() != previous.maxResponseSize()) {
+      this.httpClient = createHttpClient(config);
+    }
+
+    if (config.rateLimit() != previous.rateLimit()
+        || config.breakerThreshold() != previous.breakerThreshold()
+        || config.breakerOpenDuration() != previous.breakerOpenDuration()
+        || config.lookupTimeout() != previous.lookupTimeout()) {
+      this.serviceHealth.clear();
+    }
+
+    // Batchers keep the service definition and the client, new ones are created for the next lookups.
+    this.batchers.clear();
+  }
+
+  // Verdicts have their own expiration time, this only makes sure they are removed from memory.
+  private static Cache<AddressKey, ProxyVerdict> createCache(PluginConfiguration.ProxyCheck config) {
+    return CacheBuilder.newBuilder()
+        .maximumSize(config.maxCacheSize())
+        .expireAfterWrite(Math.max(config.positiveCacheDuration(), config.negativeCacheDuration()), TimeUnit.SECONDS)
+        .recordStats()
         .build();
   }
 
+  private static AsyncHttpClient createHttpClient(PluginConfiguration.ProxyCheck config) {
+    return new AsyncHttpClient(Duration.ofSeconds(5L), config.maxConcurrentRequests(), config.maxResponseSize());
+  }
+
   /**
-   * This method reads the response from all the registered ProxyServices until the detection is positive.
+   * This method queries all the registered ProxyServices until the detection is positive.
    * If the result is present in cache, the value from the cache will be returned instead.
+   * Blocks the current thread until the result is known, see {@link #isProxyAsync(String)}.
    *
    * @param address The checked IP address.
    * @return Whenever the address is detected to be a proxy or not.
    */
   public boolean isProxy(@NotNull String address) {
-    return this.resultCache.asMap().computeIfAbsent(address, userIp -> {
-      for (ProxyService service : this.epicGuard.config().proxyCheck().services()) {
-        String url = service.url().replace("{IP}", userIp);
-        LogUtils.debug("Sending request to: " + url);
+    return this.isProxyAsync(address).join();
+  }
 
-        String response = URLUtils.readString(url);
-        LogUtils.debug("Received response: " + response);
+  /**
+   * Non-blocking variant of {@link #isProxy(String)}. The returned future never completes exceptionally,
+   * if no service could respond, the configured fail policy decides the result. Concurrent lookups
+   * of the same address share a single request, and the result is cached only after it is known.
+   *
+   * @param address The checked IP address.
+   * @return A future of the detection result.
+   */
+  @NotNull
+  public CompletableFuture<Boolean> isProxyAsync(@NotNull String address) {
+    var key = AddressKey.parse(address);
+    var cached = this.cachedVerdict(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    var lookup = new CompletableFuture<Boolean>();
+    var pending = this.pendingLookups.putIfAbsent(address, lookup);
+    if (pending != null) {
+      return pending.copy(); // callers must not be able to complete the shared future.
+    }
+
+    // The previous lookup might have finished between reading the cache and registering this one.
+    cached = this.cachedVerdict(key);
+    if (cached != null) {
+      this.pendingLookups.remove(address, lookup);
+      lookup.complete(cached);
+      return lookup.copy();
+    }
+
+    this.query(address).whenComplete((result, throwable) -> {
+      boolean proxy;
+      if (result != null) {
+        proxy = result;
+        this.storeVerdict(address, key, proxy);
+      } else {
+        // No service has responded, the result is not cached so the next lookup will try again.
+        proxy = this.epicGuard.config().proxyCheck().failClosed();
+        LogUtils.debug("No proxy service has responded for " + address + ", using the fail policy: " + proxy);
+      }
+      this.pendingLookups.remove(address, lookup);
+      lookup.complete(proxy);
+    });
+    return lookup.copy();
+  }
+
+  /**
+   * Restores a verdict loaded from the database. Verdicts obtained in the meantime are not replaced.
+   */
+  public void restoreVerdict(@NotNull String address, @NotNull ProxyVerdict verdict) {
+    var key = AddressKey.parse(address);
+    if (key != null && !verdict.isExpired(System.currentTimeMillis())) {
+      this.resultCache.asMap().putIfAbsent(key, verdict);
+      this.shareVerdict(key, verdict);
+    }
+  }
+
+  /**
+   * Returns the verdicts which have not been saved in the database yet.
+   * After saving, they should be removed using {@code remove(address, verdict)}.
+   */
+  @NotNull
+  public Map<String, ProxyVerdict> unsavedVerdicts() {
+    return this.unsavedVerdicts;
+  }
+
+  /**
+   * @return a snapshot of the result cache's statistics.
+   */
+  @NotNull
+  public CacheStats cacheStats() {
+    return this.resultCache.stats();
+  }
+
+  public long cacheSize() {
+    return this.resultCache.size();
+  }
+
+  /**
+   * Checks the verdict of the exact address first, then a positive verdict shared by its network.
+   */
+  @Nullable
+  private Boolean cachedVerdict(@Nullable AddressKey key) {
+    if (key == null) {
+      return null;
+    }
+
+    var verdict = this.validVerdict(key);
+    if (verdict == null) {
+      int prefix = this.sharedPrefix(key);
+      if (prefix < key.bits()) {
+        verdict = this.validVerdict(key.mask(prefix));
+      }
+    }
+    return verdict != null ? verdict.proxy() : null;
+  }
 
-        if (response != null && service.matcher().matcher(response).find()) {
-          return true;
+  @Nullable
+  private ProxyVerdict validVerdict(AddressKey key) {
+    var verdict = this.resultCache.getIfPresent(key);
+    if (verdict != null && verdict.isExpired(System.currentTimeMillis())) {
+      this.resultCache.asMap().remove(key, verdict);
+      return null;
+    }
+    return verdict;
+  }
+
+  private void storeVerdict(String address, @Nullable AddressKey key, boolean proxy) {
+    var config = this.epicGuard.config().proxyCheck();
+    long duration = TimeUnit.SECONDS.toMillis(proxy ? config.positiveCacheDuration() : config.negativeCacheDuration());
+    var verdict = new ProxyVerdict(proxy, System.currentTimeMillis() + duration);
+
+    if (key != null) {
+      this.resultCache.put(key, verdict);
+      this.shareVerdict(key, verdict);
+    }
+    if (config.persistentCache()) {
+      this.unsavedVerdicts.put(address, verdict);
+    }
+  }
+
+  // Positive verdicts can be shared with the whole network of the address, if configured.
+  private void shareVerdict(AddressKey key, ProxyVerdict verdict) {
+    int prefix = this.sharedPrefix(key);
+    if (verdict.proxy() && prefix < key.bits()) {
+      this.resultCache.put(key.mask(prefix), verdict);
+    }
+  }
+
+  // Returns the configured prefix length of the shared networks, or the full address length if disabled.
+  private int sharedPrefix(AddressKey key) {
+    var config = this.epicGuard.config().proxyCheck();
+    int prefix = key.ipv6() ? config.sharedPrefixIPv6() : config.sharedPrefixIPv4();
+    return prefix > 0 ? Math.min(prefix, key.bits()) : key.bits();
+  }
+
+  /**
+   * Returns the request budget and circuit breaker of the specified service.
+   */
+  @NotNull
+  public ServiceHealth health(@NotNull ProxyService service) {
+    return this.serviceHealth.computeIfAbsent(service.url(), url -> {
+      var config = this.epicGuard.config().proxyCheck();
+      return new ServiceHealth(service,
+          new TokenBucket(config.rateLimit()),
+          new CircuitBreaker(config.breakerThreshold(), TimeUnit.SECONDS.toMillis(config.breakerOpenDuration()), config.lookupTimeout()));
+    });
+  }
+
+  /**
+   * Queries all available services at the same time. The first positive response wins,
+   * and the requests which are still in progress are cancelled. Services which are over
+   * their budget, or have an open circuit breaker, are skipped. Services supporting batch
+   * requests check the address together with other lookups in progress.
+   *
+   * @return a future of the result, completed with null if no service has responded successfully.
+   */
+  private CompletableFuture<Boolean> query(String address) {
+    var config = this.epicGuard.config().proxyCheck();
+    var services = config.services();
+    if (services.isEmpty()) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    var result = new CompletableFuture<Boolean>();
+    var requests = new ArrayList<CompletableFuture<Boolean>>(services.size());
+    var remaining = new AtomicInteger(services.size());
+    var answered = new AtomicBoolean();
+
+    Runnable completeIfDone = () -> {
+      if (remaining.decrementAndGet() == 0) {
+        result.complete(answered.get() ? Boolean.FALSE : null);
+      }
+    };
+
+    for (ProxyService service : services) {
+      var request = service.batched() ? this.batcher(service).submit(address) : this.request(service, address);
+      if (request == null) {
+        completeIfDone.run(); // the service has been skipped.
+        continue;
+      }
+
+      requests.add(request);
+      request.whenComplete((matched, throwable) -> {
+        if (throwable == null) {
+          answered.set(true);
+        }
+
+        if (matched != null && matched) {
+          result.complete(true);
+        } else {
+          completeIfDone.run();
         }
+      });
+    }
+
+    // Don't wait for the slow services longer than the configured deadline. The requests still
+    // in progress are failed with a timeout, so they are recorded as failures by the circuit breakers.
+    CompletableFuture.delayedExecutor(config.lookupTimeout(), TimeUnit.MILLISECONDS).execute(() -> {
+      if (!result.isDone()) {
+        var timeout = new TimeoutException("The lookup deadline of " + config.lookupTimeout() + "ms has passed");
+        requests.forEach(request -> request.completeExceptionally(timeout));
+        result.complete(answered.get() ? Boolean.FALSE : null);
       }
-      return false;
     });
+
+    // Registered after all requests are started, so none of them is missed.
+    // Requests which are still in progress here are not needed anymore, another service has responded first.
+    result.thenRun(() -> requests.forEach(request -> request.cancel(true)));
+    return result;
+  }
+
+  /**
+   * Sends a single request to the service, and records its outcome in the circuit breaker.
+   *
+   * @return a future of the result, or null if the service has been skipped
+   */
+  @Nullable
+  private CompletableFuture<Boolean> request(ProxyService service, String address) {
+    var health = this.health(service);
+    if (!health.tryAcquire()) {
+      LogUtils.debug("Skipping the proxy service " + health.name() + " (" + health.breaker().state() + ")");
+      return null;
+    }
+
+    String url = service.url().replace("{IP}", address);
+    LogUtils.debug("Sending request to: " + url);
+
+    // Measured from the moment the request leaves the queue, the time spent waiting for our own limiter is not the service's latency.
+    var start = new AtomicLong();
+    var request = this.httpClient.request(url, null, () -> this.matcher(service, address), () -> start.set(System.currentTimeMillis()));
+    request.whenComplete((matched, throwable) -> {
+      if (throwable != null) {
+        var cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof CancellationException || start.get() == 0L) {
+          health.breaker().release(); // not a failure, another service has responded first, or it hasn't been sent at all.
+        } else if (cause instanceof TimeoutException) {
+          health.breaker().record(false, this.epicGuard.config().proxyCheck().lookupTimeout());
+          LogUtils.debug("The proxy service " + health.name() + " hasn't responded before the lookup deadline.");
+        } else {
+          // Including unsuccessful status codes (HttpStatusException), such as 429 or 5xx. The error page is never
+          // matched, so the service doesn't count as answered and no verdict is stored for this lookup.
+          health.recordFailure(cause, System.currentTimeMillis() - start.get());
+          this.epicGuard.logger().warn("Couldn't read the content of " + url + " [" + cause + "]");
+        }
+      } else {
+        health.recordSuccess(System.currentTimeMillis() - start.get());
+        LogUtils.debug("Received response from " + health.name() + ", matched: " + matched);
+      }
+    });
+    return request;
+  }
+
+  // Lookups of the services supporting batch requests are collected by a shared batcher.
+  private ProxyBatcher batcher(ProxyService service) {
+    return this.batchers.computeIfAbsent(service.url(), url -> new ProxyBatcher(this.epicGuard, service, this.health(service), this.httpClient));
+  }
+
+  // Creates the matcher processing the response of the service while it is received.
+  private ResponseMatcher matcher(ProxyService service, String address) {
+    int maxBytes = this.epicGuard.config().proxyCheck().maxResponseSize();
+    if (service.field() == null) {
+      return new RegexResponseMatcher(service.matcher(), maxBytes);
+    }
+
+    var path = service.field().split("\\.");
+    for (int i = 0; i < path.length; i++) {
+      path[i] = path[i].replace("{IP}", address); // replaced after splitting, IPv4 addresses contain dots.
+    }
+    return new JsonResponseMatcher(service.matcher(), path, maxBytes);
   }
 }
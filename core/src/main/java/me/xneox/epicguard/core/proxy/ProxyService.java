@@ -17,9 +17,31 @@ package me.xneox.epicguard.core.proxy;
 
 import java.util.regex.Pattern;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents a service used for proxy detection.
+ *
+ * @param url the requested URL, {IP} is replaced with the checked address
+ * @param matcher the pattern searched in the response
+ * @param field optional path of the JSON field the pattern is matched against, e.g. "{IP}.proxy"
+ * @param batchUrl optional URL checking many addresses at once, {IPS} is replaced with the comma-separated addresses
+ * @param batchBody optional form body of the batch request, sent as POST if present, e.g. "ips={IPS}"
  */
-public record ProxyService(@NotNull String url, @NotNull Pattern matcher) {
+public record ProxyService(@NotNull String url, @NotNull Pattern matcher, @Nullable String field,
+                           @Nullable String batchUrl, @Nullable String batchBody) {
+  public ProxyService(@NotNull String url, @NotNull Pattern matcher, @Nullable String field) {
+    this(url, matcher, field, null, null);
+  }
+
+  public ProxyService(@NotNull String url, @NotNull Pattern matcher) {
+    this(url, matcher, null);
+  }
+
+  /**
+   * @return whenever lookups of this service can be sent in batches.
+   */
+  public boolean batched() {
+    return this.batchUrl != null;
+  }
 }
@@ -16,6 +16,7 @@
 package me.xneox.epicguard.core.proxy;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.configurate.ConfigurationNode;
@@ -39,7 +40,16 @@ public class ProxyServiceSerializer implements TypeSerializer<ProxyService> {
     if (url == null || matcher == null) {
       throw new SerializationException("Invalid proxy-services configuration.");
     }
-    return new ProxyService(url, Pattern.compile(matcher));
+
+    String field = emptyToNull(node.node("field").getString());
+    String batchUrl = emptyToNull(node.node("batch-url").getString());
+    String batchBody = emptyToNull(node.node("batch-body").getString());
+
+    // Results of a batch request are assigned to the addresses by the field path.
+    if (batchUrl != null && (field == null || !Arrays.asList(field.split("\\.")).contains("{IP}"))) {
+      throw new SerializationException("Batch mode of the proxy service " + url + " requires a field containing the {IP} key, e.g. {IP}.proxy");
+    }
+    return new ProxyService(url, Pattern.compile(matcher), field, batchUrl, batchBody);
   }
 
   @Override
@@ -51,5 +61,18 @@ public class ProxyServiceSerializer implements TypeSerializer<ProxyService> {
 
     target.node("url").set(service.url());
     target.node("matcher").set(service.matcher().pattern());
+    if (service.field() != null) {
+      target.node("field").set(service.field());
+    }
+    if (service.batchUrl() != null) {
+      target.node("batch-url").set(service.batchUrl());
+    }
+    if (service.batchBody() != null) {
+      target.node("batch-body").set(service.batchBody());
+    }
+  }
+
+  private static String emptyToNull(@Nullable String value) {
+    return value == null || value.isBlank() ? null : value;
   }
 }
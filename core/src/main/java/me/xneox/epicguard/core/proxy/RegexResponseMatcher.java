@@ -0,0 +1,89 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Searches the response for the service's pattern. The pattern is matched against the whole
+ * received body (which is bounded by the maximum response size), so anchored patterns like
+ * {@code ^yes$} behave the same as on a fully read response. Reading stops before the end
+ * of the response only if the rest of it can't change the result.
+ */
+public class RegexResponseMatcher extends ResponseMatcher {
+  private final Pattern pattern;
+  private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final CharBuffer chars = CharBuffer.allocate(2048);
+  private final StringBuilder body = new StringBuilder();
+
+  // Bytes of a character split between two parts of the response.
+  private ByteBuffer leftover;
+
+  public RegexResponseMatcher(@NotNull Pattern pattern, int maxBytes) {
+    super(maxBytes);
+    this.pattern = pattern;
+  }
+
+  @Override
+  protected boolean accept(ByteBuffer input) {
+    if (this.leftover != null) {
+      var joined = ByteBuffer.allocate(this.leftover.remaining() + input.remaining());
+      input = joined.put(this.leftover).put(input).flip();
+      this.leftover = null;
+    }
+
+    this.decode(input, false);
+    if (input.hasRemaining()) {
+      this.leftover = ByteBuffer.allocate(input.remaining()).put(input).flip();
+    }
+
+    // A match which hasn't reached the end of the received part can't be changed by the rest of the response.
+    var matcher = this.pattern.matcher(this.body);
+    return matcher.find() && !matcher.hitEnd();
+  }
+
+  @Override
+  protected boolean finish(boolean truncated) {
+    this.decode(this.leftover != null ? this.leftover : ByteBuffer.allocate(0), true);
+    while (this.decoder.flush(this.chars) == CoderResult.OVERFLOW) {
+      this.drain();
+    }
+    this.drain();
+    return this.pattern.matcher(this.body).find();
+  }
+
+  private void decode(ByteBuffer input, boolean endOfInput) {
+    while (this.decoder.decode(input, this.chars, endOfInput) == CoderResult.OVERFLOW) {
+      this.drain();
+    }
+    this.drain();
+  }
+
+  // Moves the decoded characters to the body.
+  private void drain() {
+    this.chars.flip();
+    this.body.append(this.chars);
+    this.chars.clear();
+  }
+}
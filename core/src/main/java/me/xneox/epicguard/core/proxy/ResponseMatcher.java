@@ -0,0 +1,114 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Evaluates the response of a {@link ProxyService} while it is being received, without
+ * storing the whole body. The response is read until the first match, or until
+ * the byte limit is reached, then the rest of the body is discarded.
+ */
+public abstract class ResponseMatcher implements HttpResponse.BodySubscriber<Boolean> {
+  private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+  private final int maxBytes;
+
+  private Flow.Subscription subscription;
+  private int readBytes;
+
+  protected ResponseMatcher(int maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Processes the next part of the response body.
+   *
+   * @param input the received bytes, can't be used after this method returns
+   * @return true if the response has been matched
+   */
+  protected abstract boolean accept(ByteBuffer input) throws IOException;
+
+  /**
+   * Called after the last part of the response (or the last byte within the limit) has been processed.
+   *
+   * @param truncated whenever the response has been cut at the byte limit, so the processed input may be incomplete
+   * @return true if the response has been matched
+   */
+  protected abstract boolean finish(boolean truncated) throws IOException;
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(1L);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> items) {
+    try {
+      for (ByteBuffer item : items) {
+        int length = Math.min(item.remaining(), this.maxBytes - this.readBytes);
+        this.readBytes += length;
+
+        if (this.accept(item.slice().limit(length))) {
+          this.complete(true);
+          return;
+        }
+
+        if (this.readBytes >= this.maxBytes) {
+          this.complete(this.finish(true));
+          return;
+        }
+      }
+      this.subscription.request(1L);
+    } catch (IOException ex) {
+      this.subscription.cancel();
+      this.result.completeExceptionally(ex);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    this.result.completeExceptionally(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    if (!this.result.isDone()) {
+      try {
+        this.result.complete(this.finish(false));
+      } catch (IOException ex) {
+        this.result.completeExceptionally(ex);
+      }
+    }
+  }
+
+  @Override
+  public CompletionStage<Boolean> getBody() {
+    return this.result;
+  }
+
+  // Completes the result before the whole body is received, the rest of it is not needed.
+  private void complete(boolean matched) {
+    this.subscription.cancel();
+    this.result.complete(matched);
+  }
+}
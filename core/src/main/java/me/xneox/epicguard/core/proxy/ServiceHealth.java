@@ -0,0 +1,101 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import java.net.URI;
+import me.xneox.epicguard.core.util.HttpStatusException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Request budget and circuit breaker of a single {@link ProxyService}.
+ */
+public class ServiceHealth {
+  private final String name;
+  private final TokenBucket budget;
+  private final CircuitBreaker breaker;
+
+  public ServiceHealth(@NotNull ProxyService service, @NotNull TokenBucket budget, @NotNull CircuitBreaker breaker) {
+    this.name = hostName(service.url());
+    this.budget = budget;
+    this.breaker = breaker;
+  }
+
+  /**
+   * Checks if a request can be sent to this service right now.
+   *
+   * @return false if the service is over its budget, or the breaker doesn't allow the request
+   */
+  public boolean tryAcquire() {
+    // The budget is spent only on the requests admitted by the breaker.
+    if (!this.breaker.tryAcquire()) {
+      return false;
+    }
+
+    if (!this.budget.tryAcquire()) {
+      this.breaker.release();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Records a successful response to a request allowed by {@link #tryAcquire()}.
+   *
+   * @param duration duration of the request in milliseconds
+   */
+  public void recordSuccess(long duration) {
+    this.breaker.record(true, duration);
+  }
+
+  /**
+   * Records a failed request allowed by {@link #tryAcquire()}. Unsuccessful status codes (such as 5xx)
+   * are failures like any other, but if the service is rate limiting us (429), the budget is drained
+   * and the breaker opens immediately, so no requests are sent until the service recovers.
+   *
+   * @param cause the failure of the request
+   * @param duration duration of the request in milliseconds
+   */
+  public void recordFailure(@NotNull Throwable cause, long duration) {
+    if (cause instanceof HttpStatusException status && status.isRateLimited()) {
+      this.budget.drain();
+      this.breaker.trip();
+      return;
+    }
+    this.breaker.record(false, duration);
+  }
+
+  /**
+   * @return host of the service, without the rest of the URL which may contain an API key.
+   */
+  @NotNull
+  public String name() {
+    return this.name;
+  }
+
+  @NotNull
+  public CircuitBreaker breaker() {
+    return this.breaker;
+  }
+
+  private static String hostName(String url) {
+    try {
+      var host = URI.create(url.replace("{IP}", "0.0.0.0")).getHost();
+      return host != null ? host : "unknown";
+    } catch (IllegalArgumentException ex) {
+      return "unknown";
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.proxy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simple token bucket. Tokens are refilled continuously, up to the capacity of the bucket.
+ */
+public class TokenBucket {
+  private final double capacity;
+  private final double tokensPerNano;
+
+  private double tokens;
+  private long lastRefill = System.nanoTime();
+
+  /**
+   * @param tokensPerSecond how many tokens are refilled every second, also the capacity of the bucket
+   */
+  public TokenBucket(double tokensPerSecond) {
+    this.capacity = Math.max(1.0D, tokensPerSecond);
+    this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1L);
+    this.tokens = this.capacity;
+  }
+
+  /**
+   * Takes a single token from the bucket.
+   *
+   * @return true if there was a token available
+   */
+  public synchronized boolean tryAcquire() {
+    long now = System.nanoTime();
+    this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+    this.lastRefill = now;
+
+    if (this.tokens < 1.0D) {
+      return false;
+    }
+    this.tokens--;
+    return true;
+  }
+
+  /**
+   * Takes all tokens from the bucket, the next one will be available after the regular refill time.
+   */
+  public synchronized void drain() {
+    this.tokens = 0.0D;
+    this.lastRefill = System.nanoTime();
+  }
+}
@@ -16,60 +16,50 @@
 package me.xneox.epicguard.core.storage;
 
 import java.util.List;
-import java.util.Objects;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * AddressMeta holds information about an IP address.
  * All known AddressMeta's are stored in the database and cached in the {@link StorageManager}
+ *
+ * This is an immutable value, it can be read by any thread without locking.
+ * Changes are made by replacing the value with {@link StorageManager#update(String, java.util.function.UnaryOperator)}.
+ *
+ * @param blacklisted whenever this address is blacklisted
+ * @param whitelisted whenever this address is whitelisted
+ * @param nicknames an immutable list of nicknames used by this address
  */
-public class AddressMeta {
-  private final List<String> nicknames;
-  private boolean blacklisted;
-  private boolean whitelisted;
-
-  public AddressMeta(boolean blacklisted, boolean whitelisted, @NotNull List<String> nicknames) {
-    this.blacklisted = blacklisted;
-    this.whitelisted = whitelisted;
-    this.nicknames = nicknames;
-  }
-
-  public boolean blacklisted() {
-    return this.blacklisted;
-  }
+public record AddressMeta(boolean blacklisted, boolean whitelisted, @NotNull List<String> nicknames) {
+  /**
+   * An unknown address, which has no nicknames and is not whitelisted nor blacklisted.
+   */
+  public static final AddressMeta EMPTY = new AddressMeta(false, false, List.of());
 
-  public void blacklisted(boolean blacklisted) {
-    this.blacklisted = blacklisted;
+  public AddressMeta {
+    nicknames = List.copyOf(nicknames); // doesn't copy if the list is already immutable.
   }
 
-  public boolean whitelisted() {
-    return this.whitelisted;
-  }
-
-  public void whitelisted(boolean whitelisted) {
-    this.whitelisted = whitelisted;
+  @NotNull
+  public AddressMeta withBlacklisted(boolean blacklisted) {
+    return blacklisted == this.blacklisted ? this : new AddressMeta(blacklisted, this.whitelisted, this.nicknames);
   }
 
   @NotNull
-  public List<String> nicknames() {
-    return this.nicknames;
+  public AddressMeta withWhitelisted(boolean whitelisted) {
+    return whitelisted == this.whitelisted ? this : new AddressMeta(this.blacklisted, whitelisted, this.nicknames);
   }
 
-  @Override
-  public boolean equals(Object o) {
-    if (this == o) {
-      return true;
-    }
-    if (o == null || getClass() != o.getClass()) {
-      return false;
+  /**
+   * @return a copy of this meta with the nickname added, or this meta if it already contains the nickname.
+   */
+  @NotNull
+  public AddressMeta withNickname(@NotNull String nickname) {
+    if (this.nicknames.contains(nickname)) {
+      return this;
     }
-    AddressMeta that = (AddressMeta) o;
-    return blacklisted == that.blacklisted && whitelisted == that.whitelisted
-        && Objects.equals(nicknames, that.nicknames);
-  }
 
-  @Override
-  public int hashCode() {
-    return Objects.hash(nicknames, blacklisted, whitelisted);
+    var nicknames = this.nicknames.toArray(new String[this.nicknames.size() + 1]);
+    nicknames[nicknames.length - 1] = nickname;
+    return new AddressMeta(this.blacklisted, this.whitelisted, List.of(nicknames));
   }
 }
@@ -6,14 +6,17 @@ import java.io.File;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import me.xneox.epicguard.core.EpicGuard;
+import me.xneox.epicguard.core.proxy.ProxyVerdict;
 import me.xneox.epicguard.core.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
 
 public class Database {
   private final EpicGuard core;
   private HikariDataSource source;
+  private long savedVersion;
 
   public Database(@NotNull EpicGuard core) {
     this.core = core;
@@ -62,6 +65,15 @@ public class Database {
       statement.executeUpdate();
     }
 
+    try (var connection = this.source.getConnection(); var statement = connection.prepareStatement(
+        "CREATE TABLE IF NOT EXISTS epicguard_proxy_verdicts("
+        + "`address` VARCHAR(255) NOT NULL PRIMARY KEY, "
+        + "`proxy` BOOLEAN NOT NULL, "
+        + "`expires` BIGINT NOT NULL"
+        + ")")) {
+      statement.executeUpdate();
+    }
+
     try (var connection = this.source.getConnection(); var statement = connection.prepareStatement("SELECT * FROM epicguard_addresses");
         var rs = statement.executeQuery()) {
 
@@ -69,31 +81,93 @@ public class Database {
         var meta = new AddressMeta(
             rs.getBoolean("blacklisted"),
             rs.getBoolean("whitelisted"),
-            new ArrayList<>(Arrays.asList(rs.getString("nicknames").split(","))));
+            Arrays.asList(rs.getString("nicknames").split(",")));
 
         this.core.storageManager().addresses().put(rs.getString("address"), meta);
       }
     }
   }
 
-  // Saving cached addresses to the database.
+  // Reading proxy verdicts which haven't expired yet. Can be called in the background after load().
+  public void loadProxyVerdicts() throws SQLException {
+    try (var connection = this.source.getConnection(); var statement = connection.prepareStatement(
+        "SELECT * FROM epicguard_proxy_verdicts WHERE expires > ?")) {
+
+      statement.setLong(1, System.currentTimeMillis());
+      try (var rs = statement.executeQuery()) {
+        while (rs.next()) {
+          this.core.proxyManager().restoreVerdict(rs.getString("address"), new ProxyVerdict(rs.getBoolean("proxy"), rs.getLong("expires")));
+        }
+      }
+    }
+  }
+
+  // Saving the addresses changed since the last save in a single batch.
   public void save() throws SQLException {
-    for (Map.Entry<String, AddressMeta> entry : this.core.storageManager().addresses().entrySet()) {
-      var meta = entry.getValue();
+    this.saveProxyVerdicts();
 
-      try (var connection = this.source.getConnection(); var statement = connection.prepareStatement(
-          "REPLACE INTO"
-          + " epicguard_addresses(address, blacklisted, whitelisted, nicknames)"
-          + " VALUES(?, ?, ?, ?)")) {
+    var storage = this.core.storageManager();
+    long version = storage.version();
+    if (version == this.savedVersion) {
+      return; // nothing has changed.
+    }
 
-        statement.setString(1, entry.getKey());
+    try (var connection = this.source.getConnection(); var statement = connection.prepareStatement(
+        "REPLACE INTO"
+        + " epicguard_addresses(address, blacklisted, whitelisted, nicknames)"
+        + " VALUES(?, ?, ?, ?)")) {
+
+      var saved = new ArrayList<String>();
+      for (String address : storage.dirtyAddresses()) {
+        // Removed before reading the value, so the changes made in the meantime will be saved next time.
+        storage.dirtyAddresses().remove(address);
+        saved.add(address);
+
+        var meta = storage.addressMeta(address);
+        statement.setString(1, address);
         statement.setBoolean(2, meta.blacklisted());
         statement.setBoolean(3, meta.whitelisted());
         statement.setString(4, String.join(",", meta.nicknames()));
+        statement.addBatch();
+      }
 
+      try {
+        statement.executeBatch();
+      } catch (SQLException ex) {
+        storage.dirtyAddresses().addAll(saved); // try again next time.
+        throw ex;
+      }
+    }
+    this.savedVersion = version;
+  }
+
+  // Saving new proxy verdicts in a single batch, and removing the ones that have expired since the last save.
+  private void saveProxyVerdicts() throws SQLException {
+    var unsaved = new HashMap<>(this.core.proxyManager().unsavedVerdicts());
+
+    try (var connection = this.source.getConnection()) {
+      if (!unsaved.isEmpty()) {
+        try (var statement = connection.prepareStatement(
+            "REPLACE INTO epicguard_proxy_verdicts(address, proxy, expires) VALUES(?, ?, ?)")) {
+
+          for (Map.Entry<String, ProxyVerdict> entry : unsaved.entrySet()) {
+            statement.setString(1, entry.getKey());
+            statement.setBoolean(2, entry.getValue().proxy());
+            statement.setLong(3, entry.getValue().expiresAt());
+            statement.addBatch();
+          }
+          statement.executeBatch();
+        }
+      }
+
+      try (var statement = connection.prepareStatement("DELETE FROM epicguard_proxy_verdicts WHERE expires <= ?")) {
+        statement.setLong(1, System.currentTimeMillis());
         statement.executeUpdate();
       }
     }
+
+    // Verdicts updated while saving stay in the map, and will be saved next time.
+    unsaved.forEach(this.core.proxyManager().unsavedVerdicts()::remove);
   }
 
   // Shut down the Hikari connection pool.
@@ -15,17 +15,23 @@
 
 package me.xneox.epicguard.core.storage;
 
+import com.google.common.hash.Funnel;
 import com.google.common.net.InetAddresses;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.user.ConnectingUser;
+import me.xneox.epicguard.core.util.AddressKey;
 import me.xneox.epicguard.core.util.LogUtils;
+import me.xneox.epicguard.core.util.RotatingBloomFilter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -33,12 +39,24 @@ import org.jetbrains.annotations.Nullable;
  * This class caches all known {@link AddressMeta}'s and performs various operations on them.
  */
 public class StorageManager {
+  // IPv4-mapped addresses are parsed as IPv4, so both forms are the same value in the filter.
+  @SuppressWarnings("UnstableApiUsage")
+  private static final Funnel<AddressKey> ADDRESS_FUNNEL = (key, into) -> into.putLong(key.high()).putLong(key.low()).putBoolean(key.ipv6());
+
   private final Map<String, AddressMeta> addresses = new ConcurrentHashMap<>();
-  private final Collection<String> pingCache = new HashSet<>();
+  private final Set<String> dirtyAddresses = ConcurrentHashMap.newKeySet();
+  private final AtomicLong version = new AtomicLong();
+  private final RotatingBloomFilter<AddressKey> pingCache;
   private final Database database;
 
   public StorageManager(EpicGuard epicGuard) {
-    this.database = new Database(epicGuard);
+    this(new Database(epicGuard), new RotatingBloomFilter<>(ADDRESS_FUNNEL, epicGuard.config().serverListCheck().expectedPings(),
+        epicGuard.config().serverListCheck().falsePositiveRate(), TimeUnit.SECONDS.toMillis(epicGuard.config().serverListCheck().pingWindow())));
+  }
+
+  StorageManager(@NotNull Database database, @NotNull RotatingBloomFilter<AddressKey> pingCache) {
+    this.database = database;
+    this.pingCache = pingCache;
   }
 
   public void setupDatabase() {
@@ -47,33 +65,76 @@ public class StorageManager {
       this.database.load();
     } catch (Exception exception) {
       LogUtils.catchException("Could not connect to the database. Check if your connection is configured correctly.", exception);
+      return;
     }
+
+    // Proxy verdicts are not needed immediately, so they are loaded in the background.
+    CompletableFuture.runAsync(() -> {
+      try {
+        this.database.loadProxyVerdicts();
+      } catch (SQLException exception) {
+        LogUtils.catchException("Could not load the proxy verdicts from the database.", exception);
+      }
+    });
   }
 
   /**
-   * Returns an {@link AddressMeta} for the specified address. Creates a new AddressMeta if it
-   * doesen't exist for this address.
+   * Returns the {@link AddressMeta} of the specified address, or {@link AddressMeta#EMPTY}
+   * if the address is not known. This never locks, and never modifies the cache.
+   *
+   * <p>Unlike in the previous versions, looking an address up doesn't add it. An address becomes
+   * known (cached, saved to the database and suggested by the analyze command) only when it is
+   * changed with {@link #update(String, UnaryOperator)}, so the addresses of blocked bots don't
+   * fill the cache and the database. All callers only read the returned value: the checks and the
+   * PreLoginHandler, the commands (which make their changes with update), and the database save,
+   * which reads only the changed addresses, so they are always present.</p>
    */
   @NotNull
   public AddressMeta addressMeta(@NotNull String address) {
-    return this.addresses.computeIfAbsent(address, s -> new AddressMeta(false, false, new ArrayList<>()));
+    return this.addresses.getOrDefault(address, AddressMeta.EMPTY);
+  }
+
+  /**
+   * Atomically replaces the {@link AddressMeta} of the specified address. If the function returns
+   * a different value, the address is marked as changed and will be saved to the database.
+   *
+   * @param address the address to update
+   * @param function receives the current meta (or {@link AddressMeta#EMPTY}), and returns the new one
+   * @return the new meta of this address
+   */
+  @NotNull
+  public AddressMeta update(@NotNull String address, @NotNull UnaryOperator<AddressMeta> function) {
+    var changed = new boolean[1];
+    var result = this.addresses.compute(address, (key, meta) -> {
+      var current = meta != null ? meta : AddressMeta.EMPTY;
+      var updated = function.apply(current);
+      if (updated.equals(current)) {
+        return meta;
+      }
+
+      changed[0] = true;
+      return updated;
+    });
+
+    // Marked only after the new value is published, so a save in progress can't
+    // take the address from the dirty set and still read the previous value.
+    if (changed[0]) {
+      this.dirtyAddresses.add(address);
+      this.version.incrementAndGet();
+    }
+    return result != null ? result : AddressMeta.EMPTY;
   }
 
   /**
-   * When an address is specified:
-   * - Redirects to the {@link #addressMeta(String)} method.
-   * - Never returns null.
+   * When an address is specified, returns it.
    *
-   * When a nickname is specified:
-   * - Tries to detect last used address by this nickname.
-   * - If found, redirects to the {@link #addressMeta(String)} method.
-   * - If not found, returns null.
+   * When a nickname is specified, tries to detect last used address by this nickname.
+   * Returns null if it is not found.
    */
   @Nullable
-  public AddressMeta resolveAddressMeta(@NotNull String value) {
+  public String resolveAddress(@NotNull String value) {
     //noinspection UnstableApiUsage
-    String address = InetAddresses.isInetAddress(value) ? value : lastSeenAddress(value);
-    return address != null ? addressMeta(address) : null;
+    return InetAddresses.isInetAddress(value) ? value : lastSeenAddress(value);
   }
 
   /**
@@ -93,9 +154,9 @@ public class StorageManager {
    * If absent, it is added.
    */
   public void updateAccounts(@NotNull ConnectingUser user) {
-    var accounts = this.addressMeta(user.address()).nicknames();
-    if (!accounts.contains(user.nickname())) {
-      accounts.add(user.nickname());
+    // Most users reconnect with a known nickname, in which case the map is not locked at all.
+    if (!this.addressMeta(user.address()).nicknames().contains(user.nickname())) {
+      this.update(user.address(), meta -> meta.withNickname(user.nickname()));
     }
   }
 
@@ -113,18 +174,42 @@ public class StorageManager {
         .toList();
   }
 
+  /**
+   * All known addresses. Changes should be made with {@link #update(String, UnaryOperator)},
+   * otherwise they won't be saved to the database.
+   */
   @NotNull
   public Map<String, AddressMeta> addresses() {
     return this.addresses;
   }
 
+  /**
+   * Addresses changed since they were last saved. They should be removed from this set
+   * before their current value is saved, so that concurrent changes are saved next time.
+   */
+  @NotNull
+  public Set<String> dirtyAddresses() {
+    return this.dirtyAddresses;
+  }
+
+  /**
+   * @return a counter incremented on every change of the cached addresses.
+   */
+  public long version() {
+    return this.version.get();
+  }
+
   @NotNull
   public Database database() {
     return this.database;
   }
 
+  /**
+   * Remembers the addresses which have pinged the server recently, in constant memory.
+   * False positives are possible, with the configured probability.
+   */
   @NotNull
-  public Collection<String> pingCache() {
+  public RotatingBloomFilter<AddressKey> pingCache() {
     return this.pingCache;
   }
 }
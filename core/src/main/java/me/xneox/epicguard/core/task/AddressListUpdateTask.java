@@ -0,0 +1,35 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.task;
+
+import java.util.concurrent.TimeUnit;
+import me.xneox.epicguard.core.EpicGuard;
+
+/**
+ * This task refreshes the local proxy, VPN and Tor exit lists. It runs every minute,
+ * and reads the refresh interval every time, so it can be changed on reload.
+ */
+public record AddressListUpdateTask(EpicGuard epicGuard) implements Runnable {
+
+  @Override
+  public void run() {
+    var manager = this.epicGuard.addressListManager();
+    long interval = TimeUnit.MINUTES.toMillis(this.epicGuard.config().addressListCheck().refreshInterval());
+    if (System.currentTimeMillis() - manager.lastRefresh() >= interval) {
+      manager.refresh();
+    }
+  }
+}
@@ -12,35 +12,78 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>
  */
-
 package me.xneox.epicguard.core.task;
 
+import java.util.HashMap;
+import java.util.Map;
 import me.xneox.epicguard.core.EpicGuard;
-import me.xneox.epicguard.core.user.OnlineUser;
+import me.xneox.epicguard.core.config.MessagesConfiguration;
 import me.xneox.epicguard.core.util.TextUtils;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.TextComponent;
 
 /**
  * This task displays current attack status on the actionbar of users who enabled them.
+ *
+ * The status is sent only when it changes, or when the previous actionbar is about to fade out.
+ * Components are cached by the displayed values, so they are not deserialized again every second.
+ * Nothing is sent (the timeline is still recorded) when nobody has enabled the notifications.
  */
-public record MonitorTask(EpicGuard epicGuard) implements Runnable {
+public final class MonitorTask implements Runnable {
+  private static final int KEEP_ALIVE = 2; // in runs (seconds), the vanilla actionbar fades out after 3 seconds.
+  private static final int MAX_CACHED_COMPONENTS = 256;
+
+  private final EpicGuard epicGuard;
+  private final Map<Long, TextComponent> components = new HashMap<>(); // accessed only by this task.
+
+  private MessagesConfiguration messages;
+  private long lastKey = -1L;
+  private int unchangedRuns;
+
+  public MonitorTask(EpicGuard epicGuard) {
+    this.epicGuard = epicGuard;
+  }
 
   @Override
   public void run() {
-    var config = this.epicGuard.messages();
-    var textComponent = TextUtils.component(config.actionbarMonitor()
-        .replace("%cps%", String.valueOf(this.epicGuard.attackManager().connectionCounter()))
-        .replace("%status%", this.epicGuard.attackManager().isUnderAttack() ? config.actionbarAttack() : config.actionbarNoAttack()));
-
-    for (OnlineUser user : this.epicGuard.userManager().users()) {
-      if (user.notifications()) {
-        var audience = this.epicGuard.platform().audience(user.uuid());
-        if (audience != null) {
-          audience.sendActionBar(textComponent);
-        }
-      }
+    var attackManager = this.epicGuard.attackManager();
+    int cps = attackManager.connectionCounter();
+    boolean attack = attackManager.isUnderAttack();
+
+    // Because this task is repeating every second, we can close the current second of the timeline,
+    // and reset the connections/s counter.
+    this.epicGuard.timeline().record(System.currentTimeMillis() / 1000L, cps, attack);
+    attackManager.resetConnectionCounter();
+
+    var subscribers = this.epicGuard.userManager().subscribers();
+    if (subscribers.isEmpty()) {
+      this.lastKey = -1L; // the first subscriber will receive the status immediately.
+      return;
+    }
+
+    long key = (long) cps << 1 | (attack ? 1L : 0L);
+    if (key == this.lastKey && ++this.unchangedRuns < KEEP_ALIVE) {
+      return;
+    }
+    this.lastKey = key;
+    this.unchangedRuns = 0;
+
+    var component = this.component(key, cps, attack);
+    for (Audience audience : subscribers) {
+      audience.sendActionBar(component);
+    }
+  }
+
+  private TextComponent component(long key, int cps, boolean attack) {
+    // The cached components are dropped when the messages are reloaded.
+    var messages = this.epicGuard.messages();
+    if (messages != this.messages || this.components.size() >= MAX_CACHED_COMPONENTS) {
+      this.components.clear();
+      this.messages = messages;
     }
 
-    // Because this task is repeating every second, we can reset the connections/s counter.
-    this.epicGuard.attackManager().resetConnectionCounter();
+    return this.components.computeIfAbsent(key, k -> TextUtils.component(messages.actionbarMonitor()
+        .replace("%cps%", String.valueOf(cps))
+        .replace("%status%", attack ? messages.actionbarAttack() : messages.actionbarNoAttack())));
   }
 }
@@ -0,0 +1,257 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.timeline;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records one row per second: connections per second, the attack state, amount of users which
+ * have passed the checks, and amount of users blocked by every check.
+ *
+ * The rows are kept in a fixed-size ring buffer made of primitive arrays, so recording never allocates,
+ * and the oldest rows are overwritten once the buffer is full. The counters of the current second
+ * are updated by the connection threads without locking.
+ */
+public final class AttackTimeline {
+  /**
+   * Maximum amount of checks which can be recorded, blocks of any further checks are ignored.
+   */
+  public static final int MAX_CHECKS = 16;
+
+  private final int capacity;
+
+  // Counters of the current second.
+  private final AtomicInteger passes = new AtomicInteger();
+  private final AtomicIntegerArray blocks = new AtomicIntegerArray(MAX_CHECKS);
+  private final Map<String, Integer> columns = new ConcurrentHashMap<>();
+  private final String[] checks = new String[MAX_CHECKS];
+
+  // The recorded rows, guarded by this object.
+  private final long[] timeRows;
+  private final int[] cpsRows;
+  private final byte[] attackRows;
+  private final int[] passRows;
+  private final char[] blockRows; // capacity * MAX_CHECKS, saturated at 65535 blocks per second.
+
+  private int head; // index of the next row to be written.
+  private int size;
+
+  /**
+   * @param capacity amount of rows (seconds) kept in the buffer
+   */
+  public AttackTimeline(int capacity) {
+    this.capacity = capacity;
+    this.timeRows = new long[capacity];
+    this.cpsRows = new int[capacity];
+    this.attackRows = new byte[capacity];
+    this.passRows = new int[capacity];
+    this.blockRows = new char[capacity * MAX_CHECKS];
+  }
+
+  /**
+   * Counts a user who has passed all checks in the current second.
+   */
+  public void recordPass() {
+    this.passes.incrementAndGet();
+  }
+
+  /**
+   * Counts a user blocked by the specified check in the current second.
+   *
+   * @param check name of the check, see {@link me.xneox.epicguard.core.check.AbstractCheck#name()}
+   */
+  public void recordBlock(@NotNull String check) {
+    var column = this.columns.get(check);
+    if (column == null) {
+      column = this.register(check);
+    }
+
+    if (column >= 0) {
+      this.blocks.incrementAndGet(column);
+    }
+  }
+
+  /**
+   * Closes the current second, storing its counters as a new row. Called once per second by the monitor task.
+   *
+   * @param time the current time in epoch seconds
+   * @param cps connections in the last second
+   * @param attack whenever the attack mode is enabled
+   */
+  public void record(long time, int cps, boolean attack) {
+    int passes = this.passes.getAndSet(0);
+
+    synchronized (this) {
+      int row = this.head;
+      this.timeRows[row] = time;
+      this.cpsRows[row] = cps;
+      this.attackRows[row] = (byte) (attack ? 1 : 0);
+      this.passRows[row] = passes;
+
+      int offset = row * MAX_CHECKS;
+      for (int i = 0; i < MAX_CHECKS; i++) {
+        this.blockRows[offset + i] = (char) Math.min(this.blocks.getAndSet(i, 0), Character.MAX_VALUE);
+      }
+
+      this.head = (row + 1) % this.capacity;
+      this.size = Math.min(this.size + 1, this.capacity);
+    }
+  }
+
+  /**
+   * Summarizes the rows recorded in the specified amount of recent seconds.
+   *
+   * @param seconds length of the summarized period
+   * @return the summary, which may contain less rows if the timeline doesn't cover the whole period
+   */
+  @NotNull
+  public synchronized Summary summarize(long seconds) {
+    if (this.size == 0) {
+      return new Summary(0, 0, 0, 0L, 0L, 0L, Map.of());
+    }
+
+    long since = this.timeRows[this.index(this.size - 1)] - seconds;
+    int rows = 0;
+    int attackSeconds = 0;
+    int peakCps = 0;
+    long peakTime = 0L;
+    long connections = 0L;
+    long passes = 0L;
+    var blocks = new long[MAX_CHECKS];
+
+    // Walking from the newest row to the oldest one.
+    for (int i = this.size - 1; i >= 0; i--) {
+      int row = this.index(i);
+      if (this.timeRows[row] <= since) {
+        break;
+      }
+
+      rows++;
+      attackSeconds += this.attackRows[row];
+      connections += this.cpsRows[row];
+      passes += this.passRows[row];
+      if (this.cpsRows[row] > peakCps) {
+        peakCps = this.cpsRows[row];
+        peakTime = this.timeRows[row];
+      }
+
+      int offset = row * MAX_CHECKS;
+      for (int column = 0; column < MAX_CHECKS; column++) {
+        blocks[column] += this.blockRows[offset + column];
+      }
+    }
+
+    var blocksByCheck = new LinkedHashMap<String, Long>();
+    for (int column = 0; column < MAX_CHECKS && this.checks[column] != null; column++) {
+      blocksByCheck.put(this.checks[column], blocks[column]);
+    }
+    return new Summary(rows, attackSeconds, peakCps, peakTime, connections, passes, blocksByCheck);
+  }
+
+  /**
+   * Copies all recorded rows, ordered from the oldest to the newest one.
+   * This allocates a copy of the whole buffer, and is meant only for exporting.
+   */
+  @NotNull
+  public synchronized Snapshot snapshot() {
+    int columnCount = this.columnCount();
+    var snapshot = new Snapshot(
+        Arrays.copyOf(this.checks, columnCount),
+        new long[this.size], new int[this.size], new byte[this.size], new int[this.size],
+        new char[this.size * columnCount]);
+
+    for (int i = 0; i < this.size; i++) {
+      int row = this.index(i);
+      snapshot.times()[i] = this.timeRows[row];
+      snapshot.cps()[i] = this.cpsRows[row];
+      snapshot.attack()[i] = this.attackRows[row];
+      snapshot.passes()[i] = this.passRows[row];
+      System.arraycopy(this.blockRows, row * MAX_CHECKS, snapshot.blocks(), i * columnCount, columnCount);
+    }
+    return snapshot;
+  }
+
+  /**
+   * @return amount of recorded rows.
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  // Converts the position (0 being the oldest row) to an index in the arrays.
+  private int index(int position) {
+    return (this.head - this.size + position + this.capacity) % this.capacity;
+  }
+
+  private int columnCount() {
+    int count = 0;
+    while (count < MAX_CHECKS && this.checks[count] != null) {
+      count++;
+    }
+    return count;
+  }
+
+  // Assigns a column to a check when it blocks a user for the first time.
+  private synchronized int register(@NotNull String check) {
+    var column = this.columns.get(check);
+    if (column != null) {
+      return column;
+    }
+
+    int count = this.columnCount();
+    int assigned = count < MAX_CHECKS ? count : -1;
+    if (assigned >= 0) {
+      this.checks[assigned] = check;
+    }
+    this.columns.put(check, assigned);
+    return assigned;
+  }
+
+  /**
+   * Totals of the recorded rows in a period of time.
+   *
+   * @param rows amount of recorded seconds in this period
+   * @param attackSeconds amount of seconds with the attack mode enabled
+   * @param peakCps highest amount of connections per second
+   * @param peakTime time of the highest amount of connections, in epoch seconds
+   * @param connections total amount of connections
+   * @param passes total amount of users who passed the checks
+   * @param blocks total amount of blocked users per check, in order of their first detection
+   */
+  public record Summary(int rows, int attackSeconds, int peakCps, long peakTime, long connections, long passes,
+                        @NotNull Map<String, Long> blocks) {
+
+    public long totalBlocks() {
+      return this.blocks.values().stream().mapToLong(Long::longValue).sum();
+    }
+  }
+
+  /**
+   * A copy of the recorded rows. The blocks of row {@code i} and check {@code c}
+   * are stored at {@code blocks[i * checks.length + c]}.
+   */
+  public record Snapshot(String[] checks, long[] times, int[] cps, byte[] attack, int[] passes, char[] blocks) {
+
+    public int rows() {
+      return this.times.length;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.timeline;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes a {@link AttackTimeline.Snapshot} to a file. Writing may take a while
+ * for a full timeline, and should never be done on the main thread.
+ */
+public final class TimelineExporter {
+  private static final int BINARY_MAGIC = 0x4547544C; // "EGTL"
+  private static final int BINARY_VERSION = 1;
+
+  private TimelineExporter() {}
+
+  /**
+   * Writes the snapshot in the specified format.
+   *
+   * @param snapshot the exported rows
+   * @param file the target file, replaced if it exists
+   * @param format the format of the file
+   */
+  public static void export(@NotNull AttackTimeline.Snapshot snapshot, @NotNull File file, @NotNull Format format) throws IOException {
+    switch (format) {
+      case CSV -> writeCsv(snapshot, file);
+      case BINARY -> writeBinary(snapshot, file);
+    }
+  }
+
+  /**
+   * One line per second, with a column for every recorded check.
+   */
+  private static void writeCsv(AttackTimeline.Snapshot snapshot, File file) throws IOException {
+    var checks = snapshot.checks();
+    try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write("time,cps,attack,passes");
+      for (String check : checks) {
+        writer.write(',');
+        writer.write(check);
+      }
+      writer.newLine();
+
+      for (int row = 0; row < snapshot.rows(); row++) {
+        writer.write(Instant.ofEpochSecond(snapshot.times()[row]).toString());
+        writer.write(',');
+        writer.write(Integer.toString(snapshot.cps()[row]));
+        writer.write(',');
+        writer.write(Integer.toString(snapshot.attack()[row]));
+        writer.write(',');
+        writer.write(Integer.toString(snapshot.passes()[row]));
+        for (int column = 0; column < checks.length; column++) {
+          writer.write(',');
+          writer.write(Integer.toString(snapshot.blocks()[row * checks.length + column]));
+        }
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Big-endian binary format:
+   *  - header: magic (int), version (int), amount of checks (byte), check names (UTF), amount of rows (int)
+   *  - every row: time in epoch seconds (long), cps (int), attack (byte), passes (int), blocks of every check (unsigned short)
+   */
+  private static void writeBinary(AttackTimeline.Snapshot snapshot, File file) throws IOException {
+    var checks = snapshot.checks();
+    try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+      output.writeInt(BINARY_MAGIC);
+      output.writeInt(BINARY_VERSION);
+      output.writeByte(checks.length);
+      for (String check : checks) {
+        output.writeUTF(check);
+      }
+
+      output.writeInt(snapshot.rows());
+      for (int row = 0; row < snapshot.rows(); row++) {
+        output.writeLong(snapshot.times()[row]);
+        output.writeInt(snapshot.cps()[row]);
+        output.writeByte(snapshot.attack()[row]);
+        output.writeInt(snapshot.passes()[row]);
+        for (int column = 0; column < checks.length; column++) {
+          output.writeChar(snapshot.blocks()[row * checks.length + column]);
+        }
+      }
+    }
+  }
+
+  public enum Format {
+    CSV("csv"),
+    BINARY("bin");
+
+    private final String extension;
+
+    Format(String extension) {
+      this.extension = extension;
+    }
+
+    @NotNull
+    public String extension() {
+      return this.extension;
+    }
+  }
+}
@@ -16,10 +16,18 @@
 package me.xneox.epicguard.core.user;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents a user who is currently connecting to the server.
  * It is also cached by some checks.
+ *
+ * @param address the user's address
+ * @param nickname the user's nickname
+ * @param proxy result of the proxy lookup, if it has been performed before the checks, or null
  */
-public record ConnectingUser(@NotNull String address, @NotNull String nickname) {
+public record ConnectingUser(@NotNull String address, @NotNull String nickname, @Nullable Boolean proxy) {
+  public ConnectingUser(@NotNull String address, @NotNull String nickname) {
+    this(address, nickname, null);
+  }
 }
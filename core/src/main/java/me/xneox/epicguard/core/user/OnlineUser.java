@@ -16,7 +16,10 @@
 package me.xneox.epicguard.core.user;
 
 import com.google.common.base.Objects;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import me.xneox.epicguard.core.util.TimerWheel;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -24,8 +27,8 @@ import org.jetbrains.annotations.NotNull;
  */
 public class OnlineUser {
   private final UUID uuid;
-  private boolean notifications;
-  private boolean settingsChanged;
+  private final Queue<TimerWheel.Timeout> timeouts = new ConcurrentLinkedQueue<>();
+  private volatile boolean settingsChanged; // read by the delayed settings check.
 
   public OnlineUser(@NotNull UUID uuid) {
     this.uuid = uuid;
@@ -40,25 +43,31 @@ public class OnlineUser {
   }
 
   /**
-   * @return whenever the user has enabled the status notifications.
+   * @return whenever the user has sent the Settings packet at least once.
    */
-  public boolean notifications() {
-    return this.notifications;
+  public boolean settingsChanged() {
+    return this.settingsChanged;
   }
 
-  public void notifications(boolean notifications) {
-    this.notifications = notifications;
+  public void settingsChanged(boolean settingsChanged) {
+    this.settingsChanged = settingsChanged;
   }
 
   /**
-   * @return whenever the user has sent the Settings packet at least once.
+   * Remembers a delayed task of this user, so it can be cancelled when he disconnects.
    */
-  public boolean settingsChanged() {
-    return this.settingsChanged;
+  public void addTimeout(@NotNull TimerWheel.Timeout timeout) {
+    this.timeouts.add(timeout);
   }
 
-  public void settingsChanged(boolean settingsChanged) {
-    this.settingsChanged = settingsChanged;
+  /**
+   * Cancels the delayed tasks of this user, which haven't been run yet.
+   */
+  public void cancelTimeouts() {
+    TimerWheel.Timeout timeout;
+    while ((timeout = this.timeouts.poll()) != null) {
+      timeout.cancel();
+    }
   }
 
   @Override
@@ -0,0 +1,170 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.util;
+
+import com.google.common.net.InetAddresses;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compact binary representation of an IP address (or a network, if the prefix is shorter
+ * than the address length). IPv4 addresses are stored in the lower 32 bits of {@link #low()}.
+ *
+ * @param high upper 64 bits of an IPv6 address, always 0 for IPv4
+ * @param low lower 64 bits of an IPv6 address, or the IPv4 address
+ * @param prefix amount of significant bits
+ * @param ipv6 whenever this is an IPv6 address
+ */
+public record AddressKey(long high, long low, int prefix, boolean ipv6) {
+
+  /**
+   * Parses a textual IP address without performing any DNS lookups.
+   * IPv4 addresses are parsed by hand, as they are the most common case.
+   *
+   * @param address the textual representation of an IP address
+   * @return the parsed key, or null if the address is invalid
+   */
+  @Nullable
+  public static AddressKey parse(@NotNull String address) {
+    long ipv4 = parseIPv4(address);
+    if (ipv4 != -1L) {
+      return new AddressKey(0L, ipv4, 32, false);
+    }
+
+    try {
+      //noinspection UnstableApiUsage
+      return of(InetAddresses.forString(address).getAddress());
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Creates a full-length key from the raw address bytes (4 or 16 bytes long).
+   */
+  @NotNull
+  public static AddressKey of(byte[] bytes) {
+    if (bytes.length == 4) {
+      return new AddressKey(0L, toLong(bytes, 0, 4), 32, false);
+    }
+    return new AddressKey(toLong(bytes, 0, 8), toLong(bytes, 8, 8), 128, true);
+  }
+
+  /**
+   * Parses a dotted-quad IPv4 address into an unsigned 32-bit value, without any allocations.
+   *
+   * @return the address, or -1 if the string is not a valid IPv4 address
+   */
+  public static long parseIPv4(@NotNull CharSequence address) {
+    int length = address.length();
+    if (length < 7 || length > 15) {
+      return -1L;
+    }
+
+    long result = 0L;
+    int octet = -1;
+    int dots = 0;
+    for (int i = 0; i < length; i++) {
+      char c = address.charAt(i);
+      if (c == '.') {
+        if (octet < 0 || ++dots > 3) {
+          return -1L;
+        }
+        result = result << 8 | octet;
+        octet = -1;
+      } else if (c >= '0' && c <= '9') {
+        octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+        if (octet > 255) {
+          return -1L;
+        }
+      } else {
+        return -1L;
+      }
+    }
+
+    if (octet < 0 || dots != 3) {
+      return -1L;
+    }
+    return result << 8 | octet;
+  }
+
+  /**
+   * @return maximum prefix length for this address family.
+   */
+  public int bits() {
+    return this.ipv6 ? 128 : 32;
+  }
+
+  /**
+   * Returns a key of the network containing this address, with the specified prefix length.
+   *
+   * @param length the network prefix length
+   * @return a new masked key, or this key if the prefix is not shorter
+   */
+  @NotNull
+  public AddressKey mask(int length) {
+    if (length >= this.prefix) {
+      return this;
+    }
+
+    if (!this.ipv6) {
+      long mask = length == 0 ? 0L : (0xFFFFFFFFL << (32 - length)) & 0xFFFFFFFFL;
+      return new AddressKey(0L, this.low & mask, length, false);
+    }
+
+    long highMask = length >= 64 ? -1L : length == 0 ? 0L : -1L << (64 - length);
+    long lowMask = length <= 64 ? 0L : -1L << (128 - length);
+    return new AddressKey(this.high & highMask, this.low & lowMask, length, true);
+  }
+
+  /**
+   * @return the raw address bytes of this key.
+   */
+  public byte[] toBytes() {
+    if (!this.ipv6) {
+      return new byte[] {(byte) (this.low >>> 24), (byte) (this.low >>> 16), (byte) (this.low >>> 8), (byte) this.low};
+    }
+
+    var bytes = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      bytes[i] = (byte) (this.high >>> (56 - i * 8));
+      bytes[i + 8] = (byte) (this.low >>> (56 - i * 8));
+    }
+    return bytes;
+  }
+
+  /**
+   * Converts this key to an {@link InetAddress}. This never performs a DNS lookup.
+   */
+  @NotNull
+  public InetAddress toInetAddress() {
+    try {
+      return InetAddress.getByAddress(this.toBytes());
+    } catch (UnknownHostException ex) {
+      throw new IllegalStateException("Invalid address length", ex); // can't happen, length is always 4 or 16.
+    }
+  }
+
+  private static long toLong(byte[] bytes, int offset, int length) {
+    long result = 0L;
+    for (int i = offset; i < offset + length; i++) {
+      result = result << 8 | (bytes[i] & 0xFF);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An Aho-Corasick automaton, which searches for many literal patterns in a single pass over the text.
+ * The automaton is compiled into a full transition table, so every character costs a single lookup.
+ * Matching is case-insensitive. Patterns can be anchored to the start of the text (prefixes).
+ */
+public final class AhoCorasick {
+  private final int[] asciiSymbols = new int[128];
+  private final Map<Character, Integer> otherSymbols = new HashMap<>();
+  private final int alphabetSize;
+
+  private final int[] transitions;
+  private final int[][] outputs;
+  private final int[] lengths;
+  private final boolean[] anchored;
+
+  /**
+   * @param patterns the searched literals, must not be empty
+   * @param anchored whenever the pattern with the same index has to be at the start of the text
+   */
+  public AhoCorasick(@NotNull List<String> patterns, @NotNull boolean[] anchored) {
+    this.anchored = anchored.clone();
+    this.lengths = new int[patterns.size()];
+
+    // Symbol 0 is shared by all characters which don't occur in any pattern.
+    int symbols = 1;
+    int maxStates = 1;
+    for (String pattern : patterns) {
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = Character.toLowerCase(pattern.charAt(i));
+        if (this.symbol(c) == 0) {
+          if (c < 128) {
+            this.asciiSymbols[c] = symbols++;
+          } else {
+            this.otherSymbols.put(c, symbols++);
+          }
+        }
+      }
+      maxStates += pattern.length();
+    }
+    this.alphabetSize = symbols;
+
+    // Builds the trie, missing transitions are marked with -1.
+    var table = new int[maxStates * symbols];
+    Arrays.fill(table, -1);
+    var stateOutputs = new int[maxStates][];
+    int states = 1;
+    for (int id = 0; id < patterns.size(); id++) {
+      var pattern = patterns.get(id);
+      this.lengths[id] = pattern.length();
+
+      int state = 0;
+      for (int i = 0; i < pattern.length(); i++) {
+        int index = state * symbols + this.symbol(Character.toLowerCase(pattern.charAt(i)));
+        if (table[index] == -1) {
+          table[index] = states++;
+        }
+        state = table[index];
+      }
+      stateOutputs[state] = append(stateOutputs[state], id);
+    }
+
+    // Breadth-first, every missing transition is replaced with the transition of the failure state.
+    var failure = new int[states];
+    var queue = new ArrayDeque<Integer>();
+    queue.add(0);
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      for (int symbol = 0; symbol < symbols; symbol++) {
+        int index = state * symbols + symbol;
+        int next = table[index];
+        int fallback = state == 0 ? 0 : table[failure[state] * symbols + symbol];
+        if (next == -1) {
+          table[index] = fallback;
+        } else {
+          failure[next] = fallback;
+          stateOutputs[next] = merge(stateOutputs[next], stateOutputs[fallback]);
+          queue.add(next);
+        }
+      }
+    }
+
+    this.transitions = Arrays.copyOf(table, states * symbols);
+    this.outputs = Arrays.copyOf(stateOutputs, states);
+  }
+
+  /**
+   * Searches the text for the patterns.
+   *
+   * @return the lowest index of the patterns found in the text, or -1 if none was found
+   */
+  public int find(@NotNull CharSequence text) {
+    int found = Integer.MAX_VALUE;
+    int state = 0;
+    for (int i = 0; i < text.length() && found != 0; i++) {
+      state = this.transitions[state * this.alphabetSize + this.symbol(Character.toLowerCase(text.charAt(i)))];
+
+      var matched = this.outputs[state];
+      if (matched != null) {
+        for (int id : matched) {
+          if (id < found && (!this.anchored[id] || this.lengths[id] == i + 1)) {
+            found = id;
+          }
+        }
+      }
+    }
+    return found != Integer.MAX_VALUE ? found : -1;
+  }
+
+  private int symbol(char c) {
+    return c < 128 ? this.asciiSymbols[c] : this.otherSymbols.getOrDefault(c, 0);
+  }
+
+  private static int[] append(int[] array, int value) {
+    if (array == null) {
+      return new int[] {value};
+    }
+    var result = Arrays.copyOf(array, array.length + 1);
+    result[array.length] = value;
+    return result;
+  }
+
+  private static int[] merge(int[] first, int[] second) {
+    if (first == null || second == null) {
+      return first != null ? first : second;
+    }
+    var result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.xneox.epicguard.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A non-blocking HTTP client. Connections are reused (HTTP/1.1 keep-alive or HTTP/2),
+ * the amount of concurrent requests to a single host is limited, and response bodies
+ * are never read beyond the configured size. Cancelling the returned future aborts the request.
+ * Responses with an unsuccessful status code fail the request with a {@link HttpStatusException},
+ * their body is never passed to the subscriber.
+ */
+public final class AsyncHttpClient {
+  private final HttpClient client;
+  private final Duration timeout;
+  private final int maxConcurrentRequests;
+  private final int maxBodySize;
+
+  private final Map<String, RequestLimiter> limiters = new ConcurrentHashMap<>();
+
+  /**
+   * @param timeout maximum duration of a single request, including reading the body
+   * @param maxConcurrentRequests maximum amount of requests in progress to a single host,
+   *     further requests are queued without blocking
+   * @param maxBodySize maximum amount of bytes read from the response body, the rest is discarded
+   */
+  public AsyncHttpClient(@NotNull Duration timeout, int maxConcurrentRequests, int maxBodySize) {
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2) // falls back to HTTP/1.1 if not supported by the server.
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(timeout)
+        .build();
+    this.timeout = timeout;
+    this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    this.maxBodySize = maxBodySize;
+  }
+
+  /**
+   * Sends a GET request and reads the response body as a string.
+   * The returned future completes exceptionally if the request fails or times out,
+   * or if the body is bigger than the maximum body size.
+   *
+   * @param url the requested URL
+   * @return a future of the response body
+   */
+  @NotNull
+  public CompletableFuture<String> readString(@NotNull String url) {
+    return this.request(url, () -> new BoundedBodySubscriber(this.maxBodySize));
+  }
+
+  /**
+   * Sends a GET request, and processes the response body with a custom subscriber.
+   * The subscriber is responsible for limiting the amount of bytes read.
+   *
+   * @param url the requested URL
+   * @param subscriber creates the subscriber processing the response body
+   * @return a future of the processed body
+   */
+  @NotNull
+  public <T> CompletableFuture<T> request(@NotNull String url, @NotNull Supplier<HttpResponse.BodySubscriber<T>> subscriber) {
+    return this.request(url, null, subscriber);
+  }
+
+  /**
+   * Sends a GET request, or a POST request with a form body if it is specified,
+   * and processes the response body with a custom subscriber.
+   *
+   * @param url the requested URL
+   * @param body the form-encoded request body, or null to send a GET request
+   * @param subscriber creates the subscriber processing the response body
+   * @return a future of the processed body
+   */
+  @NotNull
+  public <T> CompletableFuture<T> request(@NotNull String url, @Nullable String body, @NotNull Supplier<HttpResponse.BodySubscriber<T>> subscriber) {
+    return this.request(url, body, subscriber, () -> {});
+  }
+
+  /**
+   * Sends a GET request, or a POST request with a form body if it is specified,
+   * and processes the response body with a custom subscriber.
+   *
+   * @param url the requested URL
+   * @param body the form-encoded request body, or null to send a GET request
+   * @param subscriber creates the subscriber processing the response body
+   * @param started called when the request leaves the queue of this client and is actually sent,
+   *     never called if the request is cancelled while waiting in the queue
+   * @return a future of the processed body, failed with a {@link HttpStatusException} if the status code is not 2xx
+   */
+  @NotNull
+  public <T> CompletableFuture<T> request(@NotNull String url, @Nullable String body, @NotNull Supplier<HttpResponse.BodySubscriber<T>> subscriber,
+                                          @NotNull Runnable started) {
+    URI uri;
+    try {
+      uri = URI.create(url);
+    } catch (IllegalArgumentException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+
+    var builder = HttpRequest.newBuilder(uri)
+        .header("User-Agent", "Mozilla/4.0")
+        .timeout(this.timeout);
+    if (body != null) {
+      builder.header("Content-Type", "application/x-www-form-urlencoded")
+          .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+    } else {
+      builder.GET();
+    }
+
+    var request = builder.build();
+
+    var limiter = this.limiters.computeIfAbsent(uri.getHost() + ':' + uri.getPort(), host -> new RequestLimiter(this.maxConcurrentRequests));
+    return limiter.submit(() -> {
+      started.run();
+      var response = this.client.sendAsync(request, info -> info.statusCode() / 100 == 2
+          ? subscriber.get()
+          : new StatusErrorSubscriber<>(info.statusCode()));
+      var result = response.thenApply(HttpResponse::body).orTimeout(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+      // Abort the exchange if the request has been cancelled or timed out.
+      result.whenComplete((value, throwable) -> {
+        if (throwable != null) {
+          response.cancel(true);
+        }
+      });
+      return result;
+    });
+  }
+
+  /**
+   * Limits the amount of requests in progress. Requests above the limit wait in a queue,
+   * and are started when one of the previous requests completes.
+   */
+  private static final class RequestLimiter {
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger available;
+
+    private RequestLimiter(int permits) {
+      this.available = new AtomicInteger(permits);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+      var result = new CompletableFuture<T>();
+      this.pending.add(() -> {
+        if (result.isDone()) {
+          this.available.incrementAndGet(); // cancelled while waiting in the queue, the drain loop continues.
+          return;
+        }
+
+        try {
+          var future = request.get();
+          // Aborts the exchange if the request has been cancelled, or completed exceptionally by the caller.
+          result.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+              future.cancel(true);
+            }
+          });
+
+          future.whenComplete((value, throwable) -> {
+            this.release();
+            if (throwable != null) {
+              result.completeExceptionally(throwable);
+            } else {
+              result.complete(value);
+            }
+          });
+        } catch (RuntimeException ex) {
+          this.release();
+          result.completeExceptionally(ex);
+        }
+      });
+
+      this.drain();
+      return result;
+    }
+
+    private void release() {
+      this.available.incrementAndGet();
+      this.drain();
+    }
+
+    private void drain() {
+      while (!this.pending.isEmpty()) {
+        int permits = this.available.get();
+        if (permits <= 0) {
+          return; // will be drained again when a request completes.
+        }
+
+        if (this.available.compareAndSet(permits, permits - 1)) {
+          var task = this.pending.poll();
+          if (task == null) {
+            this.available.incrementAndGet(); // another thread took it in the meantime.
+          } else {
+            task.run();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Discards the body of an unsuccessful response, and fails the request with its status code.
+   */
+  private static final class StatusErrorSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final int statusCode;
+
+    private StatusErrorSubscriber(int statusCode) {
+      this.statusCode = statusCode;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.cancel(); // the error page is not needed.
+      this.result.completeExceptionally(new HttpStatusException(this.statusCode));
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      this.result.completeExceptionally(new HttpStatusException(this.statusCode));
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+      return this.result;
+    }
+  }
+
+  /**
+   * Collects the response body up to the specified size. If the body is bigger,
+   * the subscription is cancelled and the body fails, it is never silently truncated.
+   */
+  private static final class BoundedBodySubscriber implements HttpResponse.BodySubscriber<String> {
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final int maxSize;
+
+    private Flow.Subscription subscription;
+
+    private BoundedBodySubscriber(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1L);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+      for (ByteBuffer item : items) {
+        if (item.remaining() > this.maxSize - this.buffer.size()) {
+          this.subscription.cancel(); // the rest of the body is not downloaded.
+          this.result.completeExceptionally(new IOException("The response body exceeds the limit of " + this.maxSize + " bytes"));
+          return;
+        }
+
+        var bytes = new byte[item.remaining()];
+        item.get(bytes);
+        this.buffer.write(bytes, 0, bytes.length);
+      }
+      this.subscription.request(1L);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.result.completeExceptionally(throwable instanceof IOException ? throwable : new IOException(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+      this.result.complete(this.buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+      return this.result;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A fixed-size, lock-free set of 64-bit hashes, which expire after some time.
+ *
+ * Every slot holds a single long: the upper 32 bits of the hash (the lower bits select the slot)
+ * and the expiration time in seconds, so a slot is always replaced with a single CAS.
+ * Only a few neighbouring slots are probed. If none of them is free or expired, the entry
+ * which expires first is evicted, so the memory usage never grows.
+ */
+public final class ExpiringHashSet {
+  private static final int MAX_PROBES = 8;
+
+  private final AtomicLongArray table;
+  private final int mask;
+
+  /**
+   * @param capacity maximum amount of the stored hashes, rounded up to a power of two
+   */
+  public ExpiringHashSet(int capacity) {
+    int size = Integer.highestOneBit(Math.max(MAX_PROBES, capacity - 1)) << 1;
+    this.table = new AtomicLongArray(size);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Checks if the hash is present and not expired. If it isn't, it is added with the provided lifetime.
+   * An entry which is present is not extended.
+   *
+   * @param hash the hash of the stored value
+   * @param lifetime time in seconds after which the added entry expires
+   * @return true if the hash was present, false if it has been added now
+   */
+  public boolean testAndAdd(long hash, long lifetime) {
+    long now = System.currentTimeMillis() / 1000L;
+    int fingerprint = fingerprint(hash);
+    long entry = (long) fingerprint << 32 | (now + lifetime) & 0xFFFFFFFFL;
+    int start = (int) hash & this.mask;
+
+    int victim = -1;
+    long victimValue = 0L;
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      int index = (start + probe) & this.mask;
+      long value = this.table.get(index);
+      boolean expired = value == 0L || isExpired(value, now);
+
+      if (value != 0L && (int) (value >>> 32) == fingerprint && !expired) {
+        return true;
+      }
+
+      // Prefer a free or expired slot, otherwise the one which expires first.
+      if (victim == -1 || expired && !isExpired(victimValue, now) || victimValue != 0L && deadline(value) < deadline(victimValue)) {
+        victim = index;
+        victimValue = value;
+      }
+    }
+
+    // If another thread has replaced the victim in the meantime, this entry is just not stored.
+    this.table.compareAndSet(victim, victimValue, entry);
+    return false;
+  }
+
+  /**
+   * Computes a well distributed 64-bit hash of two strings.
+   */
+  public static long hash(@NotNull String first, @NotNull String second) {
+    long hash = 0xCBF29CE484222325L; // FNV-1a
+    for (int i = 0; i < first.length(); i++) {
+      hash = (hash ^ first.charAt(i)) * 0x100000001B3L;
+    }
+    hash = (hash ^ 0xFFFF) * 0x100000001B3L; // separator, so ("ab", "c") differs from ("a", "bc")
+    for (int i = 0; i < second.length(); i++) {
+      hash = (hash ^ second.charAt(i)) * 0x100000001B3L;
+    }
+
+    // Final mixing, so both the lower and upper bits depend on every character.
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    return hash ^ hash >>> 33;
+  }
+
+  private static int fingerprint(long hash) {
+    int fingerprint = (int) (hash >>> 32);
+    return fingerprint != 0 ? fingerprint : 1; // 0 is reserved for the free slots.
+  }
+
+  private static long deadline(long value) {
+    return value & 0xFFFFFFFFL;
+  }
+
+  private static boolean isExpired(long value, long now) {
+    return value == 0L || deadline(value) <= now;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server has responded with an unsuccessful (non-2xx) status code.
+ * The body of such response is not read.
+ */
+public class HttpStatusException extends IOException {
+  private final int statusCode;
+
+  public HttpStatusException(int statusCode) {
+    super("Server returned HTTP response code: " + statusCode);
+    this.statusCode = statusCode;
+  }
+
+  public int statusCode() {
+    return this.statusCode;
+  }
+
+  /**
+   * @return whenever the server asks the client to slow down (429 Too Many Requests).
+   */
+  public boolean isRateLimited() {
+    return this.statusCode == 429;
+  }
+}
@@ -17,14 +17,11 @@ package me.xneox.epicguard.core.util;
 
 import me.xneox.epicguard.core.EpicGuardAPI;
 import org.jetbrains.annotations.NotNull;
-import org.slf4j.Logger;
 
 /**
  * This util helps with various logging operations.
  */
 public final class LogUtils {
-  private static final Logger LOGGER = EpicGuardAPI.INSTANCE.instance().logger();
-
   /**
    * Catches a Throwable and prints a detailed error message.
    *
@@ -32,25 +29,28 @@ public final class LogUtils {
    * @param throwable the caught exception
    */
   public static void catchException(@NotNull String details, @NotNull Throwable throwable) {
-    LOGGER.error("An error occurred in EpicGuard v" + VersionUtils.CURRENT_VERSION);
+    var logger = EpicGuardAPI.INSTANCE.instance().logger();
+    logger.error("An error occurred in EpicGuard v" + VersionUtils.CURRENT_VERSION);
     if (VersionUtils.isUpdateAvailable()) {
-      LOGGER.error("  (!) Your version is outdated. Update before sending bug report!");
+      logger.error("  (!) Your version is outdated. Update before sending bug report!");
     }
 
-    LOGGER.error(" > Details: " + details);
-    LOGGER.error(" > Platform: " + EpicGuardAPI.INSTANCE.platformVersion());
-    LOGGER.error(" > Stacktrace: ");
-    LOGGER.error("", throwable);
+    logger.error(" > Details: " + details);
+    logger.error(" > Platform: " + EpicGuardAPI.INSTANCE.platformVersion());
+    logger.error(" > Stacktrace: ");
+    logger.error("", throwable);
   }
 
   /**
    * Logs a message if debug is enabled in the configuration.
+   * Nothing is logged before EpicGuard is initialized.
    *
    * @param message message to be logged
    */
   public static void debug(@NotNull String message) {
-    if (EpicGuardAPI.INSTANCE.instance().config().misc().debug()) {
-      LOGGER.info("(Debug) " + message);
+    var epicGuard = EpicGuardAPI.INSTANCE.instance();
+    if (epicGuard != null && epicGuard.config().misc().debug()) {
+      epicGuard.logger().info("(Debug) " + message);
     }
   }
 }
@@ -0,0 +1,267 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A history of the recently seen nicknames, which can be searched for similar names.
+ *
+ * Every name is stored with a signature of its characters (a 64-bit set). The number of characters
+ * present in only one of two names, and the difference of their lengths, are lower bounds of their
+ * Levenshtein distance, so almost all names are rejected without computing the distance at all.
+ * The remaining candidates are compared with a distance bounded by the threshold, with an early exit.
+ *
+ * The history is lock-free, names are appended with atomic operations and searches never block.
+ * It is split into generations by time, the oldest generation is dropped when it expires
+ * or when the history is full.
+ */
+public final class NameHistory {
+  private static final int GENERATIONS = 4;
+
+  private final long duration;
+  private final long generationDuration;
+  private final int generationCapacity;
+  private final AtomicReference<Generation[]> generations;
+
+  /**
+   * @param maxSize approximate maximum amount of the stored names
+   * @param duration time in milliseconds after which the names expire
+   */
+  public NameHistory(int maxSize, long duration) {
+    this.duration = duration;
+    this.generationDuration = Math.max(1L, duration / GENERATIONS);
+    this.generationCapacity = Math.max(1, (maxSize + GENERATIONS - 1) / GENERATIONS);
+
+    var initial = new Generation[GENERATIONS];
+    initial[0] = new Generation(System.currentTimeMillis(), this.generationCapacity);
+    this.generations = new AtomicReference<>(initial);
+  }
+
+  /**
+   * Searches the history for the provided name.
+   *
+   * @param name the searched name
+   * @param maxDistance maximum Levenshtein distance of a similar name
+   * @return {@link Match#IDENTICAL} if the same name is stored, {@link Match#SIMILAR}
+   *     if a different name within the distance is stored, {@link Match#NONE} otherwise.
+   */
+  @NotNull
+  public Match find(@NotNull String name, int maxDistance) {
+    long now = System.currentTimeMillis();
+    var current = this.generations.get();
+
+    for (Generation generation : current) {
+      if (generation != null && !this.isExpired(generation, now) && generation.names.contains(name)) {
+        return Match.IDENTICAL;
+      }
+    }
+
+    if (maxDistance > 0) {
+      long signature = signature(name);
+      for (Generation generation : current) {
+        if (generation != null && !this.isExpired(generation, now) && generation.containsSimilar(name, signature, maxDistance)) {
+          return Match.SIMILAR;
+        }
+      }
+    }
+    return Match.NONE;
+  }
+
+  /**
+   * Adds the name to the current generation.
+   */
+  public void add(@NotNull String name) {
+    long signature = signature(name);
+    while (true) {
+      var generation = this.currentGeneration();
+      if (!generation.names.add(name)) {
+        return; // already added by another thread.
+      }
+
+      int index = generation.size.getAndIncrement();
+      if (index < generation.entries.length()) {
+        generation.store(index, name, signature);
+        return;
+      }
+
+      generation.names.remove(name); // the generation is full, a new one will be started.
+    }
+  }
+
+  // Returns the newest generation, starting a new one if it is too old or full.
+  private Generation currentGeneration() {
+    long now = System.currentTimeMillis();
+    while (true) {
+      var current = this.generations.get();
+      var newest = current[0];
+      if (now - newest.createdAt < this.generationDuration && newest.size.get() < this.generationCapacity) {
+        return newest;
+      }
+
+      var rotated = new Generation[GENERATIONS];
+      rotated[0] = new Generation(now, this.generationCapacity);
+      System.arraycopy(current, 0, rotated, 1, GENERATIONS - 1); // the oldest generation is dropped.
+      if (this.generations.compareAndSet(current, rotated)) {
+        return rotated[0];
+      }
+    }
+  }
+
+  private boolean isExpired(Generation generation, long now) {
+    return now - generation.createdAt > this.duration;
+  }
+
+  /**
+   * Computes the Levenshtein distance, giving up as soon as it exceeds the bound.
+   * The common prefix and suffix are skipped, and only the cells within the bound
+   * from the diagonal are computed.
+   *
+   * @return the distance, or a value larger than the bound if the distance is larger
+   */
+  public static int distance(@NotNull String first, @NotNull String second, int bound) {
+    int start = 0;
+    int firstEnd = first.length();
+    int secondEnd = second.length();
+    while (start < firstEnd && start < secondEnd && first.charAt(start) == second.charAt(start)) {
+      start++;
+    }
+    while (firstEnd > start && secondEnd > start && first.charAt(firstEnd - 1) == second.charAt(secondEnd - 1)) {
+      firstEnd--;
+      secondEnd--;
+    }
+
+    int firstLength = firstEnd - start;
+    int secondLength = secondEnd - start;
+    bound = Math.min(bound, Math.max(firstLength, secondLength)); // the distance can't be larger.
+    int outside = bound + 1;
+    if (Math.abs(firstLength - secondLength) > bound) {
+      return outside;
+    }
+
+    var previous = new int[secondLength + 1];
+    var current = new int[secondLength + 1];
+    for (int j = 0; j <= secondLength; j++) {
+      previous[j] = j <= bound ? j : outside;
+    }
+
+    for (int i = 1; i <= firstLength; i++) {
+      int low = Math.max(1, i - bound);
+      int high = Math.min(secondLength, i + bound);
+      current[low - 1] = low == 1 ? i : outside;
+      if (high < secondLength) {
+        current[high + 1] = outside; // read by the next row, as it is just outside of the band.
+      }
+
+      int rowMinimum = current[low - 1];
+      char c = first.charAt(start + i - 1);
+      for (int j = low; j <= high; j++) {
+        int cost = c == second.charAt(start + j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(previous[j], current[j - 1]) + 1, previous[j - 1] + cost);
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+
+      if (rowMinimum > bound) {
+        return outside; // the distance can only grow in the next rows.
+      }
+
+      var swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[secondLength], outside);
+  }
+
+  // Every character of a Minecraft nickname (a-z, A-Z, 0-9, _) has its own bit, the rest share the last one.
+  private static long signature(String name) {
+    long signature = 0L;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      int bit;
+      if (c >= '0' && c <= '9') {
+        bit = c - '0';
+      } else if (c >= 'A' && c <= 'Z') {
+        bit = c - 'A' + 10;
+      } else if (c >= 'a' && c <= 'z') {
+        bit = c - 'a' + 36;
+      } else {
+        bit = c == '_' ? 62 : 63;
+      }
+      signature |= 1L << bit;
+    }
+    return signature;
+  }
+
+  public enum Match {
+    IDENTICAL,
+    SIMILAR,
+    NONE
+  }
+
+  /**
+   * Names of a single generation. The signatures and lengths are kept in primitive arrays,
+   * so the filtered names are never accessed. They are written before the name is published
+   * with a volatile write, and read only after the name has been read.
+   */
+  private static final class Generation {
+    private final long createdAt;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<String> entries;
+    private final long[] signatures;
+    private final int[] lengths;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private Generation(long createdAt, int capacity) {
+      this.createdAt = createdAt;
+      this.entries = new AtomicReferenceArray<>(capacity);
+      this.signatures = new long[capacity];
+      this.lengths = new int[capacity];
+    }
+
+    private void store(int index, String name, long signature) {
+      this.signatures[index] = signature;
+      this.lengths[index] = name.length();
+      this.entries.set(index, name);
+    }
+
+    private boolean containsSimilar(String name, long signature, int maxDistance) {
+      int length = name.length();
+      int size = Math.min(this.size.get(), this.entries.length());
+      for (int i = 0; i < size; i++) {
+        var entry = this.entries.get(i);
+        if (entry == null) {
+          continue; // reserved, but not stored yet.
+        }
+
+        // Every character missing in the other name requires at least one edit.
+        long other = this.signatures[i];
+        int missing = Math.max(Long.bitCount(signature & ~other), Long.bitCount(other & ~signature));
+        if (missing > maxDistance || Math.abs(this.lengths[i] - length) > maxDistance) {
+          continue;
+        }
+
+        if (distance(entry, name, maxDistance) <= maxDistance) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
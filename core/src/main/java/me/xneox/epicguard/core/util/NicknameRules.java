@@ -0,0 +1,282 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * The nickname rules, compiled once when the configuration is loaded.
+ *
+ * The vanilla rule is checked by hand, all literal rules (contains: and prefix:) are searched
+ * in a single pass of an {@link AhoCorasick} automaton, and the regex rules are combined into
+ * a single pattern whenever possible. A detection is counted for the first matching rule
+ * in the configured order, as if the rules were checked one by one.
+ */
+public final class NicknameRules {
+  private static final Pattern NUMBERED_BACKREFERENCE = Pattern.compile("\\\\[1-9]");
+
+  private final String[] rules;
+  private final LongAdder[] hits;
+  private final int vanillaRule;
+
+  private final AhoCorasick literals;
+  private final int[] literalRules;
+
+  // The combined pattern finds out if any of the rules matches, the single patterns are used
+  // only to find the first of them.
+  private final Pattern combined;
+  private final String[] combinedGroups;
+  private final Pattern[] combinedPatterns;
+  private final int[] combinedRules;
+
+  private final Pattern[] separate;
+  private final int[] separateRules;
+
+  private NicknameRules(String[] rules, @Nullable NicknameRules previous, int vanillaRule, AhoCorasick literals, int[] literalRules,
+                        Pattern combined, Pattern[] combinedPatterns, int[] combinedRules, Pattern[] separate, int[] separateRules) {
+    this.rules = rules;
+    this.hits = new LongAdder[rules.length];
+
+    // Rules which haven't changed keep counting into their previous counters.
+    var previousHits = new HashMap<String, LongAdder>();
+    if (previous != null) {
+      for (int i = previous.rules.length - 1; i >= 0; i--) {
+        previousHits.put(previous.rules[i], previous.hits[i]);
+      }
+    }
+    for (int i = 0; i < rules.length; i++) {
+      var inherited = previousHits.remove(rules[i]);
+      this.hits[i] = inherited != null ? inherited : new LongAdder();
+    }
+
+    this.vanillaRule = vanillaRule;
+    this.literals = literals;
+    this.literalRules = literalRules;
+    this.combined = combined;
+    this.combinedPatterns = combinedPatterns;
+    this.combinedRules = combinedRules;
+    this.combinedGroups = new String[combinedRules.length];
+    Arrays.setAll(this.combinedGroups, NicknameRules::groupName);
+    this.separate = separate;
+    this.separateRules = separateRules;
+  }
+
+  /**
+   * Compiles the configured rules. Invalid rules are skipped with a warning.
+   *
+   * @param rules the configured rules: vanilla, contains:text, prefix:text or regex:expression
+   * @param expression the single expression, matched against the whole nickname, or null
+   * @param previous the rules compiled from the previous configuration, their detection counts
+   *     are kept for the rules which are still configured
+   * @param logger the logger used for the warnings
+   * @return the compiled rules
+   */
+  @NotNull
+  public static NicknameRules compile(@NotNull List<String> rules, @Nullable String expression, @Nullable NicknameRules previous, @NotNull Logger logger) {
+    var names = new ArrayList<String>();
+    int vanillaRule = -1;
+    var literals = new ArrayList<String>();
+    var anchored = new ArrayList<Boolean>();
+    var literalRules = new ArrayList<Integer>();
+    var regexes = new ArrayList<String>();
+    var regexRules = new ArrayList<Integer>();
+
+    var all = new ArrayList<>(rules);
+    if (expression != null && !expression.isBlank()) {
+      all.add("regex:^(?:" + expression + ")$");
+    }
+
+    for (String rule : all) {
+      int separator = rule.indexOf(':');
+      var type = separator == -1 ? rule : rule.substring(0, separator);
+      var value = separator == -1 ? "" : rule.substring(separator + 1);
+      int index = names.size();
+
+      switch (type) {
+        case "vanilla" -> {
+          if (vanillaRule == -1) {
+            vanillaRule = index;
+          }
+        }
+        case "contains", "prefix" -> {
+          if (value.isEmpty()) {
+            logger.warn("Skipping the empty nickname rule: " + rule);
+            continue;
+          }
+          literals.add(value);
+          anchored.add(type.equals("prefix"));
+          literalRules.add(index);
+        }
+        case "regex" -> {
+          try {
+            Pattern.compile(value);
+          } catch (PatternSyntaxException ex) {
+            logger.warn("Skipping the invalid nickname rule: " + rule + " [" + ex.getDescription() + "]");
+            continue;
+          }
+          regexes.add(value);
+          regexRules.add(index);
+        }
+        default -> {
+          logger.warn("Skipping the unknown nickname rule: " + rule + " (expected vanilla, contains:, prefix: or regex:)");
+          continue;
+        }
+      }
+      names.add(rule);
+    }
+
+    AhoCorasick automaton = null;
+    if (!literals.isEmpty()) {
+      var flags = new boolean[anchored.size()];
+      for (int i = 0; i < flags.length; i++) {
+        flags[i] = anchored.get(i);
+      }
+      automaton = new AhoCorasick(literals, flags);
+    }
+
+    // Numbered backreferences would point to the wrong groups in the combined pattern.
+    var combinable = new ArrayList<Integer>();
+    var separate = new ArrayList<Integer>();
+    for (int i = 0; i < regexes.size(); i++) {
+      (NUMBERED_BACKREFERENCE.matcher(regexes.get(i)).find() ? separate : combinable).add(i);
+    }
+
+    Pattern combined = null;
+    if (!combinable.isEmpty()) {
+      var builder = new StringBuilder();
+      for (int i = 0; i < combinable.size(); i++) {
+        builder.append(i == 0 ? "" : "|").append("(?<").append(groupName(i)).append('>').append(regexes.get(combinable.get(i))).append(')');
+      }
+
+      try {
+        combined = Pattern.compile(builder.toString());
+      } catch (PatternSyntaxException ex) {
+        separate.addAll(combinable); // e.g. the same named group in two rules.
+        combinable.clear();
+      }
+    }
+
+    var combinedPatterns = new Pattern[combinable.size()];
+    for (int i = 0; i < combinable.size(); i++) {
+      combinedPatterns[i] = Pattern.compile(regexes.get(combinable.get(i)));
+    }
+
+    separate.sort(null); // in the configured order.
+    var separatePatterns = new Pattern[separate.size()];
+    var separateRules = new int[separate.size()];
+    for (int i = 0; i < separate.size(); i++) {
+      separatePatterns[i] = Pattern.compile(regexes.get(separate.get(i)));
+      separateRules[i] = regexRules.get(separate.get(i));
+    }
+
+    return new NicknameRules(names.toArray(String[]::new), previous, vanillaRule,
+        automaton, literalRules.stream().mapToInt(Integer::intValue).toArray(),
+        combined, combinedPatterns, combinable.stream().mapToInt(i -> regexRules.get(i)).toArray(),
+        separatePatterns, separateRules);
+  }
+
+  /**
+   * Checks the nickname against all rules, and counts the detection of the first matching rule
+   * in the configured order.
+   *
+   * @return true if any of the rules has matched
+   */
+  public boolean matches(@NotNull String nickname) {
+    int first = Integer.MAX_VALUE;
+    if (this.vanillaRule != -1 && !isVanilla(nickname)) {
+      first = this.vanillaRule;
+    }
+
+    // The literals are numbered in the configured order, the lowest one found is the first rule.
+    if (this.literals != null && this.literalRules[0] < first) {
+      int literal = this.literals.find(nickname);
+      if (literal != -1) {
+        first = Math.min(first, this.literalRules[literal]);
+      }
+    }
+
+    if (this.combined != null && this.combinedRules[0] < first) {
+      Matcher matcher = this.combined.matcher(nickname);
+      if (matcher.find()) {
+        // The alternative which matched first isn't necessarily the first rule, the rules before it are checked one by one.
+        for (int i = 0; i < this.combinedRules.length && this.combinedRules[i] < first; i++) {
+          if (matcher.start(this.combinedGroups[i]) != -1 || this.combinedPatterns[i].matcher(nickname).find()) {
+            first = this.combinedRules[i];
+            break;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < this.separate.length && this.separateRules[i] < first; i++) {
+      if (this.separate[i].matcher(nickname).find()) {
+        first = this.separateRules[i];
+        break;
+      }
+    }
+    return first != Integer.MAX_VALUE && this.hit(first);
+  }
+
+  /**
+   * @return the detection count of every rule, in the configured order.
+   */
+  @NotNull
+  public Map<String, Long> hits() {
+    var result = new LinkedHashMap<String, Long>();
+    for (int i = 0; i < this.rules.length; i++) {
+      result.merge(this.rules[i], this.hits[i].sum(), Long::sum);
+    }
+    return result;
+  }
+
+  /**
+   * Checks if the nickname is allowed by the vanilla client: 3 to 16 characters, only a-z, A-Z, 0-9 and _
+   */
+  public static boolean isVanilla(@NotNull String nickname) {
+    int length = nickname.length();
+    if (length < 3 || length > 16) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      char c = nickname.charAt(i);
+      if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hit(int rule) {
+    this.hits[rule].increment();
+    return true;
+  }
+
+  private static String groupName(int index) {
+    return "rule" + index;
+  }
+}
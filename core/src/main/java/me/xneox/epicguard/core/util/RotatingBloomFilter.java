@@ -0,0 +1,84 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A pair of Bloom filters, which remembers the values added during a time window in constant memory.
+ *
+ * Values are added to the current filter, and searched in both filters. When the window passes,
+ * or when the current filter is full, the previous filter is dropped and a new one is started.
+ * A value is therefore remembered for at least one window (unless the filters fill up sooner),
+ * and at most for two windows. Both filters are thread-safe, and rotated with a single CAS.
+ *
+ * @param <T> type of the values
+ */
+@SuppressWarnings("UnstableApiUsage")
+public final class RotatingBloomFilter<T> {
+  private final Funnel<? super T> funnel;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final long window;
+  private final AtomicReference<Generations<T>> generations;
+
+  /**
+   * @param funnel writes the values into the filter
+   * @param expectedInsertions amount of values added during a single window
+   * @param falsePositiveRate desired probability of a false positive, while the filters are not full
+   * @param window duration of the window in milliseconds
+   */
+  public RotatingBloomFilter(@NotNull Funnel<? super T> funnel, long expectedInsertions, double falsePositiveRate, long window) {
+    this.funnel = funnel;
+    this.expectedInsertions = Math.max(1L, expectedInsertions);
+    this.falsePositiveRate = falsePositiveRate;
+    this.window = window;
+    this.generations = new AtomicReference<>(new Generations<>(this.create(), this.create(), System.currentTimeMillis()));
+  }
+
+  public void put(@NotNull T value) {
+    this.current().current.put(value);
+  }
+
+  /**
+   * @return false if the value has definitely not been added during the last window,
+   *     true if it probably has been added.
+   */
+  public boolean mightContain(@NotNull T value) {
+    var current = this.current();
+    return current.current.mightContain(value) || current.previous.mightContain(value);
+  }
+
+  // Returns the current generations, rotating them if the window has passed or the current filter is full.
+  private Generations<T> current() {
+    var current = this.generations.get();
+    long now = System.currentTimeMillis();
+    if (now - current.startedAt < this.window && current.current.approximateElementCount() < this.expectedInsertions) {
+      return current;
+    }
+
+    var rotated = new Generations<>(this.create(), current.current, now);
+    return this.generations.compareAndSet(current, rotated) ? rotated : this.generations.get();
+  }
+
+  private BloomFilter<T> create() {
+    return BloomFilter.create(this.funnel, this.expectedInsertions, this.falsePositiveRate);
+  }
+
+  private record Generations<T>(BloomFilter<T> current, BloomFilter<T> previous, long startedAt) {}
+}
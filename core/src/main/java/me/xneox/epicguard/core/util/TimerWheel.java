@@ -0,0 +1,253 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A hashed timer wheel, which runs delayed tasks on a single background thread.
+ *
+ * Scheduling and cancelling a task is O(1) and never blocks: new and cancelled tasks are passed
+ * to the wheel's thread through lock-free queues. Every tick, the thread processes only a single
+ * bucket of the wheel. Tasks delayed longer than a full turn of the wheel wait for their remaining rounds.
+ * The tasks are run on the wheel's thread, so they should be short and must not block.
+ */
+public final class TimerWheel {
+  private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+  private final long tickDuration;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final Thread thread;
+  private final long startTime;
+
+  private volatile boolean running = true;
+  private long tick; // accessed only by the wheel's thread.
+
+  /**
+   * Creates the wheel and starts its thread.
+   *
+   * @param name name of the wheel's thread
+   * @param tickDuration duration of a single tick, this is the precision of the delays
+   * @param unit unit of the tick duration
+   * @param size amount of buckets in the wheel, rounded up to a power of two
+   */
+  public TimerWheel(@NotNull String name, long tickDuration, @NotNull TimeUnit unit, int size) {
+    this.tickDuration = Math.max(1L, unit.toNanos(tickDuration));
+    this.wheel = new Bucket[Integer.highestOneBit(Math.max(1, size - 1)) << 1];
+    for (int i = 0; i < this.wheel.length; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.mask = this.wheel.length - 1;
+
+    this.startTime = System.nanoTime();
+    this.thread = new Thread(this::run, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Schedules a task to be run on the wheel's thread after the specified delay.
+   *
+   * @param task the task
+   * @param delay the delay, rounded up to the tick duration
+   * @param unit unit of the delay
+   * @return a handle which can be used to cancel the task
+   */
+  @NotNull
+  public Timeout schedule(@NotNull Runnable task, long delay, @NotNull TimeUnit unit) {
+    var timeout = new Timeout(this, task, System.nanoTime() - this.startTime + unit.toNanos(Math.max(0L, delay)));
+    this.pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stops the wheel's thread. The remaining tasks are never run.
+   */
+  public void shutdown() {
+    this.running = false;
+    LockSupport.unpark(this.thread);
+  }
+
+  private void run() {
+    while (this.running) {
+      this.waitForNextTick();
+      if (!this.running) {
+        return;
+      }
+
+      this.removeCancelled();
+      this.transferPending();
+      this.wheel[(int) (this.tick & this.mask)].expire();
+      this.tick++;
+    }
+  }
+
+  // Sleeps until the end of the current tick.
+  private void waitForNextTick() {
+    long deadline = this.tickDuration * (this.tick + 1);
+    while (this.running) {
+      long remaining = deadline - (System.nanoTime() - this.startTime);
+      if (remaining <= 0L) {
+        return;
+      }
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = this.cancelled.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  // A limited amount of the new tasks is transferred every tick, so a flood can't stall the wheel.
+  private void transferPending() {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      var timeout = this.pending.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.state.get() == Timeout.CANCELLED) {
+        continue;
+      }
+
+      long calculated = timeout.deadline / this.tickDuration;
+      timeout.rounds = (calculated - this.tick) / this.wheel.length;
+      // Tasks which should have already run are put into the current bucket.
+      long ticks = Math.max(calculated, this.tick);
+      this.wheel[(int) (ticks & this.mask)].add(timeout);
+    }
+  }
+
+  /**
+   * A handle of a scheduled task.
+   */
+  public static final class Timeout {
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final TimerWheel wheel;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    // Accessed only by the wheel's thread.
+    private long rounds;
+    private Bucket bucket;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it hasn't been run yet.
+     *
+     * @return true if the task has been cancelled, false if it has been run or cancelled already
+     */
+    public boolean cancel() {
+      if (!this.state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+      this.wheel.cancelled.add(this); // removed from its bucket on the next tick.
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return this.state.get() == CANCELLED;
+    }
+
+    private void expire() {
+      if (this.state.compareAndSet(WAITING, EXPIRED)) {
+        try {
+          this.task.run();
+        } catch (Throwable throwable) {
+          LogUtils.catchException("A scheduled task has thrown an exception", throwable);
+        }
+      }
+    }
+  }
+
+  /**
+   * A doubly-linked list of the tasks, so the cancelled tasks are removed in O(1).
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (this.head == null) {
+        this.head = this.tail = timeout;
+      } else {
+        this.tail.next = timeout;
+        timeout.previous = this.tail;
+        this.tail = timeout;
+      }
+    }
+
+    // The bucket of a tick is processed after the tick has ended, so every task without remaining rounds is due.
+    private void expire() {
+      var timeout = this.head;
+      while (timeout != null) {
+        var next = timeout.next;
+        if (timeout.rounds <= 0L) {
+          this.remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          this.remove(timeout);
+        } else {
+          timeout.rounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.bucket != this) {
+        return; // already removed.
+      }
+
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        this.head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      } else {
+        this.tail = timeout.previous;
+      }
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+}
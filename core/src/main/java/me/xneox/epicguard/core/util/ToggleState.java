@@ -24,5 +24,13 @@ import me.xneox.epicguard.core.check.AbstractCheck;
 public enum ToggleState {
   NEVER,
   ALWAYS,
-  ATTACK
+  ATTACK;
+
+  /**
+   * @param attack whenever there is an attack
+   * @return whenever the check should be performed in this state
+   */
+  public boolean isActive(boolean attack) {
+    return this == ALWAYS || this == ATTACK && attack;
+  }
 }
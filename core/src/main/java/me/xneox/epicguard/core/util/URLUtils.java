@@ -18,8 +18,9 @@ package me.xneox.epicguard.core.util;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import me.xneox.epicguard.core.EpicGuardAPI;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -28,20 +29,33 @@ import org.jetbrains.annotations.Nullable;
  * This util helps with performing URL requests.
  */
 public final class URLUtils {
+  private static final AsyncHttpClient HTTP_CLIENT = new AsyncHttpClient(Duration.ofSeconds(5L), 4, 1024 * 1024);
+
+  /**
+   * Reads the content of the specified URL, blocking until the response is read.
+   * Responses bigger than 1 MB are not read, the failure is logged like any other.
+   *
+   * @return the content, or null if the request has failed.
+   */
   @Nullable
   public static String readString(@NotNull String url) {
     try {
-      var connection = openConnection(url);
-      try (Scanner scanner = new Scanner(connection.getInputStream(), StandardCharsets.UTF_8.toString())) {
-        scanner.useDelimiter("\\A");
-        return scanner.hasNext() ? scanner.next() : "";
-      }
-    } catch (IOException exception) {
-      EpicGuardAPI.INSTANCE.instance().logger().warn("Couldn't read the content of " + url + " [" + exception.getMessage() + "]");
+      return readStringAsync(url).join();
+    } catch (CompletionException exception) {
+      var cause = exception.getCause() != null ? exception.getCause() : exception;
+      EpicGuardAPI.INSTANCE.instance().logger().warn("Couldn't read the content of " + url + " [" + cause + "]");
     }
     return null;
   }
 
+  /**
+   * Reads the content of the specified URL without blocking, using the shared {@link AsyncHttpClient}.
+   */
+  @NotNull
+  public static CompletableFuture<String> readStringAsync(@NotNull String url) {
+    return HTTP_CLIENT.readString(url);
+  }
+
   @NotNull
   public static URLConnection openConnection(@NotNull String url) throws IOException {
     var connection = new URL(url).openConnection();
@@ -0,0 +1,220 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CountryTableTest {
+  private File database;
+
+  @BeforeEach
+  void writeDatabase() throws IOException {
+    var writer = new MmdbWriter();
+    writer.insert("1.2.3.0", 24, "PL");
+    writer.insert("1.2.4.0", 24, "PL"); // merged with the previous range.
+    writer.insert("5.0.0.0", 8, "DE");
+    writer.insert("2001:db8::", 32, "PL");
+    writer.insert("2a00::", 16, "DE");
+
+    this.database = File.createTempFile("GeoLite2-Country", ".mmdb");
+    Files.write(this.database.toPath(), writer.build());
+  }
+
+  @AfterEach
+  void deleteDatabase() {
+    //noinspection ResultOfMethodCallIgnored
+    this.database.delete();
+  }
+
+  @Test
+  void decidesIPv4() throws IOException {
+    var table = CountryTable.compile(this.database, Set.of("PL"), true);
+    assertEquals(CountryTable.RESTRICTED, table.decision("1.2.3.4"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("1.2.4.255"));
+    assertEquals(CountryTable.ALLOWED, table.decision("1.2.5.0"));
+    assertEquals(CountryTable.ALLOWED, table.decision("5.6.7.8"));
+    assertEquals(CountryTable.ALLOWED, table.decision("0.0.0.0"));
+    assertEquals(CountryTable.ALLOWED, table.decision("255.255.255.255"));
+  }
+
+  @Test
+  void decidesIPv4Mapped() throws IOException {
+    var table = CountryTable.compile(this.database, Set.of("PL"), true);
+    assertEquals(CountryTable.RESTRICTED, table.decision("::ffff:1.2.3.4"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("::ffff:102:304"));
+    assertEquals(CountryTable.ALLOWED, table.decision("::ffff:5.6.7.8"));
+  }
+
+  @Test
+  void decidesIPv6() throws IOException {
+    var table = CountryTable.compile(this.database, Set.of("PL"), true);
+    assertEquals(CountryTable.RESTRICTED, table.decision("2001:db8::1"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff"));
+    assertEquals(CountryTable.ALLOWED, table.decision("2001:db9::1"));
+    assertEquals(CountryTable.ALLOWED, table.decision("2a00:1450::1"));
+    assertEquals(CountryTable.UNKNOWN, table.decision("2002:102:304::1")); // 6to4, aliased to the IPv4 subtree.
+    assertEquals(CountryTable.UNKNOWN, table.decision("not an address"));
+  }
+
+  @Test
+  void decidesWhitelist() throws IOException {
+    var table = CountryTable.compile(this.database, Set.of("PL"), false);
+    assertEquals(CountryTable.ALLOWED, table.decision("1.2.3.4"));
+    assertEquals(CountryTable.ALLOWED, table.decision("::ffff:1.2.3.4"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("5.6.7.8"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("9.9.9.9")); // unknown country.
+    assertEquals(CountryTable.ALLOWED, table.decision("2001:db8::1"));
+    assertEquals(CountryTable.RESTRICTED, table.decision("2a00::1"));
+  }
+
+  @Test
+  void mergesNeighbouringRanges() throws IOException {
+    var table = CountryTable.compile(this.database, Set.of("PL"), true);
+    // IPv4: allowed, 1.2.3.0-1.2.4.255 restricted, allowed.
+    // IPv6: allowed (including the skipped aliases), 2001:db8::/32 restricted, allowed.
+    assertEquals(6, table.size());
+  }
+
+  /**
+   * Writes a minimal MaxMind DB (IPv6 tree, 24-bit records) with country records,
+   * IPv4 networks are stored in the ::/96 subtree like in the GeoLite2 databases.
+   */
+  private static final class MmdbWriter {
+    private final Node root = new Node();
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+    private void insert(String network, int prefix, String country) throws IOException {
+      var bytes = InetAddress.getByName(network).getAddress();
+      if (bytes.length == 4) {
+        var mapped = new byte[16];
+        System.arraycopy(bytes, 0, mapped, 12, 4);
+        bytes = mapped;
+        prefix += 96;
+      }
+
+      int offset = this.data.size();
+      writeMap(this.data, 1);
+      writeString(this.data, "country");
+      writeMap(this.data, 1);
+      writeString(this.data, "iso_code");
+      writeString(this.data, country);
+
+      var node = this.root;
+      for (int i = 0; i < prefix - 1; i++) {
+        int bit = bytes[i / 8] >>> (7 - i % 8) & 1;
+        if (node.children[bit] == null) {
+          node.children[bit] = new Node();
+        }
+        node = node.children[bit];
+      }
+      int bit = bytes[(prefix - 1) / 8] >>> (7 - (prefix - 1) % 8) & 1;
+      node.children[bit] = new Node();
+      node.children[bit].data = offset;
+    }
+
+    private byte[] build() throws IOException {
+      // Indexes of the inner nodes in breadth-first order.
+      var nodes = new ArrayList<Node>();
+      var indexes = new IdentityHashMap<Node, Integer>();
+      var queue = new ArrayDeque<Node>(List.of(this.root));
+      while (!queue.isEmpty()) {
+        var node = queue.poll();
+        indexes.put(node, nodes.size());
+        nodes.add(node);
+        for (Node child : node.children) {
+          if (child != null && child.data < 0) {
+            queue.add(child);
+          }
+        }
+      }
+
+      int nodeCount = nodes.size();
+      var output = new ByteArrayOutputStream();
+      for (Node node : nodes) {
+        for (Node child : node.children) {
+          int record = child == null ? nodeCount : child.data >= 0 ? nodeCount + 16 + child.data : indexes.get(child);
+          output.write(record >>> 16);
+          output.write(record >>> 8);
+          output.write(record);
+        }
+      }
+      output.write(new byte[16]); // data section separator.
+      this.data.writeTo(output);
+
+      output.write(new byte[] {(byte) 0xAB, (byte) 0xCD, (byte) 0xEF});
+      output.write("MaxMind.com".getBytes(StandardCharsets.US_ASCII));
+      writeMap(output, 9);
+      writeString(output, "node_count");
+      writeUnsigned(output, 6, nodeCount, 4);
+      writeString(output, "record_size");
+      writeUnsigned(output, 5, 24, 2);
+      writeString(output, "ip_version");
+      writeUnsigned(output, 5, 6, 2);
+      writeString(output, "database_type");
+      writeString(output, "GeoLite2-Country");
+      writeString(output, "languages");
+      output.write(0); // empty array, extended type 11.
+      output.write(11 - 7);
+      writeString(output, "binary_format_major_version");
+      writeUnsigned(output, 5, 2, 2);
+      writeString(output, "binary_format_minor_version");
+      writeUnsigned(output, 5, 0, 2);
+      writeString(output, "build_epoch");
+      output.write(8); // uint64, extended type 9.
+      output.write(9 - 7);
+      output.write(new byte[] {0, 0, 0, 0, 0x5D, (byte) 0xD3, (byte) 0x8C, 0});
+      writeString(output, "description");
+      writeMap(output, 0);
+      return output.toByteArray();
+    }
+
+    private static void writeMap(ByteArrayOutputStream output, int size) {
+      output.write(7 << 5 | size);
+    }
+
+    private static void writeString(ByteArrayOutputStream output, String value) throws IOException {
+      var bytes = value.getBytes(StandardCharsets.UTF_8);
+      output.write(2 << 5 | bytes.length);
+      output.write(bytes);
+    }
+
+    private static void writeUnsigned(ByteArrayOutputStream output, int type, long value, int size) {
+      output.write(type << 5 | size);
+      for (int i = size - 1; i >= 0; i--) {
+        output.write((int) (value >>> (i * 8)));
+      }
+    }
+
+    private static final class Node {
+      private final Node[] children = new Node[2];
+      private int data = -1;
+    }
+  }
+}
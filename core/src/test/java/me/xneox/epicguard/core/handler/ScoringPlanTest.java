@@ -0,0 +1,129 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.xneox.epicguard.core.check.AbstractCheck;
+import me.xneox.epicguard.core.config.PluginConfiguration;
+import me.xneox.epicguard.core.user.ConnectingUser;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+class ScoringPlanTest {
+  private static final ConnectingUser USER = new ConnectingUser("1.2.3.4", "Notch");
+
+  private final PluginConfiguration.Scoring config = new PluginConfiguration.Scoring(); // threshold of 1.0
+  private final List<String> performed = new ArrayList<>();
+
+  private TestCheck check(String name, boolean detected, boolean expensive, Double weight) {
+    if (weight != null) {
+      this.config.weights().put(name, weight);
+    }
+    return new TestCheck(name, detected, expensive);
+  }
+
+  private AbstractCheck detect(AbstractCheck... checks) {
+    return PreLoginHandler.ScoringPlan.compile(List.of(checks), this.config).detect(USER);
+  }
+
+  @Test
+  void blocksOnUnweightedCheck() {
+    this.config.weights().clear();
+    var blacklist = this.check("Blacklist", true, false, null);
+    var nickname = this.check("Nickname", true, false, 1.0D);
+
+    assertSame(blacklist, this.detect(nickname, blacklist)); // performed first, although configured last.
+    assertEquals(List.of("Blacklist"), this.performed);
+  }
+
+  @Test
+  void blocksWhenThresholdIsReached() {
+    this.config.weights().clear();
+    var nickname = this.check("Nickname", true, false, 0.6D);
+    var reconnect = this.check("Reconnect", true, false, 0.5D);
+    var proxy = this.check("Proxy", true, true, 1.0D);
+
+    assertSame(reconnect, this.detect(proxy, nickname, reconnect));
+    assertEquals(List.of("Nickname", "Reconnect"), this.performed);
+  }
+
+  @Test
+  void stopsWhenThresholdCantBeReached() {
+    this.config.weights().clear();
+    var nickname = this.check("Nickname", false, false, 0.5D);
+    var reconnect = this.check("Reconnect", false, false, 0.4D);
+    var proxy = this.check("Proxy", true, true, 0.6D);
+
+    assertNull(this.detect(proxy, nickname, reconnect));
+    assertEquals(List.of("Nickname", "Reconnect"), this.performed); // 0.6 of the proxy check isn't enough.
+  }
+
+  @Test
+  void skipsEverythingWhenWeightsAreTooLow() {
+    this.config.weights().clear();
+    var nickname = this.check("Nickname", true, false, 0.3D);
+    var reconnect = this.check("Reconnect", true, false, 0.3D);
+    var disabled = this.check("Geographical", true, false, 0.0D);
+
+    assertNull(this.detect(nickname, reconnect, disabled));
+    assertEquals(List.of(), this.performed);
+  }
+
+  @Test
+  void keepsPriorityWithinGroups() {
+    this.config.weights().clear();
+    var asn = this.check("Asn", false, true, 0.5D);
+    var nickname = this.check("Nickname", false, false, 0.5D);
+    var proxy = this.check("Proxy", false, true, 0.5D);
+    var reconnect = this.check("Reconnect", false, false, 0.5D);
+
+    assertNull(this.detect(asn, nickname, proxy, reconnect));
+    assertEquals(List.of("Nickname", "Reconnect", "Asn"), this.performed);
+  }
+
+  private final class TestCheck extends AbstractCheck {
+    private final String name;
+    private final boolean detected;
+    private final boolean expensive;
+
+    private TestCheck(String name, boolean detected, boolean expensive) {
+      super(null, null, List.of(), 0);
+      this.name = name;
+      this.detected = detected;
+      this.expensive = expensive;
+    }
+
+    @Override
+    public boolean isDetected(@NotNull ConnectingUser user) {
+      ScoringPlanTest.this.performed.add(this.name);
+      return this.detected;
+    }
+
+    @Override
+    public @NotNull String name() {
+      return this.name;
+    }
+
+    @Override
+    public boolean isExpensive() {
+      return this.expensive;
+    }
+  }
+}
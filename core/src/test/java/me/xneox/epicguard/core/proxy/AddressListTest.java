@@ -0,0 +1,121 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AddressListTest {
+  private static AddressList list(String... lines) {
+    var builder = AddressList.builder();
+    for (String line : lines) {
+      assertTrue(builder.add(line), line);
+    }
+    return builder.build();
+  }
+
+  @Test
+  void containsSingleAddresses() {
+    var list = list("1.2.3.4", "0.0.0.0", "255.255.255.255", "2001:db8::1");
+    assertTrue(list.contains("1.2.3.4"));
+    assertTrue(list.contains("0.0.0.0"));
+    assertTrue(list.contains("255.255.255.255"));
+    assertTrue(list.contains("2001:db8::1"));
+    assertFalse(list.contains("1.2.3.5"));
+    assertFalse(list.contains("2001:db8::2"));
+    assertEquals(4, list.size());
+  }
+
+  @Test
+  void containsNetworks() {
+    var list = list("10.0.0.0/8", "192.168.1.0/24", "2001:db8::/32");
+    assertTrue(list.contains("10.255.255.255"));
+    assertTrue(list.contains("192.168.1.77"));
+    assertFalse(list.contains("192.168.2.1"));
+    assertFalse(list.contains("11.0.0.0"));
+    assertTrue(list.contains("2001:db8:ffff::1"));
+    assertFalse(list.contains("2001:db9::"));
+  }
+
+  @Test
+  void mergesOverlappingAndAdjacentRanges() {
+    var list = list("10.0.0.0/24", "10.0.0.128/25", "10.0.1.0/24", "10.0.3.0/24");
+    assertEquals(2, list.size()); // 10.0.0.0 - 10.0.1.255 and 10.0.3.0/24
+    assertTrue(list.contains("10.0.1.255"));
+    assertFalse(list.contains("10.0.2.0"));
+    assertTrue(list.contains("10.0.3.0"));
+
+    var ipv6 = list("2001:db8::/64", "2001:db8:0:1::/64", "2001:db8::/48");
+    assertEquals(1, ipv6.size());
+    assertTrue(ipv6.contains("2001:db8:0:ffff::1"));
+  }
+
+  @Test
+  void mergesRangesAtEndOfAddressSpace() {
+    var list = list("255.255.255.0/24", "255.255.0.0/16", "ffff::/16", "::/0");
+    assertEquals(2, list.size());
+    assertTrue(list.contains("255.255.255.255"));
+    assertTrue(list.contains("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+    assertTrue(list.contains("::1"));
+  }
+
+  @Test
+  void mergesCompiledLists() {
+    var merged = AddressList.builder()
+        .addAll(list("1.2.3.4", "0.0.0.0", "10.0.0.0/25"))
+        .addAll(list("1.2.3.4", "10.0.0.128/25", "2001:db8::/32"))
+        .build();
+    assertTrue(merged.contains("1.2.3.4"));
+    assertTrue(merged.contains("0.0.0.0"));
+    assertTrue(merged.contains("10.0.0.200"));
+    assertTrue(merged.contains("2001:db8::5"));
+    assertEquals(4, merged.size()); // duplicates are stored once, the ranges are merged.
+  }
+
+  @Test
+  void parsesListFormats() {
+    var builder = AddressList.builder();
+    assertTrue(builder.add(""));
+    assertTrue(builder.add("# comment"));
+    assertTrue(builder.add("; comment"));
+    assertTrue(builder.add("  5.6.7.8:8080"));
+    assertTrue(builder.add("9.9.9.9, some description"));
+    assertTrue(builder.add("::1"));
+    assertFalse(builder.add("1.2.3.0/33"));
+    assertFalse(builder.add("1.2.3.0/-1"));
+    assertFalse(builder.add("not an address"));
+
+    var list = builder.build();
+    assertTrue(list.contains("5.6.7.8"));
+    assertTrue(list.contains("9.9.9.9"));
+    assertTrue(list.contains("::1"));
+  }
+
+  @Test
+  void matchesIPv4MappedAddresses() {
+    assertTrue(list("1.2.3.0/24").contains("::ffff:1.2.3.4"));
+  }
+
+  @Test
+  void emptyListContainsNothing() {
+    assertFalse(AddressList.EMPTY.contains("0.0.0.0"));
+    assertFalse(AddressList.EMPTY.contains("::"));
+    assertFalse(AddressList.EMPTY.contains("invalid"));
+    assertEquals(0, AddressList.EMPTY.size());
+  }
+}
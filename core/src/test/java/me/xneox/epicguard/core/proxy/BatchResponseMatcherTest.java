@@ -0,0 +1,75 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static me.xneox.epicguard.core.proxy.JsonResponseMatcherTest.match;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class BatchResponseMatcherTest {
+  private static final Pattern PATTERN = Pattern.compile("yes");
+  private static final String[] PATH = {"{IP}", "proxy"};
+
+  @Test
+  void assignsValuesToAddresses() throws Exception {
+    var matcher = new BatchResponseMatcher(PATTERN, PATH, List.of("1.1.1.1", "2.2.2.2"), 1024);
+    var body = "{\"status\": \"ok\", \"1.1.1.1\": {\"proxy\": \"yes\"}, \"2.2.2.2\": {\"proxy\": \"no\"}}";
+    assertTrue(match(matcher, body, 3));
+    assertEquals(Map.of("1.1.1.1", true, "2.2.2.2", false), matcher.results());
+  }
+
+  @Test
+  void ignoresOtherAddressesAndFields() throws Exception {
+    var matcher = new BatchResponseMatcher(PATTERN, PATH, List.of("1.1.1.1"), 1024);
+    var body = "{\"9.9.9.9\": {\"proxy\": \"yes\"}, \"1.1.1.1\": {\"type\": \"yes\", \"nested\": {\"proxy\": \"yes\"}, \"proxy\": \"no\"}}";
+    assertTrue(match(matcher, body));
+    assertEquals(Map.of("1.1.1.1", false), matcher.results());
+  }
+
+  @Test
+  void leavesMissingAddressesWithoutResult() throws Exception {
+    var matcher = new BatchResponseMatcher(PATTERN, PATH, List.of("1.1.1.1", "2.2.2.2"), 1024);
+    assertFalse(match(matcher, "{\"1.1.1.1\": {\"proxy\": \"yes\"}}"));
+    assertEquals(Map.of("1.1.1.1", true), matcher.results());
+
+    // An error message is not a failure, the missing addresses are failed by the batcher.
+    var error = new BatchResponseMatcher(PATTERN, PATH, List.of("1.1.1.1"), 1024);
+    assertFalse(match(error, "{\"status\": \"error\", \"message\": \"Invalid key\"}"));
+    assertTrue(error.results().isEmpty());
+  }
+
+  @Test
+  void supportsAddressInsideThePath() throws Exception {
+    var matcher = new BatchResponseMatcher(PATTERN, new String[] {"data", "{IP}", "proxy"}, List.of("1.1.1.1", "::1"), 1024);
+    var body = "{\"proxy\": \"yes\", \"data\": {\"::1\": {\"proxy\": \"yes\"}, \"1.1.1.1\": {\"proxy\": \"no\"}}}";
+    assertTrue(match(matcher, body, 5));
+    assertEquals(Map.of("1.1.1.1", false, "::1", true), matcher.results());
+  }
+
+  @Test
+  void stopsAfterEveryAddressHasResult() throws Exception {
+    var matcher = new BatchResponseMatcher(PATTERN, PATH, List.of("1.1.1.1"), 64);
+    // The rest of the response is over the limit, and would not be parsed.
+    var body = "{\"1.1.1.1\": {\"proxy\": \"no\"}, \"padding\": \"" + "x".repeat(200) + "\"}";
+    assertTrue(match(matcher, body, 8));
+    assertEquals(Map.of("1.1.1.1", false), matcher.results());
+  }
+}
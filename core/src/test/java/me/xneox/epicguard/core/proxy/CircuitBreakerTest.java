@@ -0,0 +1,115 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+  @Test
+  void staysClosedBelowMinimumCalls() {
+    var breaker = new CircuitBreaker(50, 60_000L, 1000L);
+    for (int i = 0; i < 9; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.record(false, 10L);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertEquals(9, breaker.failures());
+  }
+
+  @Test
+  void opensAtFailureThreshold() {
+    var breaker = new CircuitBreaker(50, 60_000L, 1000L);
+    for (int i = 0; i < 5; i++) {
+      breaker.record(true, 10L);
+      breaker.record(false, 10L);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void countsSlowCallsAsFailures() {
+    var breaker = new CircuitBreaker(50, 60_000L, 100L);
+    for (int i = 0; i < 10; i++) {
+      breaker.record(true, 500L);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+
+  @Test
+  void forgetsOutcomesOutsideWindow() {
+    var breaker = new CircuitBreaker(50, 60_000L, 1000L);
+    for (int i = 0; i < 4; i++) {
+      breaker.record(false, 10L);
+    }
+    for (int i = 0; i < 16; i++) {
+      breaker.record(true, 10L);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertEquals(20, breaker.calls());
+    assertEquals(4, breaker.failures());
+
+    // The window is full, every success replaces one of the oldest failures.
+    for (int i = 0; i < 4; i++) {
+      breaker.record(true, 10L);
+    }
+    assertEquals(20, breaker.calls());
+    assertEquals(0, breaker.failures());
+  }
+
+  @Test
+  void allowsSingleProbeAfterOpenDuration() throws InterruptedException {
+    var breaker = new CircuitBreaker(50, 50L, 1000L);
+    breaker.trip();
+    assertFalse(breaker.tryAcquire());
+
+    Thread.sleep(100L);
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire()); // only one probe at a time.
+
+    breaker.record(true, 10L);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertEquals(0, breaker.calls());
+  }
+
+  @Test
+  void failedProbeOpensAgain() throws InterruptedException {
+    var breaker = new CircuitBreaker(50, 50L, 1000L);
+    breaker.trip();
+    Thread.sleep(100L);
+
+    assertTrue(breaker.tryAcquire());
+    breaker.record(false, 10L);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void releasedProbeAllowsAnotherOne() throws InterruptedException {
+    var breaker = new CircuitBreaker(50, 50L, 1000L);
+    breaker.trip();
+    Thread.sleep(100L);
+
+    assertTrue(breaker.tryAcquire());
+    breaker.release(); // cancelled, no outcome.
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    assertTrue(breaker.tryAcquire());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class JsonResponseMatcherTest {
+  private static final String[] PATH = {"1.2.3.4", "proxy"};
+
+  @Test
+  void matchesField() throws Exception {
+    var body = "{\"status\": \"ok\", \"1.2.3.4\": {\"proxy\": \"yes\", \"type\": \"VPN\"}}";
+    assertTrue(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), body));
+  }
+
+  @Test
+  void doesNotMatchOtherFields() throws Exception {
+    var body = "{\"status\": \"yes\", \"1.2.3.4\": {\"proxy\": \"no\", \"type\": \"yes\"}, \"proxy\": \"yes\"}";
+    assertFalse(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), body));
+  }
+
+  @Test
+  void failsWithoutField() {
+    // For example an error message of a service over its quota, which mustn't be stored as a negative verdict.
+    var body = "{\"status\": \"denied\", \"message\": \"1000 free queries exhausted\"}";
+    var ex = assertThrows(ExecutionException.class, () -> match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), body));
+    assertTrue(ex.getCause() instanceof IOException);
+  }
+
+  @Test
+  void matchesAcrossParts() throws Exception {
+    var body = "{\"1.2.3.4\": {\"asn\": \"AS1234\", \"provider\": \"Example\", \"proxy\": \"yes\"}}";
+    assertTrue(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), body, 1));
+    assertTrue(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), body, 5));
+  }
+
+  @Test
+  void treatsTruncatedBodyAsNotMatched() throws Exception {
+    // The limit is reached in the middle of the document, the field comes after it.
+    var body = "{\"status\": \"ok\", \"padding\": \"" + "x".repeat(200) + "\", \"1.2.3.4\": {\"proxy\": \"yes\"}}";
+    assertFalse(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 64), body, 16));
+  }
+
+  @Test
+  void matchesBeforeLimit() throws Exception {
+    var body = "{\"1.2.3.4\": {\"proxy\": \"yes\"}, \"padding\": \"" + "x".repeat(200) + "\"}";
+    assertTrue(match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 64), body, 16));
+  }
+
+  @Test
+  void failsOnInvalidJson() {
+    var ex = assertThrows(ExecutionException.class, () -> match(new JsonResponseMatcher(Pattern.compile("yes"), PATH, 1024), "<html>Bad Gateway</html>"));
+    assertTrue(ex.getCause() instanceof IOException);
+  }
+
+  /**
+   * Passes the body to the matcher in parts of the specified size, like the HTTP client does.
+   */
+  static boolean match(ResponseMatcher matcher, String body, int partSize) throws Exception {
+    matcher.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+
+    var bytes = body.getBytes(StandardCharsets.UTF_8);
+    var result = matcher.getBody().toCompletableFuture();
+    for (int i = 0; i < bytes.length && !result.isDone(); i += partSize) {
+      matcher.onNext(List.of(ByteBuffer.wrap(bytes, i, Math.min(partSize, bytes.length - i))));
+    }
+    matcher.onComplete();
+    return result.get();
+  }
+
+  static boolean match(ResponseMatcher matcher, String body) throws Exception {
+    return match(matcher, body, Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import me.xneox.epicguard.core.config.PluginConfiguration;
+import me.xneox.epicguard.core.util.AsyncHttpClient;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.NOPLogger;
+
+class ProxyBatcherTest {
+  private static final ProxyService SERVICE = new ProxyService("https://service.example/{IP}", Pattern.compile("yes"));
+  private static final PluginConfiguration.ProxyCheck CONFIG = new PluginConfiguration.ProxyCheck();
+
+  private final LinkedBlockingQueue<Map<String, CompletableFuture<Boolean>>> sent = new LinkedBlockingQueue<>();
+  private final ProxyBatcher batcher = new ProxyBatcher(() -> CONFIG, NOPLogger.NOP_LOGGER, SERVICE,
+      new ServiceHealth(SERVICE, new TokenBucket(10), new CircuitBreaker(50, 60_000L, 1000L)),
+      new AsyncHttpClient(Duration.ofSeconds(1L), 1, 1024)) {
+    @Override
+    void send(Map<String, CompletableFuture<Boolean>> entries) {
+      ProxyBatcherTest.this.sent.add(entries);
+    }
+  };
+
+  @Test
+  void sendsBatchAfterWindow() throws Exception {
+    this.batcher.submit("1.1.1.1");
+    this.batcher.submit("2.2.2.2");
+    this.batcher.submit("3.3.3.3");
+
+    var batch = this.sent.poll(1L, TimeUnit.SECONDS);
+    assertEquals(List.of("1.1.1.1", "2.2.2.2", "3.3.3.3"), List.copyOf(batch.keySet()));
+    assertTrue(this.sent.isEmpty());
+  }
+
+  @Test
+  void sendsFullBatchImmediately() throws Exception {
+    for (int i = 0; i < CONFIG.batchSize(); i++) {
+      this.batcher.submit("10.0.0." + i);
+    }
+    assertEquals(CONFIG.batchSize(), this.sent.remove().size()); // sent by the last submit.
+
+    // The next address starts a new batch, the window of the previous one doesn't send it early.
+    this.batcher.submit("10.0.1.0");
+    var batch = this.sent.poll(1L, TimeUnit.SECONDS);
+    assertEquals(List.of("10.0.1.0"), List.copyOf(batch.keySet()));
+    Thread.sleep(CONFIG.batchWindow() * 3L);
+    assertTrue(this.sent.isEmpty());
+  }
+
+  @Test
+  void sharesLookupOfSameAddress() throws Exception {
+    var first = this.batcher.submit("1.1.1.1");
+    assertSame(first, this.batcher.submit("1.1.1.1"));
+    assertEquals(1, this.sent.poll(1L, TimeUnit.SECONDS).size());
+  }
+
+  @Test
+  void replacesCancelledLookup() throws Exception {
+    var cancelled = this.batcher.submit("1.1.1.1");
+    cancelled.cancel(false);
+
+    var replaced = this.batcher.submit("1.1.1.1");
+    assertNotSame(cancelled, replaced);
+    assertSame(replaced, this.sent.poll(1L, TimeUnit.SECONDS).get("1.1.1.1"));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static me.xneox.epicguard.core.proxy.JsonResponseMatcherTest.match;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class RegexResponseMatcherTest {
+  @Test
+  void matchesPattern() throws Exception {
+    assertTrue(match(new RegexResponseMatcher(Pattern.compile("(yes|VPN)"), 1024), "{\"proxy\": \"yes\"}"));
+    assertFalse(match(new RegexResponseMatcher(Pattern.compile("(yes|VPN)"), 1024), "{\"proxy\": \"no\"}"));
+  }
+
+  @Test
+  void matchesAcrossParts() throws Exception {
+    var body = "x".repeat(5000) + "proxy detected" + "x".repeat(5000);
+    assertTrue(match(new RegexResponseMatcher(Pattern.compile("proxy detected"), 16384), body, 7));
+  }
+
+  @Test
+  void matchesAnchoredPatternAgainstWholeBody() throws Exception {
+    var pattern = Pattern.compile("^yes$");
+    assertTrue(match(new RegexResponseMatcher(pattern, 1024), "yes", 1));
+    assertFalse(match(new RegexResponseMatcher(pattern, 1024), "yesno", 1)); // "yes" is not the whole body.
+    assertFalse(match(new RegexResponseMatcher(pattern, 1024), "no yes", 2));
+
+    var start = Pattern.compile("^\\{\"status\": \"ok\"");
+    assertTrue(match(new RegexResponseMatcher(start, 16384), "{\"status\": \"ok\"" + "x".repeat(5000), 100));
+    assertFalse(match(new RegexResponseMatcher(start, 16384), "x".repeat(3000) + "{\"status\": \"ok\"", 100));
+  }
+
+  @Test
+  void matchesLongPattern() throws Exception {
+    var value = "a".repeat(3000);
+    assertTrue(match(new RegexResponseMatcher(Pattern.compile("\"" + value + "\""), 16384), "{\"x\": \"" + value + "\"}", 512));
+  }
+
+  @Test
+  void decodesCharactersSplitBetweenParts() throws Exception {
+    assertTrue(match(new RegexResponseMatcher(Pattern.compile("za\u017C\u00F3\u0142\u0107"), 1024), "{\"x\": \"za\u017C\u00F3\u0142\u0107\"}", 1));
+  }
+
+  @Test
+  void ignoresBodyAfterLimit() throws Exception {
+    assertFalse(match(new RegexResponseMatcher(Pattern.compile("yes"), 100), "x".repeat(100) + "yes"));
+    assertTrue(match(new RegexResponseMatcher(Pattern.compile("yes"), 100), "x".repeat(97) + "yes"));
+  }
+
+  @Test
+  void stopsReadingAtDefiniteMatch() {
+    var matcher = new RegexResponseMatcher(Pattern.compile("yes"), 1024);
+    var cancelled = new AtomicBoolean();
+    matcher.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+        cancelled.set(true);
+      }
+    });
+
+    matcher.onNext(List.of(ByteBuffer.wrap("proxy: yes, type: ".getBytes(StandardCharsets.UTF_8))));
+    assertTrue(cancelled.get());
+    assertTrue(matcher.getBody().toCompletableFuture().join());
+  }
+}
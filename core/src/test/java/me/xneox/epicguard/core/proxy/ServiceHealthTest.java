@@ -0,0 +1,129 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import me.xneox.epicguard.core.util.AsyncHttpClient;
+import me.xneox.epicguard.core.util.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServiceHealthTest {
+  private static final ProxyService SERVICE = new ProxyService("https://service.example/{IP}?key=secret", Pattern.compile("yes"));
+
+  private HttpServer server;
+  private String url;
+
+  @BeforeEach
+  void start() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.start();
+    this.url = "http://127.0.0.1:" + this.server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stop() {
+    this.server.stop(0);
+  }
+
+  @Test
+  void hidesUrlInName() {
+    assertEquals("service.example", health(10).name());
+  }
+
+  @Test
+  void opensImmediatelyWhenRateLimited() throws Exception {
+    this.server.createContext("/", exchange -> {
+      exchange.sendResponseHeaders(429, -1);
+      exchange.close();
+    });
+
+    var health = health(10);
+    assertTrue(health.tryAcquire());
+    health.recordFailure(this.failure(), 10L);
+
+    assertEquals(CircuitBreaker.State.OPEN, health.breaker().state());
+    assertFalse(health.tryAcquire());
+  }
+
+  @Test
+  void opensAfterServerErrors() throws Exception {
+    this.server.createContext("/", exchange -> {
+      exchange.sendResponseHeaders(503, -1);
+      exchange.close();
+    });
+
+    var health = health(100);
+    for (int i = 0; i < 9; i++) {
+      assertTrue(health.tryAcquire());
+      health.recordFailure(this.failure(), 10L);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, health.breaker().state());
+
+    assertTrue(health.tryAcquire());
+    health.recordFailure(this.failure(), 10L);
+    assertEquals(CircuitBreaker.State.OPEN, health.breaker().state());
+    assertFalse(health.tryAcquire());
+  }
+
+  @Test
+  void staysClosedOnSuccess() {
+    var health = health(100);
+    for (int i = 0; i < 20; i++) {
+      assertTrue(health.tryAcquire());
+      health.recordSuccess(10L);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, health.breaker().state());
+  }
+
+  @Test
+  void budgetIsNotSpentWhenBreakerIsOpen() throws InterruptedException {
+    var health = new ServiceHealth(SERVICE, new TokenBucket(1), new CircuitBreaker(50, 50L, 1000L));
+    health.breaker().trip();
+    assertFalse(health.tryAcquire());
+
+    // The only token is still there for the probe request, once the breaker allows it.
+    Thread.sleep(100L);
+    assertTrue(health.tryAcquire());
+    health.recordSuccess(10L);
+    assertEquals(CircuitBreaker.State.CLOSED, health.breaker().state());
+    assertFalse(health.tryAcquire());
+  }
+
+  // Performs a request against the test server, and returns its failure.
+  private Throwable failure() throws Exception {
+    var client = new AsyncHttpClient(Duration.ofSeconds(5), 1, 1024);
+    var ex = assertThrows(ExecutionException.class, () -> client.readString(this.url + "/1.2.3.4").get(5, TimeUnit.SECONDS));
+    assertTrue(ex.getCause() instanceof HttpStatusException);
+    return ex.getCause();
+  }
+
+  private static ServiceHealth health(int rateLimit) {
+    return new ServiceHealth(SERVICE, new TokenBucket(rateLimit), new CircuitBreaker(50, 60_000L, 1000L));
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.proxy;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+  @Test
+  void allowsBurstUpToCapacity() {
+    var bucket = new TokenBucket(5);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(bucket.tryAcquire());
+    }
+    assertFalse(bucket.tryAcquire());
+  }
+
+  @Test
+  void refillsOverTime() throws InterruptedException {
+    var bucket = new TokenBucket(20);
+    while (bucket.tryAcquire()) {
+      // take everything.
+    }
+
+    Thread.sleep(150L); // about 3 tokens.
+    assertTrue(bucket.tryAcquire());
+  }
+
+  @Test
+  void drainTakesAllTokens() throws InterruptedException {
+    var bucket = new TokenBucket(2);
+    bucket.drain();
+    assertFalse(bucket.tryAcquire());
+
+    Thread.sleep(600L); // a single token is refilled every 500ms.
+    assertTrue(bucket.tryAcquire());
+    assertFalse(bucket.tryAcquire());
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AddressMetaTest {
+  @Test
+  void copiesOnWrite() {
+    var meta = AddressMeta.EMPTY.withNickname("Notch");
+    var updated = meta.withNickname("Steve").withWhitelisted(true);
+
+    assertEquals(List.of("Notch"), meta.nicknames());
+    assertEquals(new AddressMeta(false, true, List.of("Notch", "Steve")), updated);
+    assertEquals(AddressMeta.EMPTY, new AddressMeta(false, false, List.of()));
+  }
+
+  @Test
+  void returnsSameMetaWhenUnchanged() {
+    var meta = new AddressMeta(true, false, List.of("Notch"));
+    assertSame(meta, meta.withNickname("Notch"));
+    assertSame(meta, meta.withBlacklisted(true));
+    assertSame(meta, meta.withWhitelisted(false));
+  }
+
+  @Test
+  void nicknamesAreImmutable() {
+    var source = new ArrayList<>(List.of("Notch"));
+    var meta = new AddressMeta(false, false, source);
+    source.add("Steve");
+
+    assertEquals(List.of("Notch"), meta.nicknames());
+    assertThrows(UnsupportedOperationException.class, () -> meta.nicknames().add("Steve"));
+    assertTrue(AddressMeta.EMPTY.nicknames().isEmpty());
+  }
+}
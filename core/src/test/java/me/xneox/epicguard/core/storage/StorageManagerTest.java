@@ -0,0 +1,94 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import me.xneox.epicguard.core.util.AddressKey;
+import me.xneox.epicguard.core.util.RotatingBloomFilter;
+import org.junit.jupiter.api.Test;
+
+class StorageManagerTest {
+  // The database is never connected in these tests.
+  private final StorageManager storage = new StorageManager(new Database(null),
+      new RotatingBloomFilter<AddressKey>((key, into) -> into.putLong(key.low()), 100L, 0.01D, 60_000L));
+
+  @Test
+  void lookupDoesNotAddAddress() {
+    assertSame(AddressMeta.EMPTY, this.storage.addressMeta("1.2.3.4"));
+    assertTrue(this.storage.addresses().isEmpty());
+    assertTrue(this.storage.dirtyAddresses().isEmpty());
+  }
+
+  @Test
+  void marksChangedAddresses() {
+    long version = this.storage.version();
+    var meta = this.storage.update("1.2.3.4", value -> value.withNickname("Notch"));
+
+    assertEquals(List.of("Notch"), meta.nicknames());
+    assertSame(meta, this.storage.addressMeta("1.2.3.4"));
+    assertEquals(Set.of("1.2.3.4"), this.storage.dirtyAddresses());
+    assertEquals(version + 1, this.storage.version());
+  }
+
+  @Test
+  void ignoresUpdatesWithoutChange() {
+    this.storage.update("1.2.3.4", value -> value.withNickname("Notch"));
+    this.storage.dirtyAddresses().clear(); // saved.
+    long version = this.storage.version();
+
+    this.storage.update("1.2.3.4", value -> value.withNickname("Notch"));
+    this.storage.update("5.6.7.8", value -> value.withBlacklisted(false)); // still empty.
+
+    assertTrue(this.storage.dirtyAddresses().isEmpty());
+    assertEquals(version, this.storage.version());
+    assertFalse(this.storage.addresses().containsKey("5.6.7.8"));
+  }
+
+  @Test
+  void keepsConcurrentUpdates() throws InterruptedException {
+    var executor = Executors.newFixedThreadPool(8);
+    var done = new CountDownLatch(800);
+    for (int i = 0; i < 800; i++) {
+      var nickname = "Player" + i;
+      executor.execute(() -> {
+        this.storage.update("1.2.3.4", value -> value.withNickname(nickname));
+        done.countDown();
+      });
+    }
+    assertTrue(done.await(10L, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    assertEquals(800, this.storage.addressMeta("1.2.3.4").nicknames().size());
+    assertEquals(800, this.storage.version());
+  }
+
+  @Test
+  void findsLastSeenAddress() {
+    this.storage.update("1.2.3.4", value -> value.withNickname("Notch"));
+    assertEquals("1.2.3.4", this.storage.resolveAddress("notch"));
+    assertEquals("5.6.7.8", this.storage.resolveAddress("5.6.7.8"));
+    assertNull(this.storage.resolveAddress("Steve"));
+  }
+}
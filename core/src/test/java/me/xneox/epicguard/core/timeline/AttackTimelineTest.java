@@ -0,0 +1,128 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.timeline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AttackTimelineTest {
+  @Test
+  void summarizesEmptyTimeline() {
+    var summary = new AttackTimeline(10).summarize(60L);
+    assertEquals(0, summary.rows());
+    assertEquals(0L, summary.totalBlocks());
+    assertTrue(summary.blocks().isEmpty());
+  }
+
+  @Test
+  void summarizesRecentSeconds() {
+    var timeline = new AttackTimeline(10);
+    timeline.recordPass();
+    timeline.recordBlock("NicknameCheck");
+    timeline.record(100L, 5, false);
+
+    timeline.recordBlock("ProxyCheck");
+    timeline.recordBlock("NicknameCheck");
+    timeline.recordBlock("NicknameCheck");
+    timeline.record(101L, 40, true);
+
+    timeline.recordPass();
+    timeline.recordPass();
+    timeline.record(102L, 12, true);
+
+    var all = timeline.summarize(60L);
+    assertEquals(3, all.rows());
+    assertEquals(2, all.attackSeconds());
+    assertEquals(40, all.peakCps());
+    assertEquals(101L, all.peakTime());
+    assertEquals(57L, all.connections());
+    assertEquals(3L, all.passes());
+    assertEquals(List.of("NicknameCheck", "ProxyCheck"), List.copyOf(all.blocks().keySet())); // order of the first detection.
+    assertEquals(Map.of("NicknameCheck", 3L, "ProxyCheck", 1L), all.blocks());
+    assertEquals(4L, all.totalBlocks());
+
+    var recent = timeline.summarize(2L); // 101 and 102
+    assertEquals(2, recent.rows());
+    assertEquals(52L, recent.connections());
+    assertEquals(Map.of("NicknameCheck", 2L, "ProxyCheck", 1L), recent.blocks());
+  }
+
+  @Test
+  void overwritesOldestRowsWhenFull() {
+    var timeline = new AttackTimeline(4);
+    for (int second = 1; second <= 6; second++) {
+      for (int i = 0; i < second; i++) {
+        timeline.recordBlock("BlacklistCheck");
+      }
+      timeline.record(second, second * 10, second % 2 == 0);
+    }
+
+    assertEquals(4, timeline.size());
+    var snapshot = timeline.snapshot();
+    assertArrayEquals(new long[] {3L, 4L, 5L, 6L}, snapshot.times());
+    assertArrayEquals(new int[] {30, 40, 50, 60}, snapshot.cps());
+    assertArrayEquals(new byte[] {0, 1, 0, 1}, snapshot.attack());
+    assertArrayEquals(new char[] {3, 4, 5, 6}, snapshot.blocks());
+
+    var summary = timeline.summarize(3600L);
+    assertEquals(4, summary.rows());
+    assertEquals(180L, summary.connections());
+    assertEquals(Map.of("BlacklistCheck", 18L), summary.blocks());
+  }
+
+  @Test
+  void storesBlocksOfEveryCheckInSnapshot() {
+    var timeline = new AttackTimeline(4);
+    timeline.recordBlock("A");
+    timeline.record(1L, 1, false);
+    timeline.recordBlock("B");
+    timeline.recordBlock("B");
+    timeline.recordBlock("A");
+    timeline.record(2L, 3, false);
+
+    var snapshot = timeline.snapshot();
+    assertEquals(2, snapshot.rows());
+    assertArrayEquals(new String[] {"A", "B"}, snapshot.checks());
+    assertArrayEquals(new char[] {1, 0, 1, 2}, snapshot.blocks());
+  }
+
+  @Test
+  void ignoresChecksOverLimit() {
+    var timeline = new AttackTimeline(4);
+    for (int i = 0; i <= AttackTimeline.MAX_CHECKS; i++) {
+      timeline.recordBlock("Check" + i);
+    }
+    timeline.record(1L, 0, false);
+
+    var blocks = timeline.summarize(60L).blocks();
+    assertEquals(AttackTimeline.MAX_CHECKS, blocks.size());
+    assertEquals(AttackTimeline.MAX_CHECKS, timeline.summarize(60L).totalBlocks());
+  }
+
+  @Test
+  void saturatesBlocksPerSecond() {
+    var timeline = new AttackTimeline(4);
+    for (int i = 0; i < 70000; i++) {
+      timeline.recordBlock("ReconnectCheck");
+    }
+    timeline.record(1L, 70000, true);
+    assertEquals(65535L, timeline.summarize(60L).blocks().get("ReconnectCheck"));
+  }
+}
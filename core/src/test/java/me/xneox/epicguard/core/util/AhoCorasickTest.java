@@ -0,0 +1,68 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickTest {
+  private static AhoCorasick automaton(String... patterns) {
+    return new AhoCorasick(List.of(patterns), new boolean[patterns.length]);
+  }
+
+  @Test
+  void findsPatterns() {
+    var automaton = automaton("bot", "spam", "mcstorm");
+    assertEquals(0, automaton.find("xBotx"));
+    assertEquals(1, automaton.find("SPAM"));
+    assertEquals(2, automaton.find("the_mcstorm_1"));
+    assertEquals(-1, automaton.find("Notch"));
+    assertEquals(-1, automaton.find(""));
+  }
+
+  @Test
+  void findsOverlappingPatterns() {
+    var automaton = automaton("hers", "he", "she", "his");
+    assertEquals(0, automaton.find("ushers"));
+    assertEquals(1, automaton.find("ushe"));
+    assertEquals(3, automaton.find("ahis"));
+    assertEquals(1, automaton.find("ahishe")); // "his", "she" and "he".
+  }
+
+  @Test
+  void returnsLowestIndexFound() {
+    var automaton = automaton("xyz", "ab", "b");
+    assertEquals(0, automaton.find("abxyz")); // "b" and "ab" end before "xyz".
+    assertEquals(1, automaton.find("abb"));
+    assertEquals(2, automaton.find("bb"));
+  }
+
+  @Test
+  void matchesAnchoredPatternsOnlyAtStart() {
+    var automaton = new AhoCorasick(List.of("mc", "bot"), new boolean[] {true, false});
+    assertEquals(0, automaton.find("McDonald"));
+    assertEquals(-1, automaton.find("AmcB"));
+    assertEquals(1, automaton.find("AmcBot"));
+  }
+
+  @Test
+  void supportsOtherCharacters() {
+    var automaton = automaton("\u017C\u00F3\u0142w");
+    assertEquals(0, automaton.find("x\u017B\u00D3\u0141Wx"));
+    assertEquals(-1, automaton.find("zolw"));
+  }
+}
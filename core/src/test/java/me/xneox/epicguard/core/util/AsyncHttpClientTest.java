@@ -0,0 +1,202 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncHttpClientTest {
+  private HttpServer server;
+  private String url;
+
+  @BeforeEach
+  void start() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool());
+    this.server.start();
+    this.url = "http://127.0.0.1:" + this.server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stop() {
+    this.server.stop(0);
+  }
+
+  @Test
+  void limitsConcurrentRequestsToHost() throws Exception {
+    var inProgress = new AtomicInteger();
+    var maxInProgress = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    this.server.createContext("/limit", exchange -> {
+      maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      inProgress.decrementAndGet();
+      respond(exchange, "ok");
+    });
+
+    var client = new AsyncHttpClient(Duration.ofSeconds(10), 2, 1024);
+    var futures = new ArrayList<CompletableFuture<String>>();
+    for (int i = 0; i < 6; i++) {
+      futures.add(client.readString(this.url + "/limit"));
+    }
+
+    Thread.sleep(500L); // let the first requests reach the server.
+    release.countDown();
+
+    for (var future : futures) {
+      assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(2, maxInProgress.get());
+  }
+
+  @Test
+  void failsWhenServerDoesNotRespond() {
+    var release = new CountDownLatch(1);
+    this.server.createContext("/hang", exchange -> {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, "too late");
+    });
+
+    var client = new AsyncHttpClient(Duration.ofMillis(300), 1, 1024);
+    long start = System.nanoTime();
+    var ex = assertThrows(ExecutionException.class, () -> client.readString(this.url + "/hang").get(5, TimeUnit.SECONDS));
+    release.countDown();
+
+    assertTrue(ex.getCause() instanceof TimeoutException || ex.getCause() instanceof HttpTimeoutException,
+        "unexpected cause: " + ex.getCause());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000L);
+  }
+
+  @Test
+  void failsWhenBodyExceedsMaximumSize() {
+    this.server.createContext("/large", exchange -> respond(exchange, "x".repeat(1024 * 1024)));
+
+    var client = new AsyncHttpClient(Duration.ofSeconds(5), 1, 100);
+    var ex = assertThrows(ExecutionException.class, () -> client.readString(this.url + "/large").get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IOException.class, ex.getCause());
+  }
+
+  @Test
+  void readsBodyOfMaximumSize() throws Exception {
+    this.server.createContext("/exact", exchange -> respond(exchange, "x".repeat(100)));
+
+    var client = new AsyncHttpClient(Duration.ofSeconds(5), 1, 100);
+    assertEquals("x".repeat(100), client.readString(this.url + "/exact").get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void releasesPermitAfterTimeout() throws Exception {
+    var calls = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    this.server.createContext("/mixed", exchange -> {
+      if (calls.getAndIncrement() == 0) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      respond(exchange, "ok");
+    });
+
+    // The second request waits in the queue until the first one times out.
+    var client = new AsyncHttpClient(Duration.ofMillis(300), 1, 1024);
+    var first = client.readString(this.url + "/mixed");
+    var second = client.readString(this.url + "/mixed");
+
+    assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+    assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+    release.countDown();
+  }
+
+  @Test
+  void failsOnRateLimitedResponse() {
+    this.server.createContext("/limited", exchange -> respond(exchange, 429, "{\"status\": \"denied\", \"proxy\": \"no\"}"));
+
+    var client = new AsyncHttpClient(Duration.ofSeconds(5), 1, 1024);
+    var ex = assertThrows(ExecutionException.class, () -> client.readString(this.url + "/limited").get(5, TimeUnit.SECONDS));
+    var status = assertInstanceOf(HttpStatusException.class, ex.getCause());
+    assertEquals(429, status.statusCode());
+    assertTrue(status.isRateLimited());
+  }
+
+  @Test
+  void failsOnServerError() {
+    var subscribed = new AtomicInteger();
+    this.server.createContext("/error", exchange -> respond(exchange, 500, "Internal Server Error"));
+
+    // The body of the error page is never passed to the subscriber.
+    var client = new AsyncHttpClient(Duration.ofSeconds(5), 1, 1024);
+    var future = client.request(this.url + "/error", () -> {
+      subscribed.incrementAndGet();
+      return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+    });
+
+    var ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+    var status = assertInstanceOf(HttpStatusException.class, ex.getCause());
+    assertEquals(500, status.statusCode());
+    assertFalse(status.isRateLimited());
+    assertEquals(0, subscribed.get());
+  }
+
+  private static void respond(HttpExchange exchange, String body) throws IOException {
+    respond(exchange, 200, body);
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    var bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    } catch (IOException ignored) {
+      // the client has stopped reading the body.
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ExpiringHashSetTest {
+  @Test
+  void remembersAddedHashes() {
+    var set = new ExpiringHashSet(64);
+    long hash = ExpiringHashSet.hash("1.2.3.4", "Notch");
+    assertFalse(set.testAndAdd(hash, 60L));
+    assertTrue(set.testAndAdd(hash, 60L));
+    assertFalse(set.testAndAdd(ExpiringHashSet.hash("1.2.3.4", "Steve"), 60L));
+  }
+
+  @Test
+  void forgetsExpiredHashes() {
+    var set = new ExpiringHashSet(64);
+    assertFalse(set.testAndAdd(42L, 0L)); // expires right away.
+    assertFalse(set.testAndAdd(42L, 60L));
+    assertTrue(set.testAndAdd(42L, 60L));
+  }
+
+  @Test
+  void evictsEntryExpiringFirst() {
+    var set = new ExpiringHashSet(8); // 16 slots, at most 8 probed.
+    // The same lower bits select the same slot, the upper bits make them different.
+    for (long i = 0; i < 8; i++) {
+      assertFalse(set.testAndAdd(i + 1L << 32, 100L - i * 10L));
+    }
+    assertFalse(set.testAndAdd(9L << 32, 200L)); // replaces the last entry, expiring first.
+
+    for (long i = 0; i < 7; i++) {
+      assertTrue(set.testAndAdd(i + 1L << 32, 100L), "entry " + i);
+    }
+    assertTrue(set.testAndAdd(9L << 32, 200L));
+    assertFalse(set.testAndAdd(8L << 32, 100L));
+  }
+
+  @Test
+  void usesExpiredSlotsFirst() {
+    var set = new ExpiringHashSet(8);
+    assertFalse(set.testAndAdd(1L << 32, 0L));
+    for (long i = 1; i < 8; i++) {
+      assertFalse(set.testAndAdd(i + 1L << 32, 100L));
+    }
+    assertFalse(set.testAndAdd(9L << 32, 100L)); // takes the expired slot.
+
+    for (long i = 1; i < 8; i++) {
+      assertTrue(set.testAndAdd(i + 1L << 32, 100L));
+    }
+  }
+
+  @Test
+  void hashesPairsOfStrings() {
+    assertEquals(ExpiringHashSet.hash("ab", "c"), ExpiringHashSet.hash("ab", "c"));
+    assertNotEquals(ExpiringHashSet.hash("ab", "c"), ExpiringHashSet.hash("a", "bc"));
+    assertNotEquals(ExpiringHashSet.hash("a", "b"), ExpiringHashSet.hash("b", "a"));
+  }
+}
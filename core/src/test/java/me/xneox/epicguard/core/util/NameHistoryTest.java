@@ -0,0 +1,162 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class NameHistoryTest {
+  @Test
+  void computesDistance() {
+    assertEquals(0, NameHistory.distance("Notch", "Notch", 3));
+    assertEquals(1, NameHistory.distance("Notch", "Notch1", 3));
+    assertEquals(1, NameHistory.distance("Notch", "Nitch", 3));
+    assertEquals(3, NameHistory.distance("kitten", "sitting", 3));
+    assertEquals(5, NameHistory.distance("", "abcde", 10));
+    assertEquals(2, NameHistory.distance("ab", "ba", 2));
+  }
+
+  @Test
+  void exceedsBoundWhenDistanceIsLarger() {
+    assertTrue(NameHistory.distance("kitten", "sitting", 2) > 2);
+    assertTrue(NameHistory.distance("Player_001", "abcdefgh", 1) > 1);
+    assertTrue(NameHistory.distance("abc", "abcdef", 2) > 2);
+    assertTrue(NameHistory.distance("abc", "xyz", 0) > 0);
+  }
+
+  @Test
+  void matchesFullDistanceWithinBound() {
+    var random = new Random(42L);
+    for (int i = 0; i < 5000; i++) {
+      var first = randomName(random);
+      var second = random.nextBoolean() ? mutate(first, random) : randomName(random);
+      int expected = levenshtein(first, second);
+      for (int bound = 0; bound <= 6; bound++) {
+        int distance = NameHistory.distance(first, second, bound);
+        if (expected <= bound) {
+          assertEquals(expected, distance, first + " / " + second + " / " + bound);
+        } else {
+          assertTrue(distance > bound, first + " / " + second + " / " + bound);
+        }
+      }
+    }
+  }
+
+  @Test
+  void findsIdenticalAndSimilarNames() {
+    var history = new NameHistory(100, 60_000L);
+    history.add("Bot_0001");
+    history.add("Steve");
+
+    assertEquals(NameHistory.Match.IDENTICAL, history.find("Bot_0001", 2));
+    assertEquals(NameHistory.Match.SIMILAR, history.find("Bot_0002", 2));
+    assertEquals(NameHistory.Match.SIMILAR, history.find("Steve_", 1));
+    assertEquals(NameHistory.Match.NONE, history.find("Bot_0002", 0));
+    assertEquals(NameHistory.Match.NONE, history.find("Alex", 2));
+  }
+
+  @Test
+  void findsSameNamesAsFullSearch() {
+    var random = new Random(7L);
+    var names = new ArrayList<String>();
+    var history = new NameHistory(1000, 60_000L);
+    for (int i = 0; i < 300; i++) {
+      var name = randomName(random);
+      names.add(name);
+      history.add(name);
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      var name = random.nextBoolean() ? mutate(names.get(random.nextInt(names.size())), random) : randomName(random);
+      int maxDistance = 1 + random.nextInt(3);
+      var expected = names.contains(name) ? NameHistory.Match.IDENTICAL
+          : names.stream().anyMatch(other -> levenshtein(name, other) <= maxDistance) ? NameHistory.Match.SIMILAR : NameHistory.Match.NONE;
+      assertEquals(expected, history.find(name, maxDistance), name);
+    }
+  }
+
+  @Test
+  void forgetsExpiredNames() throws InterruptedException {
+    var history = new NameHistory(100, 40L);
+    history.add("Bot_0001");
+    Thread.sleep(100L);
+    assertEquals(NameHistory.Match.NONE, history.find("Bot_0001", 2));
+  }
+
+  @Test
+  void dropsOldestNamesWhenFull() {
+    var history = new NameHistory(8, 60_000L); // four generations of two names.
+    for (int i = 0; i < 10; i++) {
+      history.add("Name" + (char) ('a' + i));
+    }
+
+    assertEquals(NameHistory.Match.NONE, history.find("Namea", 0));
+    assertEquals(NameHistory.Match.NONE, history.find("Nameb", 0));
+    for (int i = 2; i < 10; i++) {
+      assertEquals(NameHistory.Match.IDENTICAL, history.find("Name" + (char) ('a' + i), 0));
+    }
+  }
+
+  private static String randomName(Random random) {
+    var builder = new StringBuilder();
+    int length = random.nextInt(12);
+    for (int i = 0; i < length; i++) {
+      builder.append("abcxyzAB_19".charAt(random.nextInt(11)));
+    }
+    return builder.toString();
+  }
+
+  private static String mutate(String name, Random random) {
+    var builder = new StringBuilder(name);
+    int edits = random.nextInt(5);
+    for (int i = 0; i < edits; i++) {
+      int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+      switch (random.nextInt(3)) {
+        case 0 -> builder.insert(position, 'q');
+        case 1 -> {
+          if (builder.length() > 0) {
+            builder.deleteCharAt(position);
+          }
+        }
+        default -> {
+          if (builder.length() > 0) {
+            builder.setCharAt(position, 'Z');
+          }
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  // The reference implementation, computing the whole matrix.
+  private static int levenshtein(String first, String second) {
+    var matrix = new int[first.length() + 1][second.length() + 1];
+    for (int i = 0; i <= first.length(); i++) {
+      for (int j = 0; j <= second.length(); j++) {
+        if (i == 0 || j == 0) {
+          matrix[i][j] = i + j;
+        } else {
+          int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+          matrix[i][j] = Math.min(Math.min(matrix[i - 1][j], matrix[i][j - 1]) + 1, matrix[i - 1][j - 1] + cost);
+        }
+      }
+    }
+    return matrix[first.length()][second.length()];
+  }
+}
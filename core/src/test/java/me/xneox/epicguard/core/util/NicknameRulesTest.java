@@ -0,0 +1,101 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.NOPLogger;
+
+class NicknameRulesTest {
+  private static NicknameRules compile(String... rules) {
+    return NicknameRules.compile(List.of(rules), null, null, NOPLogger.NOP_LOGGER);
+  }
+
+  @Test
+  void matchesEveryRuleType() {
+    var rules = compile("vanilla", "contains:bot", "prefix:mc", "regex:^[0-9]+$");
+    assertTrue(rules.matches("Not a vanilla name"));
+    assertTrue(rules.matches("xBoTx"));
+    assertTrue(rules.matches("McStorm"));
+    assertTrue(rules.matches("123456"));
+    assertFalse(rules.matches("Notch"));
+    assertFalse(rules.matches("AmcB"));
+    assertEquals(Map.of("vanilla", 1L, "contains:bot", 1L, "prefix:mc", 1L, "regex:^[0-9]+$", 1L), rules.hits());
+  }
+
+  @Test
+  void matchesExpressionAgainstWholeName() {
+    var rules = NicknameRules.compile(List.of(), "Bot_[0-9]+", null, NOPLogger.NOP_LOGGER);
+    assertTrue(rules.matches("Bot_123"));
+    assertFalse(rules.matches("xBot_123"));
+  }
+
+  @Test
+  void countsFirstRuleInConfiguredOrder() {
+    var literalFirst = compile("contains:ab", "vanilla");
+    assertTrue(literalFirst.matches("ab!"));
+    assertEquals(List.of(1L, 0L), List.copyOf(literalFirst.hits().values()));
+
+    var regexFirst = compile("regex:bot", "contains:bot");
+    assertTrue(regexFirst.matches("xbotx"));
+    assertEquals(List.of(1L, 0L), List.copyOf(regexFirst.hits().values()));
+
+    // The combined pattern finds "a" at the start first, but "z" is the first rule.
+    var combined = compile("regex:z", "regex:a");
+    assertTrue(combined.matches("az"));
+    assertEquals(List.of(1L, 0L), List.copyOf(combined.hits().values()));
+
+    // Rules with numbered backreferences are matched separately.
+    var separate = compile("regex:(.)\\1", "regex:x");
+    assertTrue(separate.matches("xaa"));
+    assertEquals(List.of(1L, 0L), List.copyOf(separate.hits().values()));
+
+    var literals = compile("contains:xyz", "contains:ab");
+    assertTrue(literals.matches("abxyz"));
+    assertEquals(List.of(1L, 0L), List.copyOf(literals.hits().values()));
+  }
+
+  @Test
+  void skipsInvalidRules() {
+    var rules = compile("regex:[", "contains:", "unknown:x", "contains:bot");
+    assertTrue(rules.matches("bot"));
+    assertEquals(Map.of("contains:bot", 1L), rules.hits());
+  }
+
+  @Test
+  void keepsCountsOfUnchangedRules() {
+    var previous = compile("contains:bot", "regex:spam");
+    previous.matches("bot");
+    previous.matches("spam");
+
+    var rules = NicknameRules.compile(List.of("contains:bot", "prefix:mc"), null, previous, NOPLogger.NOP_LOGGER);
+    assertEquals(Map.of("contains:bot", 1L, "prefix:mc", 0L), rules.hits());
+  }
+
+  @Test
+  void checksVanillaNames() {
+    assertTrue(NicknameRules.isVanilla("Notch"));
+    assertTrue(NicknameRules.isVanilla("abc"));
+    assertTrue(NicknameRules.isVanilla("Player_123456789"));
+    assertFalse(NicknameRules.isVanilla("ab"));
+    assertFalse(NicknameRules.isVanilla("Player_1234567890"));
+    assertFalse(NicknameRules.isVanilla("Not-ch"));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.hash.Funnels;
+import org.junit.jupiter.api.Test;
+
+class RotatingBloomFilterTest {
+  @Test
+  void containsAddedValues() {
+    var filter = new RotatingBloomFilter<>(Funnels.integerFunnel(), 1000L, 0.001D, 60_000L);
+    for (int i = 0; i < 100; i++) {
+      filter.put(i);
+    }
+    for (int i = 0; i < 100; i++) {
+      assertTrue(filter.mightContain(i));
+    }
+    assertFalse(filter.mightContain(1000));
+  }
+
+  @Test
+  void forgetsValuesAfterTwoWindows() throws InterruptedException {
+    var filter = new RotatingBloomFilter<>(Funnels.integerFunnel(), 1000L, 0.001D, 50L);
+    filter.put(1);
+    Thread.sleep(70L);
+    assertTrue(filter.mightContain(1)); // moved to the previous filter.
+    Thread.sleep(70L);
+    assertFalse(filter.mightContain(1));
+  }
+
+  @Test
+  void rotatesWhenFull() {
+    var filter = new RotatingBloomFilter<>(Funnels.integerFunnel(), 10L, 0.001D, 60_000L);
+    for (int i = 0; i < 21; i++) {
+      filter.put(i);
+    }
+
+    for (int i = 0; i < 10; i++) {
+      assertFalse(filter.mightContain(i), "value " + i);
+    }
+    for (int i = 10; i < 21; i++) {
+      assertTrue(filter.mightContain(i), "value " + i);
+    }
+  }
+}
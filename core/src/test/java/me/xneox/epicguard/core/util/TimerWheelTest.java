@@ -0,0 +1,133 @@
+/*
+ * EpicGuard is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpicGuard is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package me.xneox.epicguard.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+  // A turn of the wheel takes 40 ms.
+  private final TimerWheel wheel = new TimerWheel("Test Timer", 10L, TimeUnit.MILLISECONDS, 4);
+
+  @AfterEach
+  void shutdown() {
+    this.wheel.shutdown();
+  }
+
+  // Completes with the time in milliseconds after which the task has run.
+  private CompletableFuture<Long> schedule(long delay) {
+    long start = System.nanoTime();
+    var future = new CompletableFuture<Long>();
+    this.wheel.schedule(() -> future.complete(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)), delay, TimeUnit.MILLISECONDS);
+    return future;
+  }
+
+  @Test
+  void runsTaskAfterDelay() throws Exception {
+    long elapsed = this.schedule(25L).get(1L, TimeUnit.SECONDS);
+    assertTrue(elapsed >= 25L, "ran after " + elapsed + " ms");
+  }
+
+  @Test
+  void waitsForRemainingRounds() throws Exception {
+    var longer = this.schedule(130L); // more than three turns.
+    var shorter = this.schedule(10L);
+
+    long shorterElapsed = shorter.get(1L, TimeUnit.SECONDS);
+    assertTrue(shorterElapsed >= 10L, "ran after " + shorterElapsed + " ms");
+    assertFalse(longer.isDone());
+
+    long longerElapsed = longer.get(1L, TimeUnit.SECONDS);
+    assertTrue(longerElapsed >= 130L, "ran after " + longerElapsed + " ms");
+  }
+
+  @Test
+  void runsTasksInSameBucketSeparately() throws Exception {
+    // Both tasks are in the same bucket, a turn apart.
+    var first = this.schedule(20L);
+    var second = this.schedule(60L);
+
+    assertTrue(first.get(1L, TimeUnit.SECONDS) >= 20L);
+    assertTrue(second.get(1L, TimeUnit.SECONDS) >= 60L);
+  }
+
+  @Test
+  void runsOverdueTaskOnNextTick() throws Exception {
+    assertTrue(this.schedule(0L).get(1L, TimeUnit.SECONDS) < 500L);
+    assertTrue(this.schedule(-5L).get(1L, TimeUnit.SECONDS) < 500L);
+  }
+
+  @Test
+  void cancelsTask() throws Exception {
+    var run = new AtomicBoolean();
+    var timeout = this.wheel.schedule(() -> run.set(true), 30L, TimeUnit.MILLISECONDS);
+    var neighbour = this.schedule(30L);
+
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    assertFalse(timeout.cancel());
+
+    neighbour.get(1L, TimeUnit.SECONDS);
+    Thread.sleep(50L);
+    assertFalse(run.get());
+  }
+
+  @Test
+  void cancelsTaskWaitingForRounds() throws Exception {
+    var run = new AtomicBoolean();
+    var timeout = this.wheel.schedule(() -> run.set(true), 100L, TimeUnit.MILLISECONDS);
+    Thread.sleep(30L); // transferred to its bucket.
+
+    assertTrue(timeout.cancel());
+    Thread.sleep(150L);
+    assertFalse(run.get());
+  }
+
+  @Test
+  void cantCancelTaskWhichHasRun() throws Exception {
+    var done = new CountDownLatch(1);
+    var timeout = this.wheel.schedule(done::countDown, 0L, TimeUnit.MILLISECONDS);
+    assertTrue(done.await(1L, TimeUnit.SECONDS));
+    assertFalse(timeout.cancel());
+    assertFalse(timeout.isCancelled());
+  }
+
+  @Test
+  void runsManyTasks() throws Exception {
+    var done = new CountDownLatch(10000);
+    for (int i = 0; i < 10000; i++) {
+      this.wheel.schedule(done::countDown, i % 100, TimeUnit.MILLISECONDS);
+    }
+    assertTrue(done.await(2L, TimeUnit.SECONDS));
+    assertEquals(0L, done.getCount());
+  }
+
+  @Test
+  void doesNotRunTasksAfterShutdown() throws Exception {
+    var run = new AtomicBoolean();
+    this.wheel.schedule(() -> run.set(true), 30L, TimeUnit.MILLISECONDS);
+    this.wheel.shutdown();
+    Thread.sleep(100L);
+    assertFalse(run.get());
+  }
+}
@@ -27,6 +27,7 @@ import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.Platform;
 import me.xneox.epicguard.core.util.VersionUtils;
 import me.xneox.epicguard.velocity.listener.DisconnectListener;
+import me.xneox.epicguard.velocity.listener.HandshakeListener;
 import me.xneox.epicguard.velocity.listener.PlayerSettingsListener;
 import me.xneox.epicguard.velocity.listener.PostLoginListener;
 import me.xneox.epicguard.velocity.listener.PreLoginListener;
@@ -72,6 +73,7 @@ public class EpicGuardVelocity implements Platform {
     eventManager.register(this, new PreLoginListener(this.epicGuard));
     eventManager.register(this, new DisconnectListener(this.epicGuard));
     eventManager.register(this, new ServerPingListener(this.epicGuard));
+    eventManager.register(this, new HandshakeListener(this.epicGuard));
     eventManager.register(this, new PlayerSettingsListener(this.epicGuard));
   }
 
@@ -32,7 +32,8 @@ public class PreLoginListener extends PreLoginHandler {
     String address = event.getConnection().getRemoteAddress().getAddress().getHostAddress();
     String nickname = event.getUsername();
 
-    return EventTask.async(() ->
-        this.onPreLogin(address, nickname).ifPresent(result -> event.setResult(PreLoginEvent.PreLoginComponentResult.denied(result))));
+    // The event is resumed once the checks (and the proxy lookup) are done, without holding a thread in the meantime.
+    return EventTask.resumeWhenComplete(this.onPreLoginAsync(address, nickname).thenAccept(result ->
+        result.ifPresent(reason -> event.setResult(PreLoginEvent.PreLoginComponentResult.denied(reason)))));
   }
 }
@@ -20,6 +20,7 @@ import java.util.concurrent.TimeUnit;
 import me.xneox.epicguard.core.EpicGuard;
 import me.xneox.epicguard.core.Platform;
 import me.xneox.epicguard.waterfall.listener.DisconnectListener;
+import me.xneox.epicguard.waterfall.listener.HandshakeListener;
 import me.xneox.epicguard.waterfall.listener.PlayerSettingsListener;
 import me.xneox.epicguard.waterfall.listener.PostLoginListener;
 import me.xneox.epicguard.waterfall.listener.PreLoginListener;
@@ -46,6 +47,7 @@ public class EpicGuardWaterfall extends Plugin implements Platform {
     pluginManager.registerListener(this, new DisconnectListener(this.epicGuard));
     pluginManager.registerListener(this, new PostLoginListener(this.epicGuard));
     pluginManager.registerListener(this, new ServerPingListener(this.epicGuard));
+    pluginManager.registerListener(this, new HandshakeListener(this.epicGuard));
     pluginManager.registerListener(this, new PlayerSettingsListener(this.epicGuard));
 
     pluginManager.registerCommand(this, new BungeeCommandHandler(this));
@@ -89,7 +91,8 @@ public class EpicGuardWaterfall extends Plugin implements Platform {
 
   @Override
   public void scheduleRepeatingTask(@NotNull Runnable task, long seconds) {
-    this.getProxy().getScheduler().schedule(this, task, seconds, seconds, TimeUnit.SECONDS);
+    // The first run is not delayed, the same as on the other platforms.
+    this.getProxy().getScheduler().schedule(this, task, 0L, seconds, TimeUnit.SECONDS);
   }
 
   @NotNull